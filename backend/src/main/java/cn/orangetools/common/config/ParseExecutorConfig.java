@@ -0,0 +1,86 @@
+package cn.orangetools.common.config;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ParseExecutorConfig
+ * @date 2026/10/18 10:02
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 课表解析线程池配置
+ * <p>
+ * Excel 解析是纯 CPU 密集型任务，线程数默认等于 CPU 核数。
+ * 所有请求共用这一个池子，单个请求通过 parallelism 参数决定最多占用几个线程，
+ * 这样并发上传再多，总线程数也不会超过核数。
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class ParseExecutorConfig {
+
+    /**
+     * 解析线程数，0 表示使用 CPU 核数
+     */
+    @Value("${orange-tools.parse.threads:0}")
+    private int threads;
+
+    @Bean(name = "timetableParseExecutor", destroyMethod = "shutdown")
+    public ExecutorService timetableParseExecutor() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        log.info("初始化课表解析线程池，线程数：{}", size);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("timetable-parse-", true));
+    }
+
+    /**
+     * 异步分析任务的工作线程数 (每个任务内部仍使用解析线程池并行解析)
+     */
+    @Value("${orange-tools.job.workers:2}")
+    private int jobWorkers;
+
+    /**
+     * 排队中的任务上限，超出后直接拒绝，避免突发上传把线程和内存耗尽
+     */
+    @Value("${orange-tools.job.queue-capacity:20}")
+    private int jobQueueCapacity;
+
+    @Bean(name = "analysisJobExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor analysisJobExecutor() {
+        log.info("初始化异步分析任务线程池，线程数：{}，队列上限：{}", jobWorkers, jobQueueCapacity);
+        return new ThreadPoolExecutor(jobWorkers, jobWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobQueueCapacity),
+                new NamedThreadFactory("analysis-job-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 排班搜索线程数 (HUNGARIAN 策略的并行迭代)，0 表示使用 CPU 核数
+     */
+    @Value("${orange-tools.schedule.threads:0}")
+    private int scheduleThreads;
+
+    @Bean(name = "scheduleSearchExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor scheduleSearchExecutor() {
+        int size = scheduleThreads > 0 ? scheduleThreads : Runtime.getRuntime().availableProcessors();
+        log.info("初始化排班搜索线程池，线程数：{}", size);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("schedule-search-", true));
+    }
+}
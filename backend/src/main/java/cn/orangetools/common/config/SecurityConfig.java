@@ -2,6 +2,7 @@ package cn.orangetools.common.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -65,7 +66,15 @@ public class SecurityConfig {
                         // 下面这些接口，允许匿名访问（不仅是登录，还有Swagger文档等）
                         .requestMatchers("/api/auth/**", "/error").permitAll()
                         // 【新增】允许匿名访问课表分析接口
-                        .requestMatchers("/api/tools/course/analyze").permitAll()
+                        .requestMatchers("/api/tools/course/analyze", "/api/tools/course/analyze/stream").permitAll()
+                        // 分析会话的后续查询 (凭 sessionId 访问，与上传接口一样允许匿名)
+                        .requestMatchers(HttpMethod.GET, "/api/tools/course/sessions/**").permitAll()
+                        // 匿名用户也要能增删自己会话里的学生，sessionId 就是访问凭证 (见 AnalysisSessionStore.save)
+                        // 只放行这两个修改接口，会话下的其他修改请求仍需登录
+                        .requestMatchers(HttpMethod.POST, "/api/tools/course/sessions/*/workbooks").permitAll()
+                        .requestMatchers(HttpMethod.DELETE, "/api/tools/course/sessions/*/students").permitAll()
+                        // 异步分析任务 (凭 jobId 访问；SSE 由 EventSource 发起，无法携带 Token)
+                        .requestMatchers("/api/tools/course/jobs/**").permitAll()
                         // 禁止用户匿名提交需求和反馈
                         .requestMatchers("/api/community/feedback/submit").authenticated()
                         // 允许所有人查看统计、看墙、点赞
@@ -0,0 +1,282 @@
+package cn.orangetools.common.timetable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AvailabilityIndex
+ * @date 2026/10/18 18:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 空闲时间倒排索引
+ * <p>
+ * 学生用序号 (0 ~ size-1) 表示。对每个 (周次, 星期, 节次) 保存一个"忙碌学生"位图，
+ * 学院、专业、年级的每个取值也各保存一个位图。
+ * "第 9 周周四 3-4 节，2023 级 X、Y 专业谁有空" 就变成几次位图 AND / ANDNOT，不再遍历课表。
+ * </p>
+ * <p>
+ * 课表大多整学期不变，不同周同一格子的位图往往完全相同，构建时相同的位图只保留一份；
+ * 没有人忙碌的格子统一指向同一个空位图。
+ * </p>
+ * <p>
+ * 构建后支持按学生增量修改 (add / remove)。由于位图可能被多个格子共用，修改时总是先复制再改 (写时复制)。
+ * 查询和修改之间的并发控制由调用方负责 (见 AnalysisSession 的读写锁)。
+ * </p>
+ */
+public final class AvailabilityIndex {
+
+    public static final int DAYS = 7;
+    public static final int SLOTS = 10;
+    private static final int CELLS = DAYS * SLOTS;
+
+    private static final BitSet EMPTY = new BitSet(0);
+
+    private int size;
+    private int maxWeek;
+    // busy[week][(day - 1) * SLOTS + (slot - 1)]，week 从 1 开始，下标 0 不使用
+    private BitSet[][] busy;
+    // 仍在索引中的学生 (移除的学生留下空位)
+    private final BitSet alive = new BitSet();
+    private final Map<String, BitSet> byCollege;
+    private final Map<String, BitSet> byMajor;
+    private final Map<String, BitSet> byGrade;
+    private final int distinctBitmaps;
+
+    private AvailabilityIndex(Builder builder) {
+        this.size = builder.size;
+        this.maxWeek = builder.maxWeek;
+        this.byCollege = builder.byCollege;
+        this.byMajor = builder.byMajor;
+        this.byGrade = builder.byGrade;
+        this.busy = new BitSet[maxWeek + 1][];
+        this.alive.set(0, size);
+
+        // 相同内容的位图只保留一份
+        Map<BitSet, BitSet> canonical = new HashMap<>();
+        for (int week = 1; week <= maxWeek; week++) {
+            BitSet[] cells = new BitSet[CELLS];
+            for (int k = 0; k < CELLS; k++) {
+                BitSet bits = builder.busy[week] == null ? null : builder.busy[week][k];
+                cells[k] = bits == null || bits.isEmpty() ? EMPTY : canonical.computeIfAbsent(bits, b -> b);
+            }
+            busy[week] = cells;
+        }
+        this.distinctBitmaps = canonical.size();
+    }
+
+    public static Builder builder(int size, int maxWeek) {
+        return new Builder(size, maxWeek);
+    }
+
+    /**
+     * 序号上限 (含已移除学生留下的空位)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 仍在索引中的学生数
+     */
+    public int count() {
+        return alive.cardinality();
+    }
+
+    public int maxWeek() {
+        return maxWeek;
+    }
+
+    /**
+     * 去重后实际保存的位图数量 (用于观察内存占用)
+     */
+    public int distinctBitmaps() {
+        return distinctBitmaps;
+    }
+
+    /**
+     * 某个格子忙碌的学生，返回的位图只读，不要修改
+     */
+    public BitSet busy(int week, int day, int slot) {
+        checkCell(week, day, slot);
+        return busy[week][(day - 1) * SLOTS + (slot - 1)];
+    }
+
+    /**
+     * 按学院/专业/年级筛选学生：同一维度内多个取值为"或"，不同维度之间为"且"，维度为空表示不限
+     * @return 新的位图，调用方可以随意修改
+     */
+    public BitSet select(Collection<String> colleges, Collection<String> majors, Collection<String> grades) {
+        BitSet result = (BitSet) alive.clone();
+        and(result, byCollege, colleges);
+        and(result, byMajor, majors);
+        and(result, byGrade, grades);
+        return result;
+    }
+
+    /**
+     * 在 candidates 中找出指定周、星期、若干节次全部空闲的学生
+     * @param candidates 候选学生 (一般来自 select)，不会被修改
+     * @return 新的位图
+     */
+    public BitSet free(int week, int day, Collection<Integer> slots, BitSet candidates) {
+        BitSet result = (BitSet) candidates.clone();
+        for (int slot : slots) {
+            result.andNot(busy(week, day, slot));
+        }
+        return result;
+    }
+
+    /**
+     * 当前存在的学院 / 专业 / 年级取值 (移除最后一名学生后，该取值随之消失)
+     */
+    public Set<String> colleges() {
+        return new HashSet<>(byCollege.keySet());
+    }
+
+    public Set<String> majors() {
+        return new HashSet<>(byMajor.keySet());
+    }
+
+    public Set<String> grades() {
+        return new HashSet<>(byGrade.keySet());
+    }
+
+    /**
+     * 加入一名学生 (序号可以是新的，也可以是刚 remove 掉的)
+     */
+    public void add(int ordinal, String college, String major, String grade) {
+        size = Math.max(size, ordinal + 1);
+        alive.set(ordinal);
+        if (college != null) byCollege.computeIfAbsent(college, k -> new BitSet()).set(ordinal);
+        if (major != null) byMajor.computeIfAbsent(major, k -> new BitSet()).set(ordinal);
+        if (grade != null) byGrade.computeIfAbsent(grade, k -> new BitSet()).set(ordinal);
+    }
+
+    /**
+     * 记录已加入学生在某个格子的忙碌周次，超出当前最大周次时自动扩展
+     */
+    public void addBusy(int ordinal, int day, int slot, WeekSet weeks) {
+        if (day < 1 || day > DAYS || slot < 1 || slot > SLOTS) return;
+        int cell = (day - 1) * SLOTS + (slot - 1);
+        if (weeks.max() > maxWeek) {
+            growTo(weeks.max());
+        }
+        weeks.forEach(week -> {
+            if (week < 1 || week > maxWeek) return;
+            BitSet bits = (BitSet) busy[week][cell].clone();
+            bits.set(ordinal);
+            busy[week][cell] = bits;
+        });
+    }
+
+    /**
+     * 移除一名学生：清除他在所有格子和筛选维度中的位
+     */
+    public void remove(int ordinal) {
+        alive.clear(ordinal);
+        for (int week = 1; week <= maxWeek; week++) {
+            BitSet[] cells = busy[week];
+            for (int k = 0; k < CELLS; k++) {
+                if (!cells[k].get(ordinal)) continue;
+                BitSet bits = (BitSet) cells[k].clone();
+                bits.clear(ordinal);
+                cells[k] = bits.isEmpty() ? EMPTY : bits;
+            }
+        }
+        clear(byCollege, ordinal);
+        clear(byMajor, ordinal);
+        clear(byGrade, ordinal);
+    }
+
+    private static void clear(Map<String, BitSet> index, int ordinal) {
+        index.values().forEach(bits -> bits.clear(ordinal));
+        index.values().removeIf(BitSet::isEmpty);
+    }
+
+    private void growTo(int newMaxWeek) {
+        newMaxWeek = Math.min(newMaxWeek, WeekSet.MAX_WEEK);
+        BitSet[][] grown = Arrays.copyOf(busy, newMaxWeek + 1);
+        for (int week = maxWeek + 1; week <= newMaxWeek; week++) {
+            grown[week] = new BitSet[CELLS];
+            Arrays.fill(grown[week], EMPTY);
+        }
+        busy = grown;
+        maxWeek = newMaxWeek;
+    }
+
+    private static void and(BitSet result, Map<String, BitSet> index, Collection<String> values) {
+        if (values == null || values.isEmpty()) return;
+        BitSet union = new BitSet();
+        for (String value : values) {
+            BitSet bits = index.get(value);
+            if (bits != null) union.or(bits);
+        }
+        result.and(union);
+    }
+
+    private void checkCell(int week, int day, int slot) {
+        if (week < 1 || week > maxWeek || day < 1 || day > DAYS || slot < 1 || slot > SLOTS) {
+            throw new IllegalArgumentException("超出课表范围：第" + week + "周 星期" + day + " 第" + slot + "节");
+        }
+    }
+
+    public static final class Builder {
+        private final int size;
+        private final int maxWeek;
+        private final BitSet[][] busy;
+        private final Map<String, BitSet> byCollege = new HashMap<>();
+        private final Map<String, BitSet> byMajor = new HashMap<>();
+        private final Map<String, BitSet> byGrade = new HashMap<>();
+
+        private Builder(int size, int maxWeek) {
+            this.size = size;
+            // 周次不会超过 WeekSet.MAX_WEEK，传入的最大周次可能来自 Redis，按上限截断
+            this.maxWeek = Math.max(0, Math.min(maxWeek, WeekSet.MAX_WEEK));
+            this.busy = new BitSet[this.maxWeek + 1][];
+        }
+
+        /**
+         * 记录学生所属的学院、专业、年级 (为空的维度不记录)
+         */
+        public Builder attributes(int ordinal, String college, String major, String grade) {
+            if (college != null) byCollege.computeIfAbsent(college, k -> new BitSet(size)).set(ordinal);
+            if (major != null) byMajor.computeIfAbsent(major, k -> new BitSet(size)).set(ordinal);
+            if (grade != null) byGrade.computeIfAbsent(grade, k -> new BitSet(size)).set(ordinal);
+            return this;
+        }
+
+        /**
+         * 记录学生在某个格子的忙碌周次，超出范围的周次和格子直接忽略
+         */
+        public Builder busy(int ordinal, int day, int slot, WeekSet weeks) {
+            if (day < 1 || day > DAYS || slot < 1 || slot > SLOTS) return this;
+            int cell = (day - 1) * SLOTS + (slot - 1);
+            weeks.forEach(week -> {
+                if (week < 1 || week > maxWeek) return;
+                BitSet[] cells = busy[week];
+                if (cells == null) {
+                    cells = busy[week] = new BitSet[CELLS];
+                }
+                if (cells[cell] == null) {
+                    cells[cell] = new BitSet(size);
+                }
+                cells[cell].set(ordinal);
+            });
+            return this;
+        }
+
+        public AvailabilityIndex build() {
+            return new AvailabilityIndex(this);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package cn.orangetools.common.timetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AvailabilitySimilarity
+ * @date 2026/10/18 22:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 空闲时间相似度 (用于找搭档、分组)
+ * <p>
+ * 每名学生的空闲时间是 (周次, 星期, 节次) 的集合，两人的相似度为空闲集合的 Jaccard 系数。
+ * 所有人都空闲的格子对任意两人的交集、并集贡献相同，不参与编码，只在计算结果时加回；
+ * 剩下的"有人忙碌"的格子按位打包成 long[]，交集/并集大小就是逐字 AND / OR 后 bitCount。
+ * </p>
+ * <p>
+ * 人数较少时直接两两精确计算。人数较多时，分组所需的 O(n²) 两两比较用 MinHash + LSH 替代：
+ * 每名学生取 BANDS * ROWS 个最小哈希 (对格子做随机排列，取排列中第一个空闲格子的位置)，
+ * 按 band 分桶，只比较至少在一个 band 中落入同一桶的学生。
+ * 空闲集合通常占大多数格子，沿排列找到第一个空闲格子平均只需一两步，签名计算很便宜。
+ * </p>
+ */
+public final class AvailabilitySimilarity {
+
+    /**
+     * 超过这个人数时分组改用 LSH 生成候选对
+     */
+    public static final int EXACT_LIMIT = 1000;
+
+    /**
+     * 最多参与计算的人数 (名单内位置用 16 位保存)
+     */
+    public static final int MAX_PEOPLE = 0xFFFF;
+
+    private static final int BANDS = 10;
+    private static final int ROWS = 10;
+    // 同一个桶内人数过多时 (例如整个年级课表完全相同)，只把桶内学生串成链，避免桶内两两组合
+    private static final int BUCKET_CAP = 64;
+    private static final long SEED = 0x5EED_0F_C0FFEEL;
+
+    // 参与计算的学生序号
+    private final int[] members;
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    // free[p]：第 p 个学生在"有人忙碌"的格子上的空闲位图
+    private final long[][] free;
+    // 所有人都空闲的格子数
+    private final int commonFree;
+    private final int words;
+    private final int universe;
+
+    // LSH 签名与分桶，人数不超过 EXACT_LIMIT 时为 null
+    private int[][] signatures;
+    private List<Map<Long, List<Integer>>> buckets;
+
+    /**
+     * @param index 空闲时间索引
+     * @param roster 参与计算的学生
+     */
+    public AvailabilitySimilarity(AvailabilityIndex index, BitSet roster) {
+        this.members = roster.stream().toArray();
+        if (members.length > MAX_PEOPLE) {
+            throw new IllegalArgumentException("人数过多：" + members.length);
+        }
+        for (int p = 0; p < members.length; p++) {
+            positions.put(members[p], p);
+        }
+
+        // 找出有人忙碌的格子，只对这些格子编码
+        int maxWeek = index.maxWeek();
+        List<BitSet> contested = new ArrayList<>();
+        int totalCells = 0;
+        for (int week = 1; week <= maxWeek; week++) {
+            for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++) {
+                    totalCells++;
+                    BitSet busy = index.busy(week, day, slot);
+                    if (busy.intersects(roster)) contested.add(busy);
+                }
+            }
+        }
+        this.universe = contested.size();
+        this.commonFree = totalCells - universe;
+        this.words = Math.max(1, (universe + 63) >>> 6);
+        this.free = new long[members.length][words];
+
+        // 先置空闲位 (全 1)，再清掉忙碌位
+        long lastMask = universe % 64 == 0 ? -1L : (1L << (universe % 64)) - 1;
+        for (long[] bits : free) {
+            Arrays.fill(bits, -1L);
+            bits[words - 1] = universe == 0 ? 0L : lastMask;
+        }
+        for (int u = 0; u < universe; u++) {
+            BitSet busy = contested.get(u);
+            for (int i = busy.nextSetBit(0); i >= 0; i = busy.nextSetBit(i + 1)) {
+                Integer p = positions.get(i);
+                if (p != null) free[p][u >>> 6] &= ~(1L << u);
+            }
+        }
+
+        if (members.length > EXACT_LIMIT) {
+            buildLsh();
+        }
+    }
+
+    public int size() {
+        return members.length;
+    }
+
+    public boolean usesLsh() {
+        return signatures != null;
+    }
+
+    /**
+     * 学生是否在参与计算的范围内
+     */
+    public boolean contains(int ordinal) {
+        return positions.containsKey(ordinal);
+    }
+
+    /**
+     * 两名学生 (序号) 空闲时间的 Jaccard 系数
+     */
+    public double jaccard(int a, int b) {
+        return jaccardAt(position(a), position(b));
+    }
+
+    /**
+     * 两名学生都空闲的格子数 (周次 x 星期 x 节次)
+     */
+    public int sharedFree(int a, int b) {
+        return sharedFreeAt(position(a), position(b));
+    }
+
+    /**
+     * 与某个学生空闲时间最相似的 k 个学生
+     * 精确计算只需对每个人做一次逐字 AND / OR，即使上万人也只要几毫秒，因此始终精确排序；
+     * 使用 LSH 时先取同桶候选，候选不足 k 个再退回全量计算
+     * @return 按相似度从高到低排序
+     */
+    public List<Match> topK(int ordinal, int k) {
+        int self = position(ordinal);
+        List<Integer> candidates = null;
+        if (usesLsh()) {
+            candidates = lshCandidates(self);
+            if (candidates.size() < k) candidates = null;
+        }
+        List<Match> matches = new ArrayList<>();
+        if (candidates == null) {
+            for (int p = 0; p < members.length; p++) {
+                if (p != self) matches.add(new Match(members[p], jaccardAt(self, p), sharedFreeAt(self, p)));
+            }
+        } else {
+            for (int p : candidates) {
+                matches.add(new Match(members[p], jaccardAt(self, p), sharedFreeAt(self, p)));
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Match m) -> -m.jaccard).thenComparingInt(m -> m.ordinal));
+        return matches.size() > k ? new ArrayList<>(matches.subList(0, k)) : matches;
+    }
+
+    /**
+     * 把所有人分成 k 组 (每组人数不超过 ceil(n / k))，尽量让组内共同空闲时间最多
+     * <p>
+     * 先按相似度从高到低合并候选对 (带人数上限的单链接聚类)，合并到 k 簇或候选用完为止；
+     * 再按簇大小从大到小放入与它共同空闲最多、且放得下的组，放不下的簇拆成单人逐个放入。
+     * </p>
+     */
+    public List<Group> partition(int k) {
+        int n = members.length;
+        k = Math.max(1, Math.min(k, Math.max(1, n)));
+        int capacity = (n + k - 1) / k;
+
+        // 1. 候选对按相似度从高到低合并
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int p = 0; p < n; p++) {
+            parent[p] = p;
+            size[p] = 1;
+        }
+        int clusters = n;
+        long[] pairs = usesLsh() ? lshPairs() : allPairs();
+        for (int i = pairs.length - 1; i >= 0 && clusters > k; i--) {
+            int a = find(parent, (int) ((pairs[i] >>> 16) & 0xFFFF));
+            int b = find(parent, (int) (pairs[i] & 0xFFFF));
+            if (a == b || size[a] + size[b] > capacity) continue;
+            if (size[a] < size[b]) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            parent[b] = a;
+            size[a] += size[b];
+            clusters--;
+        }
+        Map<Integer, List<Integer>> byRoot = new HashMap<>();
+        for (int p = 0; p < n; p++) {
+            byRoot.computeIfAbsent(find(parent, p), r -> new ArrayList<>()).add(p);
+        }
+        List<List<Integer>> sorted = new ArrayList<>(byRoot.values());
+        sorted.sort(Comparator.comparingInt((List<Integer> c) -> -c.size()).thenComparingInt(c -> c.get(0)));
+
+        // 2. 装入 k 个组
+        long[][] shared = new long[k][];
+        List<List<Integer>> groups = new ArrayList<>(k);
+        for (int g = 0; g < k; g++) groups.add(new ArrayList<>());
+        for (List<Integer> cluster : sorted) {
+            long[] inter = intersect(cluster);
+            int best = bestGroup(shared, groups, inter, cluster.size(), capacity);
+            if (best >= 0) {
+                place(shared, groups, best, cluster, inter);
+                continue;
+            }
+            for (int p : cluster) {
+                int g = bestGroup(shared, groups, free[p], 1, capacity);
+                place(shared, groups, g, List.of(p), free[p]);
+            }
+        }
+
+        List<Group> result = new ArrayList<>(k);
+        for (int g = 0; g < k; g++) {
+            List<Integer> group = groups.get(g);
+            if (group.isEmpty()) continue;
+            int[] ordinals = new int[group.size()];
+            for (int i = 0; i < ordinals.length; i++) ordinals[i] = members[group.get(i)];
+            Arrays.sort(ordinals);
+            result.add(new Group(ordinals, popcount(shared[g]) + commonFree));
+        }
+        return result;
+    }
+
+    /**
+     * 相似学生
+     */
+    public static final class Match {
+        public final int ordinal;
+        public final double jaccard;
+        public final int sharedFree;
+
+        Match(int ordinal, double jaccard, int sharedFree) {
+            this.ordinal = ordinal;
+            this.jaccard = jaccard;
+            this.sharedFree = sharedFree;
+        }
+    }
+
+    /**
+     * 分组结果：组员序号与全组共同空闲的格子数
+     */
+    public static final class Group {
+        public final int[] ordinals;
+        public final int sharedFree;
+
+        Group(int[] ordinals, int sharedFree) {
+            this.ordinals = ordinals;
+            this.sharedFree = sharedFree;
+        }
+    }
+
+    private int position(int ordinal) {
+        Integer p = positions.get(ordinal);
+        if (p == null) throw new IllegalArgumentException("学生不在计算范围内：" + ordinal);
+        return p;
+    }
+
+    private double jaccardAt(int a, int b) {
+        long[] x = free[a];
+        long[] y = free[b];
+        int and = 0;
+        int or = 0;
+        for (int w = 0; w < words; w++) {
+            and += Long.bitCount(x[w] & y[w]);
+            or += Long.bitCount(x[w] | y[w]);
+        }
+        int union = or + commonFree;
+        return union == 0 ? 1.0 : (double) (and + commonFree) / union;
+    }
+
+    private int sharedFreeAt(int a, int b) {
+        long[] x = free[a];
+        long[] y = free[b];
+        int and = 0;
+        for (int w = 0; w < words; w++) {
+            and += Long.bitCount(x[w] & y[w]);
+        }
+        return and + commonFree;
+    }
+
+    /**
+     * 所有两两组合，按相似度升序排列
+     * 编码为 (相似度量化值 << 32) | (a << 16) | b，排序后从尾部取即为从高到低
+     */
+    private long[] allPairs() {
+        int n = members.length;
+        long[] pairs = new long[n * (n - 1) / 2];
+        int i = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                pairs[i++] = pairKey(a, b);
+            }
+        }
+        Arrays.sort(pairs);
+        return pairs;
+    }
+
+    private long pairKey(int a, int b) {
+        long quantized = (long) (jaccardAt(a, b) * (1 << 30));
+        return (quantized << 32) | ((long) a << 16) | b;
+    }
+
+    private static int find(int[] parent, int p) {
+        while (parent[p] != p) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    private long[] intersect(List<Integer> cluster) {
+        long[] inter = free[cluster.get(0)].clone();
+        for (int i = 1; i < cluster.size(); i++) {
+            long[] bits = free[cluster.get(i)];
+            for (int w = 0; w < words; w++) inter[w] &= bits[w];
+        }
+        return inter;
+    }
+
+    /**
+     * 放得下 count 人的组中，与 bits 共同空闲最多的一个；同分时选人少的；都放不下返回 -1
+     */
+    private int bestGroup(long[][] shared, List<List<Integer>> groups, long[] bits, int count, int capacity) {
+        int best = -1;
+        int bestScore = -1;
+        for (int g = 0; g < groups.size(); g++) {
+            int used = groups.get(g).size();
+            if (used + count > capacity) continue;
+            int score;
+            if (shared[g] == null) {
+                score = popcount(bits);
+            } else {
+                score = 0;
+                for (int w = 0; w < words; w++) score += Long.bitCount(shared[g][w] & bits[w]);
+            }
+            if (score > bestScore || (score == bestScore && used < groups.get(best).size())) {
+                best = g;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private void place(long[][] shared, List<List<Integer>> groups, int g, List<Integer> cluster, long[] bits) {
+        groups.get(g).addAll(cluster);
+        if (shared[g] == null) {
+            shared[g] = bits.clone();
+        } else {
+            for (int w = 0; w < words; w++) shared[g][w] &= bits[w];
+        }
+    }
+
+    private static int popcount(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+
+    // ================== MinHash / LSH ==================
+
+    private void buildLsh() {
+        int hashes = BANDS * ROWS;
+        // 每个哈希函数是格子的一个随机排列
+        int[][] permutations = new int[hashes][];
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] identity = new int[universe];
+        for (int u = 0; u < universe; u++) identity[u] = u;
+        for (int h = 0; h < hashes; h++) {
+            int[] perm = identity.clone();
+            for (int i = universe - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = perm[i];
+                perm[i] = perm[j];
+                perm[j] = t;
+            }
+            permutations[h] = perm;
+        }
+
+        signatures = new int[members.length][hashes];
+        for (int p = 0; p < members.length; p++) {
+            long[] bits = free[p];
+            for (int h = 0; h < hashes; h++) {
+                int[] perm = permutations[h];
+                int pos = 0;
+                while (pos < universe && (bits[perm[pos] >>> 6] & (1L << perm[pos])) == 0) pos++;
+                // 没有任何空闲格子时签名为 universe
+                signatures[p][h] = pos;
+            }
+        }
+
+        buckets = new ArrayList<>(BANDS);
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, List<Integer>> map = new HashMap<>();
+            for (int p = 0; p < members.length; p++) {
+                map.computeIfAbsent(bandKey(p, band), key -> new ArrayList<>()).add(p);
+            }
+            buckets.add(map);
+        }
+    }
+
+    private long bandKey(int p, int band) {
+        long key = 1125899906842597L;
+        int[] sig = signatures[p];
+        for (int r = band * ROWS; r < (band + 1) * ROWS; r++) {
+            key = 31 * key + sig[r];
+        }
+        return key;
+    }
+
+    /**
+     * 与 p 至少在一个 band 中同桶的学生
+     */
+    private List<Integer> lshCandidates(int p) {
+        BitSet seen = new BitSet(members.length);
+        for (int band = 0; band < BANDS; band++) {
+            for (int q : buckets.get(band).get(bandKey(p, band))) {
+                if (q != p) seen.set(q);
+            }
+        }
+        List<Integer> result = new ArrayList<>(seen.cardinality());
+        seen.stream().forEach(result::add);
+        return result;
+    }
+
+    /**
+     * LSH 候选对 (去重)，按相似度升序排列，编码同 allPairs
+     */
+    private long[] lshPairs() {
+        long[] raw = new long[1024];
+        int count = 0;
+        for (Map<Long, List<Integer>> map : buckets) {
+            for (List<Integer> bucket : map.values()) {
+                int size = bucket.size();
+                if (size < 2) continue;
+                boolean chain = size > BUCKET_CAP;
+                for (int i = 0; i < size; i++) {
+                    int end = chain ? Math.min(size, i + 2) : size;
+                    for (int j = i + 1; j < end; j++) {
+                        if (count == raw.length) raw = Arrays.copyOf(raw, raw.length * 2);
+                        int a = bucket.get(i);
+                        int b = bucket.get(j);
+                        raw[count++] = ((long) Math.min(a, b) << 16) | Math.max(a, b);
+                    }
+                }
+            }
+        }
+        Arrays.sort(raw, 0, count);
+        long[] pairs = new long[count];
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && raw[i] == raw[i - 1]) continue;
+            int a = (int) (raw[i] >>> 16);
+            int b = (int) (raw[i] & 0xFFFF);
+            pairs[unique++] = pairKey(a, b);
+        }
+        pairs = Arrays.copyOf(pairs, unique);
+        Arrays.sort(pairs);
+        return pairs;
+    }
+}
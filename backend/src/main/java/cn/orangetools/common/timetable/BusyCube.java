@@ -0,0 +1,118 @@
+package cn.orangetools.common.timetable;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file BusyCube
+ * @date 2026/10/18 21:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 全学期忙碌人数立方体 (周次 x 星期 x 节次)
+ * <p>
+ * counts 是一维数组，第 week 周、星期 day、第 slot 节的下标为
+ * ((week - 1) * 7 + (day - 1)) * 10 + (slot - 1)，即先按周、再按星期、最后按节次排列。
+ * 每名学生只需遍历一次：对每个有课的格子，直接在周次位图上逐位累加，
+ * 同时用 bitCount 统计这个格子整学期的忙碌人次。
+ * </p>
+ */
+public final class BusyCube {
+
+    public static final int CELLS = AvailabilityIndex.DAYS * AvailabilityIndex.SLOTS;
+
+    private final int maxWeek;
+    // 第 1 ~ min(maxWeek, 63) 周对应的位
+    private final long weekMask;
+    private final int[] counts;
+    // 每个格子整学期的忙碌人次 (各周忙碌人数之和)
+    private final int[] busyWeekTotals = new int[CELLS];
+    private int people;
+
+    public BusyCube(int maxWeek) {
+        // 周次不会超过 WeekSet.MAX_WEEK，按上限截断以免按周分配的数组过大
+        this.maxWeek = Math.max(0, Math.min(maxWeek, WeekSet.MAX_WEEK));
+        int maskWeeks = Math.min(this.maxWeek, 63);
+        this.weekMask = maskWeeks <= 0 ? 0L : ((-1L >>> (63 - maskWeeks)) & ~1L);
+        this.counts = new int[this.maxWeek * CELLS];
+    }
+
+    public static int cellOf(int day, int slot) {
+        return (day - 1) * AvailabilityIndex.SLOTS + (slot - 1);
+    }
+
+    /**
+     * 累加一名学生
+     * @param cellWeeks 长度为 70，下标为 cellOf(day, slot)，值为该格子合并后的忙碌周次，null 表示没课
+     */
+    public void add(WeekSet[] cellWeeks) {
+        people++;
+        for (int cell = 0; cell < CELLS; cell++) {
+            WeekSet weeks = cellWeeks[cell];
+            if (weeks == null) continue;
+            long bits = weeks.mask() & weekMask;
+            busyWeekTotals[cell] += Long.bitCount(bits);
+            while (bits != 0) {
+                int week = Long.numberOfTrailingZeros(bits);
+                counts[(week - 1) * CELLS + cell]++;
+                bits &= bits - 1;
+            }
+            // 超过 63 周的极端情况逐周处理
+            if (maxWeek > 63 && weeks.max() > 63) {
+                final int c = cell;
+                weeks.forEach(week -> {
+                    if (week > 63 && week <= maxWeek) {
+                        counts[(week - 1) * CELLS + c]++;
+                        busyWeekTotals[c]++;
+                    }
+                });
+            }
+        }
+    }
+
+    public int maxWeek() {
+        return maxWeek;
+    }
+
+    public int people() {
+        return people;
+    }
+
+    /**
+     * 各周各格子的忙碌人数，不要修改
+     */
+    public int[] counts() {
+        return counts;
+    }
+
+    public int busy(int week, int day, int slot) {
+        return counts[(week - 1) * CELLS + cellOf(day, slot)];
+    }
+
+    /**
+     * 每个格子整学期的平均空闲比例 (1 - 忙碌人次 / (人数 * 周数))
+     */
+    public double[] freeRatios() {
+        double[] ratios = new double[CELLS];
+        long capacity = (long) people * maxWeek;
+        for (int cell = 0; cell < CELLS; cell++) {
+            ratios[cell] = capacity == 0 ? 1.0 : 1.0 - (double) busyWeekTotals[cell] / capacity;
+        }
+        return ratios;
+    }
+
+    /**
+     * 每个格子有多少周所有人都空闲
+     */
+    public int[] allFreeWeeks() {
+        int[] result = new int[CELLS];
+        for (int week = 1; week <= maxWeek; week++) {
+            int base = (week - 1) * CELLS;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (counts[base + cell] == 0) result[cell]++;
+            }
+        }
+        return result;
+    }
+}
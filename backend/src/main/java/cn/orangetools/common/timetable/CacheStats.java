@@ -0,0 +1,41 @@
+package cn.orangetools.common.timetable;
+
+import lombok.Data;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CacheStats
+ * @date 2026/10/18 13:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 缓存命中统计 (用于监控接口展示)
+ */
+@Data
+public class CacheStats {
+    private String name;     // 缓存名称
+    private Integer size;    // 当前条目数
+    private Integer capacity; // 最大条目数
+    private Long hits;       // 命中次数
+    private Long misses;     // 未命中次数
+    private Long savedMs;    // 命中缓存节省的处理耗时 (毫秒，不适用时为空)
+
+    public CacheStats(String name, int size, int capacity, long hits, long misses) {
+        this.name = name;
+        this.size = size;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * 命中率 (0-1)，没有任何访问时为 0
+     */
+    public Double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
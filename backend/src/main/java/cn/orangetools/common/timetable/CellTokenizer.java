@@ -0,0 +1,224 @@
+package cn.orangetools.common.timetable;
+
+import java.util.Arrays;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CellTokenizer
+ * @date 2026/10/18 14:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 课表单元格扫描器 (课表分析和排班助手共用)
+ * <p>
+ * 单元格格式：多门课之间用 "……" (至少两个省略号) 分隔，每门课三行：
+ * <pre>
+ * 高等数学
+ * 杜洪霞【2-6,8周】
+ * 明华楼301
+ * </pre>
+ * 以前的做法是 split + 每门课 Pattern.compile 一次正则，这里改为从头到尾只扫描一遍字符串，
+ * 不做任何 split / 正则 / substring，只记录课程名、教师、周次、地点在原字符串中的起止下标，
+ * 调用方按需截取。切分规则与原来的正则实现完全一致：
+ * </p>
+ * <ul>
+ *     <li>每一行去掉首尾空白，空行忽略</li>
+ *     <li>第一行是课程名，第三行是地点，第三行之后的内容忽略</li>
+ *     <li>第二行必须以 】 或 ] 结尾，第一个 【 或 [ 之前是教师，之后到结尾括号之间是周次；否则整行视为教师</li>
+ * </ul>
+ */
+public final class CellTokenizer {
+
+    private CellTokenizer() {
+    }
+
+    /**
+     * 扫描单元格
+     * @param content 单元格原文
+     * @param tokens 输出 (会先清空，可重复使用以减少分配)
+     * @return 课程数量
+     */
+    public static int tokenize(String content, Tokens tokens) {
+        tokens.count = 0;
+        if (content == null || isBlankOrSingleChar(content)) return 0;
+        if (content.contains("无课") || content.contains("时间段空闲")) return 0;
+
+        int len = content.length();
+        int lineStart = 0;
+        int lineIndex = 0; // 当前课程块内第几个非空行
+        int i = 0;
+        while (i <= len) {
+            char c = i < len ? content.charAt(i) : '\n';
+            boolean separator = c == '…' && i + 1 < len && content.charAt(i + 1) == '…';
+            if (c == '\n' || separator || i == len) {
+                if (lineIndex < 3 && lineStart < i) {
+                    if (acceptLine(content, lineStart, i, lineIndex, tokens)) lineIndex++;
+                }
+                if (separator) {
+                    // 跳过连续的省略号，进入下一个课程块
+                    while (i < len && content.charAt(i) == '…') i++;
+                    lineIndex = 0;
+                    lineStart = i;
+                    continue;
+                }
+                lineStart = i + 1;
+            }
+            i++;
+        }
+        return tokens.count;
+    }
+
+    /**
+     * 处理一行，返回该行是否为非空行
+     */
+    private static boolean acceptLine(String content, int start, int end, int lineIndex, Tokens tokens) {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        if (start == end) return false;
+
+        if (lineIndex == 0) {
+            int k = tokens.next();
+            tokens.set(k, NAME, start, end);
+        } else if (lineIndex == 1) {
+            int k = tokens.count - 1;
+            int close = closeBracketIndex(content, start, end);
+            int open = close < 0 ? -1 : findOpenBracket(content, start, close);
+            if (open < 0) {
+                tokens.set(k, TEACHER, start, end);
+            } else {
+                int teacherEnd = open;
+                int teacherStart = start;
+                while (teacherEnd > teacherStart && content.charAt(teacherEnd - 1) <= ' ') teacherEnd--;
+                int weekStart = open + 1;
+                int weekEnd = close;
+                while (weekStart < weekEnd && content.charAt(weekStart) <= ' ') weekStart++;
+                while (weekEnd > weekStart && content.charAt(weekEnd - 1) <= ' ') weekEnd--;
+                tokens.set(k, TEACHER, teacherStart, teacherEnd);
+                tokens.set(k, WEEKS, weekStart, weekEnd);
+            }
+        } else {
+            tokens.set(tokens.count - 1, LOCATION, start, end);
+        }
+        return true;
+    }
+
+    /**
+     * 正则 ^(.*?)[【\[](.*?)[】\]]$ 中结尾右括号的位置，不是右括号结尾时返回 -1
+     * (正则的 $ 允许末尾再跟一个行终止符，这里保持一致)
+     */
+    private static int closeBracketIndex(String content, int start, int end) {
+        int close = end - 1;
+        if (isLineTerminator(content.charAt(close))) close--;
+        if (close <= start) return -1;
+        char c = content.charAt(close);
+        return c == '】' || c == ']' ? close : -1;
+    }
+
+    /**
+     * 第一个左括号的位置，中间出现行终止符 (正则的 . 不匹配) 或没有左括号时返回 -1
+     */
+    private static int findOpenBracket(String content, int start, int close) {
+        int open = -1;
+        for (int p = start; p < close; p++) {
+            char c = content.charAt(p);
+            if (isLineTerminator(c)) return -1;
+            if (open < 0 && (c == '【' || c == '[')) open = p;
+        }
+        return open;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 等价于 content.trim().length() <= 1，但不产生新字符串
+     */
+    private static boolean isBlankOrSingleChar(String content) {
+        int start = 0;
+        int end = content.length();
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return end - start <= 1;
+    }
+
+    static final int NAME = 0;
+    static final int TEACHER = 1;
+    static final int WEEKS = 2;
+    static final int LOCATION = 3;
+    private static final int FIELDS = 4;
+
+    /**
+     * 扫描结果：每门课 4 个字段 (课程名/教师/周次/地点)，每个字段记录 [start, end)，不存在时为 -1
+     */
+    public static final class Tokens {
+        private int[] offsets = new int[FIELDS * 2 * 4];
+        private int count;
+
+        public int count() {
+            return count;
+        }
+
+        private int next() {
+            int need = (count + 1) * FIELDS * 2;
+            if (offsets.length < need) offsets = Arrays.copyOf(offsets, need * 2);
+            Arrays.fill(offsets, count * FIELDS * 2, need, -1);
+            return count++;
+        }
+
+        private void set(int course, int field, int start, int end) {
+            int base = (course * FIELDS + field) * 2;
+            offsets[base] = start;
+            offsets[base + 1] = end;
+        }
+
+        private int start(int course, int field) {
+            return offsets[(course * FIELDS + field) * 2];
+        }
+
+        private int end(int course, int field) {
+            return offsets[(course * FIELDS + field) * 2 + 1];
+        }
+
+        public boolean has(int course, int field) {
+            return start(course, field) >= 0;
+        }
+
+        /**
+         * 截取字段文本，字段不存在时返回 null
+         */
+        public String text(String content, int course, int field) {
+            int s = start(course, field);
+            return s < 0 ? null : content.substring(s, end(course, field));
+        }
+
+        public String name(String content, int course) {
+            return text(content, course, NAME);
+        }
+
+        public String teacher(String content, int course) {
+            return text(content, course, TEACHER);
+        }
+
+        /**
+         * 方括号内的原始周次文本 (可能带 "周" 字)，第二行格式不匹配或不存在时返回 null
+         */
+        public String weeks(String content, int course) {
+            return text(content, course, WEEKS);
+        }
+
+        public String location(String content, int course) {
+            return text(content, course, LOCATION);
+        }
+
+        /**
+         * 第二行是否存在 (用于区分"没有第二行"和"第二行格式不匹配")
+         */
+        public boolean hasSecondLine(int course) {
+            return has(course, TEACHER);
+        }
+    }
+}
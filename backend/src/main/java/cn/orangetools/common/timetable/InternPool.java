@@ -0,0 +1,102 @@
+package cn.orangetools.common.timetable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file InternPool
+ * @date 2026/10/18 15:02
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 单次分析内的享元池
+ * <p>
+ * 一个班 40 个学生，"高等数学 / 杜洪霞【2-6,8周】 / 明华楼301" 这样的单元格几乎人人相同，
+ * 学院、专业、年级也高度重复。解析时先到池子里查一下，相同内容只保留一份对象，
+ * 大批量分析时结果对象图能小一个数量级。
+ * </p>
+ * <p>
+ * 池中对象会被多个学生共享，放进池子之后就不能再修改。
+ * 池子是线程安全的，可以被并行解析的多个文件共用；分析结束后随结果一起丢弃。
+ * </p>
+ */
+public final class InternPool {
+
+    private static final int DAYS = 7;
+    private static final int SLOTS = 10;
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    // 按单元格原文共享 (与节次无关的内容，如课程详情列表)
+    private final ConcurrentHashMap<String, Object> cells = new ConcurrentHashMap<>();
+    // 按 (星期, 节次, 单元格原文) 共享 (包含节次信息的对象)
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, Object>[] slotCells = new ConcurrentHashMap[DAYS * SLOTS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public InternPool() {
+        for (int i = 0; i < slotCells.length; i++) {
+            slotCells[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * 字符串去重
+     */
+    public String intern(String value) {
+        if (value == null) return null;
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * 按单元格原文共享对象，池中没有时调用 factory 创建
+     */
+    public <T> T shared(String content, Function<String, T> factory) {
+        return lookup(cells, content, factory);
+    }
+
+    /**
+     * 按 (星期, 节次, 单元格原文) 共享对象，星期/节次超出 7×10 范围时不共享
+     */
+    public <T> T sharedInSlot(int day, int slot, String content, Function<String, T> factory) {
+        if (day < 1 || day > DAYS || slot < 1 || slot > SLOTS) {
+            return factory.apply(content);
+        }
+        return lookup(slotCells[(day - 1) * SLOTS + (slot - 1)], content, factory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(ConcurrentHashMap<String, Object> map, String content, Function<String, T> factory) {
+        Object existing = map.get(content);
+        if (existing != null) {
+            hits.increment();
+            return (T) existing;
+        }
+        misses.increment();
+        // 不用 computeIfAbsent：factory 里可能还会访问本池的其他 map，并发下偶尔重复创建一次也无妨
+        T created = factory.apply(content);
+        existing = map.putIfAbsent(content, created);
+        return existing != null ? (T) existing : created;
+    }
+
+    /**
+     * 共享命中次数
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * 新建对象次数
+     */
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,168 @@
+package cn.orangetools.common.timetable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file MeetingWindowFinder
+ * @date 2026/10/18 22:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 连续空闲时段搜索
+ * <p>
+ * 例如 "第 5-12 周里连续 2 节、组内至少 90% 的人有空的时段"。
+ * 一个时段缺席的人 = 这几节里任一节忙碌的人，即连续几个忙碌位图的并集。
+ * 对同一天的 10 节课，用分块前缀/后缀并集 (van Herk / Gil-Werman) 求所有长度为 duration 的窗口：
+ * 每个窗口只需一次 OR，与 duration 无关。
+ * </p>
+ * <p>
+ * 每周模式下每个 (周, 星期, 起始节次) 是一个候选；
+ * 固定时段模式 (recurring) 下先把周次范围内同一格子的忙碌位图合并，候选是 (星期, 起始节次)，
+ * 表示这个时段在整个周次范围内每周都能开会。
+ * </p>
+ */
+public final class MeetingWindowFinder {
+
+    private static final int SLOTS = AvailabilityIndex.SLOTS;
+
+    private final AvailabilityIndex index;
+
+    public MeetingWindowFinder(AvailabilityIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * 搜索结果中的一个时段
+     */
+    public static final class Window {
+        // 固定时段模式下为 null
+        public final Integer week;
+        public final int day;
+        public final int startSlot;
+        public final int endSlot;
+        public final int free;
+        // 缺席的学生 (已限定在候选范围内)
+        public final BitSet missing;
+
+        Window(Integer week, int day, int startSlot, int endSlot, int free, BitSet missing) {
+            this.week = week;
+            this.day = day;
+            this.startSlot = startSlot;
+            this.endSlot = endSlot;
+            this.free = free;
+            this.missing = missing;
+        }
+    }
+
+    /**
+     * 按空闲人数从多到少排序；人数相同时时间靠前的优先
+     */
+    private static final Comparator<Window> RANK = Comparator.<Window>comparingInt(w -> -w.free)
+            .thenComparingInt(w -> w.week == null ? 0 : w.week)
+            .thenComparingInt(w -> w.day)
+            .thenComparingInt(w -> w.startSlot);
+
+    /**
+     * @param candidates 参与统计的学生 (一般来自 index.select)
+     * @param duration 连续节数 (1-10)
+     * @param weekFrom 起始周
+     * @param weekTo 结束周 (含)
+     * @param days 允许的星期 (为空表示 1-7)
+     * @param minFree 至少多少人有空
+     * @param topK 最多返回多少个时段
+     * @param recurring 是否要求整个周次范围内每周都有空
+     * @return 按排名排序的时段
+     */
+    public List<Window> find(BitSet candidates, int duration, int weekFrom, int weekTo, Collection<Integer> days,
+                             int minFree, int topK, boolean recurring) {
+        int total = candidates.cardinality();
+        // 堆顶是当前最差的一个，超出 topK 时淘汰
+        PriorityQueue<Window> top = new PriorityQueue<>(RANK.reversed());
+        BitSet scratch = new BitSet(index.size());
+        for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+            if (days != null && !days.isEmpty() && !days.contains(day)) continue;
+            if (recurring) {
+                BitSet[] busy = new BitSet[SLOTS];
+                for (int slot = 1; slot <= SLOTS; slot++) {
+                    BitSet union = new BitSet();
+                    for (int week = weekFrom; week <= weekTo; week++) {
+                        union.or(index.busy(week, day, slot));
+                    }
+                    busy[slot - 1] = union;
+                }
+                scan(busy, null, day, duration, candidates, total, minFree, topK, top, scratch);
+            } else {
+                for (int week = weekFrom; week <= weekTo; week++) {
+                    BitSet[] busy = new BitSet[SLOTS];
+                    for (int slot = 1; slot <= SLOTS; slot++) {
+                        busy[slot - 1] = index.busy(week, day, slot);
+                    }
+                    scan(busy, week, day, duration, candidates, total, minFree, topK, top, scratch);
+                }
+            }
+        }
+        List<Window> result = new ArrayList<>(top);
+        result.sort(RANK);
+        return result;
+    }
+
+    /**
+     * 扫描一天内所有长度为 duration 的窗口
+     */
+    private static void scan(BitSet[] busy, Integer week, int day, int duration, BitSet candidates, int total,
+                             int minFree, int topK, PriorityQueue<Window> top, BitSet scratch) {
+        if (duration > SLOTS) return;
+        // prefix[i]：从 i 所在块的开头到 i 的并集；suffix[i]：从 i 到所在块末尾的并集 (块长为 duration)
+        BitSet[] prefix = new BitSet[SLOTS];
+        BitSet[] suffix = new BitSet[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            prefix[i] = i % duration == 0 ? busy[i] : or(prefix[i - 1], busy[i]);
+        }
+        for (int i = SLOTS - 1; i >= 0; i--) {
+            suffix[i] = i % duration == duration - 1 || i == SLOTS - 1 ? busy[i] : or(suffix[i + 1], busy[i]);
+        }
+        for (int start = 0; start + duration <= SLOTS; start++) {
+            int end = start + duration - 1;
+            // 窗口 [start, end] 恰好跨越一个块边界 (或正好是一个块)，并集 = suffix[start] | prefix[end]
+            scratch.clear();
+            scratch.or(suffix[start]);
+            if (start % duration != 0) {
+                scratch.or(prefix[end]);
+            }
+            scratch.and(candidates);
+            int free = total - scratch.cardinality();
+            if (free < minFree) continue;
+            if (top.size() >= topK) {
+                Window worst = top.peek();
+                if (free < worst.free || (free == worst.free && !earlier(week, day, start + 1, worst))) continue;
+            }
+            top.add(new Window(week, day, start + 1, end + 1, free, (BitSet) scratch.clone()));
+            if (top.size() > topK) {
+                top.poll();
+            }
+        }
+    }
+
+    private static boolean earlier(Integer week, int day, int startSlot, Window other) {
+        int w = week == null ? 0 : week;
+        int ow = other.week == null ? 0 : other.week;
+        if (w != ow) return w < ow;
+        if (day != other.day) return day < other.day;
+        return startSlot < other.startSlot;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package cn.orangetools.common.timetable;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ParseCache
+ * @date 2026/10/18 15:48
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 按文件内容寻址的解析结果缓存
+ * <p>
+ * Key 是文件内容的 SHA-256，内容不变就直接复用上次的解析结果，完全跳过 EasyExcel。
+ * 一级缓存是进程内的 LRU；开启 Redis 后，一级未命中会再查 Redis (JSON 存储，带过期时间)，
+ * 这样多实例部署或重启后也能命中。
+ * </p>
+ * <p>
+ * 缓存中的对象会被多次请求共享，取出后不可修改。
+ * </p>
+ */
+@Slf4j
+public class ParseCache<T> {
+
+    private final String name;
+    private final LRUCache<String, Entry<T>> local;
+    private final StringRedisTemplate redis; // 为 null 表示不使用 Redis
+    private final ObjectMapper objectMapper;
+    private final JavaType entryType;
+    private final long redisTtlHours;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // 命中缓存节省下来的解析耗时 (按首次解析的耗时累计)
+    private final LongAdder savedMs = new LongAdder();
+
+    ParseCache(String name, Class<T> valueType, int capacity, StringRedisTemplate redis,
+               ObjectMapper objectMapper, long redisTtlHours) {
+        this.name = name;
+        this.local = CacheUtil.newLRUCache(capacity);
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.entryType = objectMapper.getTypeFactory().constructParametricType(Entry.class, valueType);
+        this.redisTtlHours = redisTtlHours;
+    }
+
+    /**
+     * 查询缓存
+     * @param hash 文件内容的 SHA-256
+     * @return 解析结果，未命中返回 null
+     */
+    public T get(String hash) {
+        Entry<T> entry = local.get(hash);
+        if (entry == null && redis != null) {
+            entry = readRedis(hash);
+            if (entry != null) local.put(hash, entry);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        savedMs.add(entry.getCostMs());
+        return entry.getValue();
+    }
+
+    /**
+     * 写入缓存
+     * @param hash 文件内容的 SHA-256
+     * @param value 解析结果
+     * @param costMs 本次解析耗时，用于统计命中后节省的时间
+     */
+    public void put(String hash, T value, long costMs) {
+        Entry<T> entry = new Entry<>(value, costMs);
+        local.put(hash, entry);
+        if (redis != null) {
+            try {
+                redis.opsForValue().set(redisKey(hash), objectMapper.writeValueAsString(entry), redisTtlHours, TimeUnit.HOURS);
+            } catch (Exception e) {
+                // Redis 只是二级缓存，失败不影响主流程
+                log.warn("解析缓存写入 Redis 失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    public CacheStats stats() {
+        CacheStats stats = new CacheStats(name, local.size(), local.capacity(), hits.sum(), misses.sum());
+        stats.setSavedMs(savedMs.sum());
+        return stats;
+    }
+
+    private Entry<T> readRedis(String hash) {
+        try {
+            String json = redis.opsForValue().get(redisKey(hash));
+            return json == null ? null : objectMapper.readValue(json, entryType);
+        } catch (Exception e) {
+            log.warn("解析缓存读取 Redis 失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String redisKey(String hash) {
+        return "tools:parse:" + name + ":" + hash;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry<T> {
+        private T value;
+        private long costMs;
+    }
+}
@@ -0,0 +1,63 @@
+package cn.orangetools.common.timetable;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ParseCacheFactory
+ * @date 2026/10/18 16:02
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 解析缓存工厂，统一读取缓存配置，课表分析和排班助手各自创建一个 ParseCache
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParseCacheFactory {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Value("${orange-tools.parse-cache.capacity:2000}")
+    private int capacity;
+
+    @Value("${orange-tools.parse-cache.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${orange-tools.parse-cache.redis-ttl-hours:24}")
+    private long redisTtlHours;
+
+    /**
+     * 创建一个解析缓存
+     * @param name 缓存名称 (同时作为 Redis key 前缀，结构变化时请修改版本号)
+     * @param valueType 缓存内容的类型
+     */
+    public <T> ParseCache<T> create(String name, Class<T> valueType) {
+        StringRedisTemplate redis = redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+        log.info("初始化解析缓存：{}，容量：{}，Redis：{}", name, capacity, redis != null ? "开启" : "关闭");
+        return new ParseCache<>(name, valueType, capacity, redis, objectMapper, redisTtlHours);
+    }
+
+    /**
+     * 流式计算文件内容的 SHA-256 (不会把整个文件读进内存)
+     */
+    public static String hash(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return DigestUtil.sha256Hex(stream);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cn.orangetools.common.timetable;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WeekExpressionCompiler
+ * @date 2026/10/18 13:26
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 周次表达式编译器 (课表分析和排班助手共用)
+ * <p>
+ * 把 "3-5(单),8-10,16-18(双)周" 这样的表达式编译成不可变的 WeekSet。
+ * 一个学期里不同的表达式只有几百种，但每个学生的每个单元格都要解析一遍，
+ * 所以这里按原始字符串做缓存：同样的表达式只编译一次，之后都是一次哈希查找。
+ * </p>
+ * <p>
+ * 缓存有容量上限，满了之后新表达式照常编译但不再入缓存，避免异常数据把内存撑爆。
+ * </p>
+ */
+@Slf4j
+@Component
+public class WeekExpressionCompiler {
+
+    private final ConcurrentHashMap<String, WeekSet> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Value("${orange-tools.timetable.week-cache-size:4096}")
+    private int capacity = 4096;
+
+    /**
+     * 编译周次表达式
+     * @param expression 方括号内的原始周次文本，可以带 "周" 字，如 "2-6,8周"
+     * @return 周次集合 (表达式为空时返回 WeekSet.EMPTY)
+     */
+    public WeekSet compile(String expression) {
+        if (expression == null || expression.isEmpty()) return WeekSet.EMPTY;
+        WeekSet weeks = cache.get(expression);
+        if (weeks != null) {
+            hits.increment();
+            return weeks;
+        }
+        misses.increment();
+        weeks = expand(expression.replace("周", ""));
+        if (cache.size() < capacity) {
+            cache.putIfAbsent(expression, weeks);
+        }
+        return weeks;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats("week-expression", cache.size(), capacity, hits.sum(), misses.sum());
+    }
+
+    /**
+     * 展开周次 (支持逗号、连字符、单双周)
+     * 输入: "3-5(单),8-10,16-18(双)"
+     * 输出: {3, 5, 8, 9, 10, 16, 18}
+     */
+    static WeekSet expand(String weekStr) {
+        WeekSet.Builder builder = new WeekSet.Builder();
+        if (weekStr == null || weekStr.isEmpty()) return WeekSet.EMPTY;
+
+        // 1. 先按逗号切割
+        String[] parts = weekStr.split("[,，]");
+        for (String part : parts) {
+            try {
+                part = part.trim();
+                if (part.isEmpty()) continue;
+
+                // 检测单双周标记 (兼容中英文括号)
+                boolean isOdd = part.contains("(单)") || part.contains("（单）");
+                boolean isEven = part.contains("(双)") || part.contains("（双）");
+
+                // 清理单双周标记，"3-5(单)" 变成 "3-5"
+                String cleanPart = part.replaceAll("[\\(（][单双][\\)）]", "").trim();
+
+                int start;
+                int end;
+                if (cleanPart.contains("-")) {
+                    // 2. 处理连字符范围 "3-5"
+                    String[] range = cleanPart.split("-");
+                    if (range.length < 2) continue;
+                    start = Integer.parseInt(range[0].trim());
+                    end = Integer.parseInt(range[1].trim());
+                } else {
+                    // 3. 处理单个数字 "8"
+                    start = Integer.parseInt(cleanPart);
+                    end = start;
+                }
+                // 超出 WeekSet.MAX_WEEK 的周次会被忽略，先截断，"1-2147483647" 这样的单元格也不会卡住解析线程
+                int last = Math.min(end, WeekSet.MAX_WEEK);
+                for (int i = start; i <= last; i++) {
+                    // 根据单双周标记过滤
+                    if (isOdd && i % 2 == 0) continue;
+                    if (isEven && i % 2 != 0) continue;
+                    builder.add(i);
+                }
+            } catch (Exception e) {
+                log.warn("周次片段解析异常: " + part + " in " + weekStr);
+            }
+        }
+        return builder.build();
+    }
+}
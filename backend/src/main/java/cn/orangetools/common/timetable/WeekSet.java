@@ -0,0 +1,255 @@
+package cn.orangetools.common.timetable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WeekSet
+ * @date 2026/10/18 11:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 周次集合 (不可变)
+ * <p>
+ * 用一个 long 的二进制位表示第 0-63 周 (第 w 周对应第 w 位)，
+ * 超过 63 周的极端情况才额外使用 BitSet 存储。
+ * 相比 List&lt;Integer&gt;，判断"某周是否有课"只是一次位运算，内存也只有一个 long。
+ * </p>
+ */
+public final class WeekSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final WeekSet EMPTY = new WeekSet(0L, null);
+
+    /**
+     * JS 的 Number 只能精确表示 53 位整数，超过这个范围就改用区间字符串传输
+     */
+    public static final int MAX_SAFE_MASK_WEEK = 52;
+
+    /**
+     * 支持的最大周次，超出的周次一律忽略
+     * <p>
+     * 周次来自上传的文件、JSON 和 Redis，不能信任。没有上限时 "1-2147483647" 这样的区间会让展开循环溢出死循环，
+     * "1-99999999" 也会让溢出位图和按周分配的索引、立方体耗尽内存。
+     * </p>
+     */
+    public static final int MAX_WEEK = 128;
+
+    private final long bits;
+    // 第 64 周及以后 (下标从 64 开始)，绝大多数情况下为 null
+    private final BitSet overflow;
+
+    private WeekSet(long bits, BitSet overflow) {
+        this.bits = bits;
+        this.overflow = overflow == null || overflow.isEmpty() ? null : overflow;
+    }
+
+    public static WeekSet ofMask(long mask) {
+        return mask == 0L ? EMPTY : new WeekSet(mask, null);
+    }
+
+    public static WeekSet of(int... weeks) {
+        Builder builder = new Builder();
+        for (int w : weeks) builder.add(w);
+        return builder.build();
+    }
+
+    public static WeekSet of(Collection<Integer> weeks) {
+        Builder builder = new Builder();
+        if (weeks != null) {
+            for (Integer w : weeks) {
+                if (w != null) builder.add(w);
+            }
+        }
+        return builder.build();
+    }
+
+    public boolean contains(int week) {
+        if (week < 0) return false;
+        if (week < 64) return (bits & (1L << week)) != 0;
+        return overflow != null && overflow.get(week);
+    }
+
+    public boolean isEmpty() {
+        return bits == 0L && overflow == null;
+    }
+
+    /**
+     * 周次数量
+     */
+    public int size() {
+        return Long.bitCount(bits) + (overflow == null ? 0 : overflow.cardinality());
+    }
+
+    /**
+     * 最大周次，集合为空时返回 0
+     */
+    public int max() {
+        if (overflow != null) return overflow.length() - 1;
+        return bits == 0L ? 0 : 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    /**
+     * 第 0-63 周的位图
+     */
+    public long mask() {
+        return bits;
+    }
+
+    /**
+     * 是否可以安全地用一个 JS Number 表示
+     */
+    public boolean isSafeMask() {
+        return overflow == null && (bits >>> (MAX_SAFE_MASK_WEEK + 1)) == 0L;
+    }
+
+    public WeekSet union(WeekSet other) {
+        if (other == null || other.isEmpty() || other == this) return this;
+        if (isEmpty()) return other;
+        BitSet merged = null;
+        if (overflow != null || other.overflow != null) {
+            merged = new BitSet();
+            if (overflow != null) merged.or(overflow);
+            if (other.overflow != null) merged.or(other.overflow);
+        }
+        return new WeekSet(bits | other.bits, merged);
+    }
+
+    public void forEach(IntConsumer action) {
+        long remaining = bits;
+        while (remaining != 0L) {
+            action.accept(Long.numberOfTrailingZeros(remaining));
+            remaining &= remaining - 1;
+        }
+        if (overflow != null) {
+            overflow.stream().forEach(action);
+        }
+    }
+
+    /**
+     * 转为升序的周次列表 (兼容旧版接口)
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size());
+        forEach(list::add);
+        return list;
+    }
+
+    /**
+     * 转为区间字符串，如 "1-4,6,8-10"
+     */
+    public String toRangeString() {
+        StringBuilder sb = new StringBuilder();
+        int[] range = {-1, -1};
+        forEach(w -> {
+            if (range[0] < 0) {
+                range[0] = w;
+            } else if (w != range[1] + 1) {
+                appendRange(sb, range[0], range[1]);
+                range[0] = w;
+            }
+            range[1] = w;
+        });
+        if (range[0] >= 0) appendRange(sb, range[0], range[1]);
+        return sb.toString();
+    }
+
+    private static void appendRange(StringBuilder sb, int start, int end) {
+        if (sb.length() > 0) sb.append(',');
+        sb.append(start);
+        if (end > start) sb.append('-').append(end);
+    }
+
+    /**
+     * 解析 toRangeString 生成的区间字符串 (仅支持数字、逗号和连字符)，超出 MAX_WEEK 的周次被忽略
+     */
+    public static WeekSet parseRangeString(String text) {
+        Builder builder = new Builder();
+        if (text == null || text.isEmpty()) return EMPTY;
+        for (String part : text.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            int dash = part.indexOf('-');
+            if (dash > 0) {
+                builder.addRange(Integer.parseInt(part.substring(0, dash).trim()),
+                        Integer.parseInt(part.substring(dash + 1).trim()));
+            } else {
+                builder.add(Integer.parseInt(part));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WeekSet)) return false;
+        WeekSet that = (WeekSet) o;
+        if (bits != that.bits) return false;
+        return overflow == null ? that.overflow == null : overflow.equals(that.overflow);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits) * 31 + (overflow == null ? 0 : overflow.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return toRangeString();
+    }
+
+    /**
+     * 可变的构建器，解析过程中逐个添加周次，最后生成不可变的 WeekSet
+     */
+    public static final class Builder {
+        private long bits;
+        private BitSet overflow;
+
+        public Builder add(int week) {
+            if (week < 0 || week > MAX_WEEK) return this;
+            if (week < 64) {
+                bits |= 1L << week;
+            } else {
+                if (overflow == null) overflow = new BitSet();
+                overflow.set(week);
+            }
+            return this;
+        }
+
+        public Builder addRange(int start, int end) {
+            // 先截断到 MAX_WEEK，循环变量不会溢出
+            int last = Math.min(end, MAX_WEEK);
+            for (int w = Math.max(start, 0); w <= last; w++) add(w);
+            return this;
+        }
+
+        public Builder addAll(WeekSet weeks) {
+            if (weeks == null || weeks.isEmpty()) return this;
+            bits |= weeks.bits;
+            if (weeks.overflow != null) {
+                if (overflow == null) overflow = new BitSet();
+                overflow.or(weeks.overflow);
+            }
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return bits == 0L && (overflow == null || overflow.isEmpty());
+        }
+
+        public WeekSet build() {
+            if (isEmpty()) return EMPTY;
+            return new WeekSet(bits, overflow == null ? null : (BitSet) overflow.clone());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cn.orangetools.common.timetable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WeekSetJsonSerializer
+ * @date 2026/10/18 11:58
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * WeekSet 的 JSON 序列化规则
+ * <p>
+ * 默认输出紧凑格式：周次不超过 52 时输出一个数字 (第 w 位为 1 表示第 w 周有课)，
+ * 否则输出区间字符串 (如 "1-16,18")。
+ * 开启 orange-tools.timetable.legacy-week-list 后输出旧版的周次数组 [1, 2, 3]，供未升级的客户端使用。
+ * 反序列化三种格式都支持。
+ * </p>
+ */
+@JsonComponent
+public class WeekSetJsonSerializer extends JsonSerializer<WeekSet> {
+
+    @Value("${orange-tools.timetable.legacy-week-list:false}")
+    private boolean legacyWeekList;
+
+    @Override
+    public void serialize(WeekSet value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (legacyWeekList) {
+            gen.writeStartArray();
+            for (Integer w : value.toList()) {
+                gen.writeNumber(w);
+            }
+            gen.writeEndArray();
+        } else if (value.isSafeMask()) {
+            gen.writeNumber(value.mask());
+        } else {
+            gen.writeString(value.toRangeString());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<WeekSet> {
+
+        @Override
+        public WeekSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return WeekSet.ofMask(p.getLongValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                return WeekSet.parseRangeString(p.getText());
+            }
+            if (token == JsonToken.START_ARRAY) {
+                WeekSet.Builder builder = new WeekSet.Builder();
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    builder.add(p.getIntValue());
+                }
+                return builder.build();
+            }
+            return (WeekSet) ctxt.handleUnexpectedToken(WeekSet.class, p);
+        }
+
+        @Override
+        public WeekSet getNullValue(DeserializationContext ctxt) {
+            return WeekSet.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cn.orangetools.common.timetable;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WorkbookBatch
+ * @date 2026/10/18 16:45
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 一批待解析的课表文件
+ * <p>
+ * 解析线程通过 next() 逐个领取文件，文件总数事先可以未知 (ZIP 压缩包边读边解析)。
+ * 实现类必须保证 next() 线程安全。
+ * </p>
+ */
+public interface WorkbookBatch extends Closeable {
+
+    /**
+     * 领取下一个文件
+     * @return 下一个文件，已经全部领完时返回 null
+     */
+    WorkbookSource next();
+
+    /**
+     * 已经领取出去的文件数 (全部领完后即为文件总数)
+     */
+    int size();
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * 普通的多文件上传
+     */
+    static WorkbookBatch of(MultipartFile[] files) {
+        return new WorkbookBatch() {
+            private int next = 0;
+
+            @Override
+            public synchronized WorkbookSource next() {
+                if (next >= files.length) return null;
+                WorkbookSource source = WorkbookSource.of(next, files[next]);
+                next++;
+                return source;
+            }
+
+            @Override
+            public synchronized int size() {
+                return next;
+            }
+        };
+    }
+}
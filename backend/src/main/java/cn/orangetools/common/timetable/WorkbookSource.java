@@ -0,0 +1,61 @@
+package cn.orangetools.common.timetable;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WorkbookSource
+ * @date 2026/10/18 16:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 一个待解析的课表文件
+ * <p>
+ * 可能来自单独上传的 MultipartFile，也可能是 ZIP 压缩包里的一个条目。
+ * 解析器只关心文件名和输入流，不关心文件从哪里来。
+ * </p>
+ */
+public final class WorkbookSource {
+
+    private final int index;      // 在本批文件中的序号 (上传顺序 / 压缩包内顺序)
+    private final String name;    // 文件名
+    private final MultipartFile file;
+    private final byte[] data;
+
+    private WorkbookSource(int index, String name, MultipartFile file, byte[] data) {
+        this.index = index;
+        this.name = name;
+        this.file = file;
+        this.data = data;
+    }
+
+    public static WorkbookSource of(int index, MultipartFile file) {
+        return new WorkbookSource(index, file.getOriginalFilename(), file, null);
+    }
+
+    public static WorkbookSource of(int index, String name, byte[] data) {
+        return new WorkbookSource(index, name, null, data);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 打开文件内容，可以多次调用 (计算摘要、解析各读一次)
+     */
+    public InputStream openStream() throws IOException {
+        return file != null ? file.getInputStream() : new ByteArrayInputStream(data);
+    }
+}
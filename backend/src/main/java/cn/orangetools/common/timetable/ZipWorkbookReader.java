@@ -0,0 +1,204 @@
+package cn.orangetools.common.timetable;
+
+import cn.orangetools.common.exception.ServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ZipWorkbookReader
+ * @date 2026/10/18 16:52
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * ZIP 压缩包批量上传
+ * <p>
+ * 压缩包不解压到磁盘，也不整体读入内存：解析线程每领取一个文件，才从压缩流中读出下一个条目，
+ * 同一时刻内存中最多只有"解析线程数"个条目。
+ * 为防止压缩炸弹，对条目数、单文件大小、解压总大小和压缩比都做了限制，超出立即中止。
+ * </p>
+ */
+@Slf4j
+@Component
+public class ZipWorkbookReader {
+
+    // 压缩比只在解压超过 1MB 后才检查，避免几个很小的文件误判
+    private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+    // Windows 自带压缩工具不写 UTF-8 标记，中文文件名按 GBK 编码
+    private static final Charset FALLBACK_CHARSET = Charset.forName("GBK");
+
+    @Value("${orange-tools.upload.zip.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${orange-tools.upload.zip.max-entry-size:10485760}")
+    private long maxEntrySize;
+
+    @Value("${orange-tools.upload.zip.max-total-size:524288000}")
+    private long maxTotalSize;
+
+    @Value("${orange-tools.upload.zip.max-ratio:100}")
+    private int maxRatio;
+
+    /**
+     * 是否为 ZIP 压缩包 (按扩展名判断)
+     */
+    public static boolean isZip(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        return name != null && name.toLowerCase().endsWith(".zip");
+    }
+
+    /**
+     * 上传的文件转为一批待解析文件：单个 ZIP 按压缩包读取，否则按普通文件处理
+     */
+    public WorkbookBatch open(MultipartFile[] files) {
+        if (files.length == 1 && isZip(files[0])) {
+            try {
+                log.info("按压缩包读取：{}", files[0].getOriginalFilename());
+                return new ZipBatch(files[0].getInputStream());
+            } catch (IOException e) {
+                throw new ServiceException("压缩包读取失败：" + files[0].getOriginalFilename());
+            }
+        }
+        for (MultipartFile file : files) {
+            if (isZip(file)) {
+                throw new ServiceException("压缩包只能单独上传：" + file.getOriginalFilename());
+            }
+        }
+        return WorkbookBatch.of(files);
+    }
+
+    private static boolean isWorkbook(String path) {
+        String name = baseName(path);
+        if (path.startsWith("__MACOSX/") || name.startsWith(".") || name.startsWith("~$")) {
+            return false;
+        }
+        String lower = name.toLowerCase();
+        return lower.endsWith(".xlsx") || lower.endsWith(".xls");
+    }
+
+    private static String baseName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private class ZipBatch implements WorkbookBatch {
+        private final CountingInputStream raw;
+        private final ZipInputStream zip;
+        private final byte[] buffer = new byte[8192];
+
+        private int entries = 0;    // 已读取的条目数 (含跳过的目录和非 Excel 文件)
+        private int workbooks = 0;  // 已领取的 Excel 文件数
+        private long totalSize = 0; // 已解压的总字节数
+        private boolean finished = false;
+
+        ZipBatch(InputStream in) {
+            this.raw = new CountingInputStream(in);
+            this.zip = new ZipInputStream(raw, FALLBACK_CHARSET);
+        }
+
+        @Override
+        public synchronized WorkbookSource next() {
+            if (finished) return null;
+            try {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (++entries > maxEntries) {
+                        throw new ServiceException("压缩包内文件过多，最多 " + maxEntries + " 个");
+                    }
+                    if (entry.isDirectory() || !isWorkbook(entry.getName())) {
+                        continue;
+                    }
+                    byte[] data = readEntry(entry.getName());
+                    return WorkbookSource.of(workbooks++, baseName(entry.getName()), data);
+                }
+                finished = true;
+                return null;
+            } catch (IOException | IllegalArgumentException e) {
+                // IllegalArgumentException：文件名编码无法识别
+                finished = true;
+                throw new ServiceException("压缩包读取失败：" + e.getMessage());
+            } catch (ServiceException e) {
+                finished = true;
+                throw e;
+            }
+        }
+
+        private byte[] readEntry(String name) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int n;
+            while ((n = zip.read(buffer)) > 0) {
+                totalSize += n;
+                if (out.size() + n > maxEntrySize) {
+                    throw new ServiceException("压缩包内文件过大：" + baseName(name));
+                }
+                if (totalSize > maxTotalSize) {
+                    throw new ServiceException("压缩包解压后总大小超出限制");
+                }
+                if (totalSize > RATIO_CHECK_THRESHOLD && totalSize > (long) maxRatio * Math.max(raw.count, 1)) {
+                    throw new ServiceException("压缩包压缩比异常，已拒绝解析");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public synchronized int size() {
+            return workbooks;
+        }
+
+        @Override
+        public void close() {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                log.warn("关闭压缩包失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 统计从原始压缩流中读取的字节数，用于计算压缩比
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
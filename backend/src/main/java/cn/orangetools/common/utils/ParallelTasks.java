@@ -0,0 +1,108 @@
+package cn.orangetools.common.utils;
+
+import cn.orangetools.common.exception.ServiceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ParallelTasks
+ * @date 2026/10/18 10:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 有界并行执行工具
+ * <p>
+ * 向线程池提交 parallelism 个 worker，每个 worker 从共享下标里领取下一个任务，
+ * 直到任务领完为止。相比"一个文件一个 Future"，这种方式不会一次性把几百个任务塞进队列，
+ * 单个请求占用的线程数也严格受 parallelism 限制。
+ * </p>
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * 并行执行 task(0) ... task(size - 1)，全部完成后返回
+     *
+     * @param executor    线程池
+     * @param parallelism 最大并行度，小于等于 1 时直接在当前线程顺序执行
+     * @param size        任务数量
+     * @param task        任务体，参数为任务下标 (需自行处理业务异常)
+     */
+    public static void forEach(ExecutorService executor, int parallelism, int size, IntConsumer task) {
+        int workers = Math.min(parallelism, size);
+        if (workers <= 1) {
+            for (int i = 0; i < size; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        run(executor, workers, () -> {
+            int i;
+            // 被取消 (中断) 后不再领取新任务
+            while (!Thread.currentThread().isInterrupted() && (i = next.getAndIncrement()) < size) {
+                task.accept(i);
+            }
+        });
+    }
+
+    /**
+     * 并行消费一个事先不知道长度的任务来源，source 返回 null 表示没有更多任务
+     *
+     * @param executor    线程池
+     * @param parallelism 最大并行度，小于等于 1 时直接在当前线程顺序执行
+     * @param source      任务来源 (必须线程安全)
+     * @param task        任务体
+     */
+    public static <T> void drain(ExecutorService executor, int parallelism, Supplier<T> source, Consumer<T> task) {
+        Runnable worker = () -> {
+            T item;
+            while (!Thread.currentThread().isInterrupted() && (item = source.get()) != null) {
+                task.accept(item);
+            }
+        };
+        if (parallelism <= 1) {
+            worker.run();
+            return;
+        }
+        run(executor, parallelism, worker);
+    }
+
+    private static void run(ExecutorService executor, int workers, Runnable worker) {
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(executor.submit(worker));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceException("解析任务被中断");
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ServiceException("解析任务执行失败：" + cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cn.orangetools.common.utils;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file TempUploadFile
+ * @date 2026/10/18 20:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 落盘保存的上传文件
+ * <p>
+ * 请求结束后容器会删除 MultipartFile 的临时文件，异步任务需要先把文件复制一份到自己的临时目录，
+ * 用完后调用 delete 删除。文件内容不进堆内存。
+ * </p>
+ */
+public class TempUploadFile implements MultipartFile {
+
+    private final String originalFilename;
+    private final String contentType;
+    private final Path path;
+
+    private TempUploadFile(String originalFilename, String contentType, Path path) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.path = path;
+    }
+
+    /**
+     * 把上传文件复制到临时目录
+     */
+    public static TempUploadFile copyOf(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile("orange-upload-", ".tmp");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new TempUploadFile(file.getOriginalFilename(), file.getContentType(), path);
+    }
+
+    /**
+     * 删除临时文件 (忽略失败)
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 临时目录由系统兜底清理
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "files";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
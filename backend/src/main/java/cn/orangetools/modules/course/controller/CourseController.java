@@ -1,15 +1,45 @@
 package cn.orangetools.modules.course.controller;
 
+import cn.orangetools.common.exception.ServiceException;
 import cn.orangetools.common.result.Result;
+import cn.orangetools.common.timetable.CacheStats;
+import cn.orangetools.modules.course.model.AnalysisJobStatus;
 import cn.orangetools.modules.course.model.AnalysisResult;
+import cn.orangetools.modules.course.model.CellDetailResult;
+import cn.orangetools.modules.course.model.CompatibleStudentsResult;
+import cn.orangetools.modules.course.model.CourseDetail;
+import cn.orangetools.modules.course.model.FreeStudentsResult;
+import cn.orangetools.modules.course.model.HeatmapCubeResult;
+import cn.orangetools.modules.course.model.HeatmapResult;
+import cn.orangetools.modules.course.model.MeetingWindowResult;
+import cn.orangetools.modules.course.model.StudentGroupsResult;
+import cn.orangetools.modules.course.service.AnalysisJobService;
+import cn.orangetools.modules.course.service.AnalysisResultCompactor;
 import cn.orangetools.modules.course.service.CourseService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * @author YuHeng
@@ -25,19 +55,376 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class CourseController {
 
+    /**
+     * 紧凑格式的 JSON 媒体类型
+     */
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType("application/vnd.orangetools.compact+json");
+
     private final CourseService courseService;
+    private final AnalysisJobService analysisJobService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 批量上传课表进行分析
+     * <p>
+     * 返回格式按 Accept 头协商 (按出现的先后，第一个能识别的生效)：
+     * application/json (默认) 为普通格式；
+     * application/vnd.orangetools.compact+json 为字典编码的紧凑格式 (CompactAnalysisResult)；
+     * application/cbor 为紧凑格式的 CBOR 二进制编码。
+     * </p>
      * @param files 课表文件
+     * @param parallelism 解析并行度 (可选，默认使用服务端配置，传 1 即为顺序解析)
+     * @param lite 精简模式：不返回课程详情，只返回每个学生的忙碌周次 (busyMasks)，详情按需查询
      * @return 分析结果
      */
     @PostMapping("/analyze")
-    public Result<AnalysisResult> analyze(@RequestParam("files") MultipartFile[] files) {
+    public ResponseEntity<Result<?>> analyze(@RequestParam("files") MultipartFile[] files,
+                                             @RequestParam(value = "parallelism", required = false) Integer parallelism,
+                                             @RequestParam(value = "lite", defaultValue = "false") boolean lite,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         log.info("开始分析课表...");
         // 核心逻辑交给 Service
-        AnalysisResult result = courseService.analyze(files);
+        AnalysisResult result = courseService.analyze(files, parallelism);
         log.info("课表分析完成，涉及总人数：{}", result.getTotalPeople());
-        return Result.success(result);
+        return respond(result, lite, accept);
+    }
+
+    private ResponseEntity<Result<?>> respond(AnalysisResult result, boolean lite, String accept) {
+        if (lite) {
+            // 精简结果本身已经很小，不再做紧凑编码
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(Result.success(courseService.lite(result)));
+        }
+        return negotiate(result, accept);
+    }
+
+    /**
+     * 按 Accept 头选择分析结果的输出格式
+     */
+    private ResponseEntity<Result<?>> negotiate(AnalysisResult result, String accept) {
+        MediaType format = MediaType.APPLICATION_JSON;
+        if (accept != null) {
+            try {
+                for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                    if (type.equalsTypeAndSubtype(COMPACT_JSON)) {
+                        format = COMPACT_JSON;
+                        break;
+                    }
+                    if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                        format = MediaType.APPLICATION_CBOR;
+                        break;
+                    }
+                    if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                        break;
+                    }
+                }
+            } catch (InvalidMediaTypeException e) {
+                log.warn("无法识别的 Accept 头：{}", accept);
+            }
+        }
+        if (format == MediaType.APPLICATION_JSON) {
+            return ResponseEntity.ok().contentType(format).body(Result.success(result));
+        }
+        return ResponseEntity.ok().contentType(format).body(Result.success(AnalysisResultCompactor.compact(result)));
+    }
+
+    /**
+     * 流式分析课表 (NDJSON)
+     * <p>
+     * 每解析完一个学生立即输出一行 {"type":"student","data":StudentSchedule}，前端可以边收边渲染；
+     * 最后一行为 {"type":"summary","data":AnalysisResult} (不含 data，包含 maxWeek 和筛选选项)。
+     * 出错时输出 {"type":"error","data":"错误信息"} 并结束。
+     * 同一个学生出现在多个文件时会输出多行，前端按学生合并课程。
+     * </p>
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 解析并行度 (可选)
+     */
+    @PostMapping(value = "/analyze/stream", produces = "application/x-ndjson")
+    public void analyzeStream(@RequestParam("files") MultipartFile[] files,
+                              @RequestParam(value = "parallelism", required = false) Integer parallelism,
+                              HttpServletResponse response) throws IOException {
+        log.info("开始流式分析课表...");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        try {
+            AnalysisResult summary = courseService.analyzeStream(files, parallelism, student -> writeLine(out, "student", student));
+            writeLine(out, "summary", summary);
+        } catch (UncheckedIOException e) {
+            // 客户端断开连接，解析随之中止
+            log.warn("流式分析中止，客户端已断开：{}", e.getMessage());
+        } catch (ServiceException e) {
+            log.warn("业务异常: {}", e.getMessage());
+            writeLine(out, "error", e.getMessage());
+        } catch (Exception e) {
+            log.error("流式分析异常", e);
+            writeLine(out, "error", "系统繁忙，请稍后再试");
+        }
+    }
+
+    private void writeLine(OutputStream out, String type, Object data) {
+        try {
+            out.write(("{\"type\":\"" + type + "\",\"data\":").getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(data));
+            out.write("}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 分析会话的汇总信息 (人数、最大周次、筛选项)
+     * @param sessionId 分析会话 ID
+     */
+    @GetMapping("/sessions/{sessionId}")
+    public Result<AnalysisResult> sessionSummary(@PathVariable String sessionId) {
+        return Result.success(courseService.sessionSummary(sessionId));
+    }
+
+    /**
+     * 单个格子的详情 (空闲名单 + 忙碌学生正在上的课)
+     * @param sessionId 分析会话 ID
+     * @param week 周次
+     * @param day 星期 (1-7)
+     * @param slot 节次 (1-10)
+     */
+    @GetMapping("/sessions/{sessionId}/cell")
+    public Result<CellDetailResult> cellDetail(@PathVariable String sessionId,
+                                               @RequestParam("week") Integer week,
+                                               @RequestParam("day") Integer day,
+                                               @RequestParam("slot") Integer slot,
+                                               @RequestParam(value = "college", required = false) String college,
+                                               @RequestParam(value = "major", required = false) String major,
+                                               @RequestParam(value = "grade", required = false) String grade) {
+        return Result.success(courseService.cellDetail(sessionId, week, day, slot, college, major, grade));
+    }
+
+    /**
+     * 某个学生某一格的课程详情 (精简模式下按需查询)
+     * 查询某一格所有学生的课程用 /sessions/{sessionId}/cell
+     * @param sessionId 分析会话 ID
+     * @param name 姓名
+     * @param major 专业 (可选)
+     * @param grade 年级 (可选)
+     * @param day 星期 (1-7)
+     * @param slot 节次 (1-10)
+     * @param week 周次 (可选，不传则返回所有周的课程)
+     */
+    @GetMapping("/sessions/{sessionId}/students/courses")
+    public Result<List<CourseDetail>> studentCourses(@PathVariable String sessionId,
+                                                     @RequestParam("name") String name,
+                                                     @RequestParam(value = "major", required = false) String major,
+                                                     @RequestParam(value = "grade", required = false) String grade,
+                                                     @RequestParam("day") Integer day,
+                                                     @RequestParam("slot") Integer slot,
+                                                     @RequestParam(value = "week", required = false) Integer week) {
+        return Result.success(courseService.studentCourses(sessionId, name, major, grade, day, slot, week));
+    }
+
+    /**
+     * 向分析会话增加或替换学生课表 (只解析本次上传的文件，同一学生已存在时整体替换)
+     * @param sessionId 分析会话 ID
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 解析并行度 (可选)
+     * @return 更新后的汇总信息
+     */
+    @PostMapping("/sessions/{sessionId}/workbooks")
+    public Result<AnalysisResult> upsertWorkbooks(@PathVariable String sessionId,
+                                                  @RequestParam("files") MultipartFile[] files,
+                                                  @RequestParam(value = "parallelism", required = false) Integer parallelism) {
+        return Result.success(courseService.upsertWorkbooks(sessionId, files, parallelism));
+    }
+
+    /**
+     * 从分析会话中移除一名学生 (按 姓名+专业+年级 识别)
+     * @param sessionId 分析会话 ID
+     * @return 更新后的汇总信息
+     */
+    @DeleteMapping("/sessions/{sessionId}/students")
+    public Result<AnalysisResult> removeStudent(@PathVariable String sessionId,
+                                                @RequestParam("name") String name,
+                                                @RequestParam(value = "major", required = false) String major,
+                                                @RequestParam(value = "grade", required = false) String grade) {
+        return Result.success(courseService.removeStudent(sessionId, name, major, grade));
+    }
+
+    /**
+     * 某一周的空闲/忙碌热力图
+     * 基于 /analyze 返回的 sessionId 在服务端计算，切换周次或筛选条件时不必在前端遍历全部课表
+     * @param sessionId 分析会话 ID
+     * @param week 周次
+     * @param college 学院 (可选)
+     * @param major 专业 (可选)
+     * @param grade 年级 (可选)
+     * @return 10 x 7 的格子统计
+     */
+    @GetMapping("/sessions/{sessionId}/heatmap")
+    public Result<HeatmapResult> heatmap(@PathVariable String sessionId,
+                                         @RequestParam("week") Integer week,
+                                         @RequestParam(value = "college", required = false) String college,
+                                         @RequestParam(value = "major", required = false) String major,
+                                         @RequestParam(value = "grade", required = false) String grade) {
+        return Result.success(courseService.heatmap(sessionId, week, college, major, grade));
+    }
+
+    /**
+     * 全学期热力图：所有周的忙碌人数一次返回，前端切换周次无需再请求
+     * @param sessionId 分析会话 ID
+     * @param college 学院 (可选)
+     * @param major 专业 (可选)
+     * @param grade 年级 (可选)
+     * @param groupBy 分组维度 college / major / grade (可选)
+     */
+    @GetMapping("/sessions/{sessionId}/heatmap-cube")
+    public Result<HeatmapCubeResult> heatmapCube(@PathVariable String sessionId,
+                                                 @RequestParam(value = "college", required = false) String college,
+                                                 @RequestParam(value = "major", required = false) String major,
+                                                 @RequestParam(value = "grade", required = false) String grade,
+                                                 @RequestParam(value = "groupBy", required = false) String groupBy) {
+        return Result.success(courseService.heatmapCube(sessionId, college, major, grade, groupBy));
+    }
+
+    /**
+     * 查询空闲学生，例如 "第 9 周周四 3-4 节，2023 级 X、Y 专业谁有空"
+     * @param sessionId 分析会话 ID
+     * @param week 周次
+     * @param day 星期 (1-7)
+     * @param slots 节次，可传多个 (slots=3&slots=4)，需全部空闲
+     * @param colleges 学院 (可选，可多个)
+     * @param majors 专业 (可选，可多个)
+     * @param grades 年级 (可选，可多个)
+     */
+    @GetMapping("/sessions/{sessionId}/free-students")
+    public Result<FreeStudentsResult> freeStudents(@PathVariable String sessionId,
+                                                   @RequestParam("week") Integer week,
+                                                   @RequestParam("day") Integer day,
+                                                   @RequestParam("slots") List<Integer> slots,
+                                                   @RequestParam(value = "colleges", required = false) List<String> colleges,
+                                                   @RequestParam(value = "majors", required = false) List<String> majors,
+                                                   @RequestParam(value = "grades", required = false) List<String> grades) {
+        return Result.success(courseService.freeStudents(sessionId, week, day, slots, colleges, majors, grades));
+    }
+
+    /**
+     * 异步分析：上传后立即返回任务 ID，解析在后台执行
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 解析并行度 (可选)
+     * @return 任务状态
+     */
+    @PostMapping("/jobs")
+    public Result<AnalysisJobStatus> submitJob(@RequestParam("files") MultipartFile[] files,
+                                               @RequestParam(value = "parallelism", required = false) Integer parallelism) {
+        return Result.success(analysisJobService.submit(files, parallelism));
+    }
+
+    /**
+     * 查询任务状态和进度 (轮询用)
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Result<AnalysisJobStatus> jobStatus(@PathVariable String jobId) {
+        return Result.success(analysisJobService.status(jobId));
+    }
+
+    /**
+     * 订阅任务进度 (SSE)，事件名为 progress / done，数据与状态接口相同
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = "text/event-stream")
+    public SseEmitter jobEvents(@PathVariable String jobId) {
+        return analysisJobService.subscribe(jobId);
+    }
+
+    /**
+     * 取消任务
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public Result<AnalysisJobStatus> cancelJob(@PathVariable String jobId) {
+        return Result.success(analysisJobService.cancel(jobId));
+    }
+
+    /**
+     * 获取任务结果，与 /analyze 的返回相同 (同样支持 lite 参数和 Accept 协商紧凑格式)
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<Result<?>> jobResult(@PathVariable String jobId,
+                                               @RequestParam(value = "lite", defaultValue = "false") boolean lite,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return respond(analysisJobService.result(jobId), lite, accept);
+    }
+
+    /**
+     * 搜索连续空闲时段，例如 "第 5-12 周里连续 2 节、2023 级至少 90% 的人有空"
+     * @param sessionId 分析会话 ID
+     * @param duration 连续节数 (1-10)
+     * @param weekFrom 起始周 (可选)
+     * @param weekTo 结束周 (可选)
+     * @param days 允许的星期 (可选，可多个)
+     * @param minRatio 最低出席比例 0-1 (可选)
+     * @param topK 最多返回多少个时段 (可选，默认 10)
+     * @param recurring 是否要求周次范围内每周都有空 (固定例会时间)
+     * @return 按空闲人数排序的时段及缺席名单
+     */
+    @GetMapping("/sessions/{sessionId}/meeting-windows")
+    public Result<MeetingWindowResult> meetingWindows(@PathVariable String sessionId,
+                                                      @RequestParam("duration") Integer duration,
+                                                      @RequestParam(value = "weekFrom", required = false) Integer weekFrom,
+                                                      @RequestParam(value = "weekTo", required = false) Integer weekTo,
+                                                      @RequestParam(value = "days", required = false) List<Integer> days,
+                                                      @RequestParam(value = "minRatio", required = false) Double minRatio,
+                                                      @RequestParam(value = "topK", required = false) Integer topK,
+                                                      @RequestParam(value = "recurring", defaultValue = "false") boolean recurring,
+                                                      @RequestParam(value = "colleges", required = false) List<String> colleges,
+                                                      @RequestParam(value = "majors", required = false) List<String> majors,
+                                                      @RequestParam(value = "grades", required = false) List<String> grades) {
+        return Result.success(courseService.meetingWindows(sessionId, colleges, majors, grades, duration,
+                weekFrom, weekTo, days, minRatio, topK, recurring));
+    }
+
+    /**
+     * 与某个学生空闲时间最相似的学生 (按 Jaccard 系数排序)
+     * @param sessionId 分析会话 ID
+     * @param name 姓名
+     * @param major 专业 (可选)
+     * @param grade 年级 (可选)
+     * @param k 返回人数 (默认 10)
+     * @param colleges 候选范围：学院 (可选，可多个)
+     * @param majors 候选范围：专业 (可选，可多个)
+     * @param grades 候选范围：年级 (可选，可多个)
+     */
+    @GetMapping("/sessions/{sessionId}/compatible-students")
+    public Result<CompatibleStudentsResult> compatibleStudents(@PathVariable String sessionId,
+                                                               @RequestParam("name") String name,
+                                                               @RequestParam(value = "major", required = false) String major,
+                                                               @RequestParam(value = "grade", required = false) String grade,
+                                                               @RequestParam(value = "k", defaultValue = "10") Integer k,
+                                                               @RequestParam(value = "colleges", required = false) List<String> colleges,
+                                                               @RequestParam(value = "majors", required = false) List<String> majors,
+                                                               @RequestParam(value = "grades", required = false) List<String> grades) {
+        return Result.success(courseService.compatibleStudents(sessionId, name, major, grade, k, colleges, majors, grades));
+    }
+
+    /**
+     * 按空闲时间分组 (值班小组、学习小组)，组内共同空闲时间尽量多
+     * @param sessionId 分析会话 ID
+     * @param k 分组数
+     * @param colleges 学院 (可选，可多个)
+     * @param majors 专业 (可选，可多个)
+     * @param grades 年级 (可选，可多个)
+     */
+    @GetMapping("/sessions/{sessionId}/groups")
+    public Result<StudentGroupsResult> studentGroups(@PathVariable String sessionId,
+                                                     @RequestParam("k") Integer k,
+                                                     @RequestParam(value = "colleges", required = false) List<String> colleges,
+                                                     @RequestParam(value = "majors", required = false) List<String> majors,
+                                                     @RequestParam(value = "grades", required = false) List<String> grades) {
+        return Result.success(courseService.studentGroups(sessionId, k, colleges, majors, grades));
+    }
+
+    /**
+     * 解析缓存命中统计 (运维监控用)
+     * @return 各缓存的命中/未命中次数，解析缓存额外包含节省的解析耗时
+     */
+    @GetMapping("/cache-stats")
+    public Result<List<CacheStats>> cacheStats() {
+        return Result.success(courseService.cacheStats());
     }
 }
@@ -0,0 +1,27 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.Data;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisJobStatus
+ * @date 2026/10/18 20:18
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 异步分析任务的状态 (轮询和 SSE 推送共用)
+ */
+@Data
+public class AnalysisJobStatus {
+    private String jobId;
+    private String status;       // QUEUED / RUNNING / SUCCESS / FAILED / CANCELLED
+    private Integer parsedFiles; // 已解析的文件数
+    private Integer totalFiles;  // 文件总数 (上传 ZIP 时解析完成前未知，为空)
+    private String message;      // 失败原因
+    private String sessionId;    // 成功后的分析会话 ID
+    private Long createdAt;      // 提交时间 (毫秒时间戳)
+    private Long finishedAt;     // 结束时间
+}
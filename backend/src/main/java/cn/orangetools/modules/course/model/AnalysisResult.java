@@ -16,6 +16,9 @@ import java.util.Set;
  */
 @Data
 public class AnalysisResult {
+    // 分析会话 ID，后续的热力图等查询直接使用服务端保存的结果，不必重新上传
+    private String sessionId;
+
     private Integer totalPeople;
 
     // 最大周次 (用于前端生成下拉框，比如 20)
@@ -23,6 +26,8 @@ public class AnalysisResult {
 
     // 全量原始数据
     private List<StudentSchedule> data;
+    // 精简模式 (lite) 下代替 data：只有每个学生的忙碌周次，课程详情按需从分析会话查询
+    private List<StudentBusyMask> busyMasks;
 
     // 所有参与分析的学生列表 (用于前端做筛选下拉框的“数据源”)
     private List<StudentInfo> allStudents;
@@ -32,5 +37,9 @@ public class AnalysisResult {
     private Set<String> allMajors;   // 涉及到的所有专业
     private Set<String> allGrades;   // 涉及到的所有年级
 
+    // 解析统计 (并行度、总耗时、每个文件的耗时)
+    private Integer parallelism;
+    private Long costMs;
+    private List<FileParseStat> fileStats;
 
 }
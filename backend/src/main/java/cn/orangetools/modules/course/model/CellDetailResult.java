@@ -0,0 +1,37 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CellDetailResult
+ * @date 2026/10/18 19:30
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 单个格子的详情：谁有空、谁在上什么课
+ */
+@Data
+public class CellDetailResult {
+    private Integer week;
+    private Integer day;
+    private Integer slot;
+    private List<StudentInfo> freeStudents = new ArrayList<>();
+    private List<BusyStudent> busyStudents = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BusyStudent {
+        private StudentInfo student;
+        private CourseDetail course; // 本周这一节正在上的课
+    }
+}
@@ -0,0 +1,91 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CompactAnalysisResult
+ * @date 2026/10/18 20:55
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 分析结果的紧凑格式 (按 Accept 头协商，见 CourseController)
+ * <p>
+ * 普通格式下每个学生、每个格子都重复输出完整的姓名、学院、课程名、教师、地点。
+ * 这里所有字符串集中放在 strings 中，其余位置只写下标 (-1 表示 null)；
+ * 学生、课程格子、课程详情都按列存储，相同的课程格子只输出一次，学生只引用格子下标。
+ * 周次与普通格式相同：不超过 52 周时是位图数字，否则是区间字符串。
+ * </p>
+ */
+@Data
+public class CompactAnalysisResult {
+
+    public static final String FORMAT = "compact-v1";
+
+    private String format = FORMAT;
+
+    // 与 AnalysisResult 相同的汇总字段 (不含 data 和 allStudents)
+    private String sessionId;
+    private Integer totalPeople;
+    private Integer maxWeek;
+    private Set<String> allColleges;
+    private Set<String> allMajors;
+    private Set<String> allGrades;
+    private Integer parallelism;
+    private Long costMs;
+    private List<FileParseStat> fileStats;
+
+    // 字符串字典
+    private List<String> strings;
+    private Students students;
+    private Items items;
+    private Details details;
+
+    /**
+     * 学生表，第 i 个学生的各字段分别是各数组的第 i 项
+     */
+    @Data
+    public static class Students {
+        private int[] name;
+        // 学号
+        private int[] code;
+        private int[] college;
+        private int[] major;
+        private int[] grade;
+        private int[] className;
+        // 每个学生的课程格子下标 (指向 items)
+        private int[][] courses;
+    }
+
+    /**
+     * 课程格子表 (对应 RawCourseItem)
+     */
+    @Data
+    public static class Items {
+        // (星期 - 1) * 10 + (节次 - 1)
+        private int[] cell;
+        // 忙碌周次：位图数字或区间字符串
+        private Object[] busyWeeks;
+        // 每个格子的课程详情下标 (指向 details)
+        private int[][] details;
+    }
+
+    /**
+     * 课程详情表 (对应 CourseDetail)
+     */
+    @Data
+    public static class Details {
+        private int[] name;
+        private int[] teacher;
+        private int[] location;
+        private int[] rawWeekStr;
+        // 位图数字、区间字符串或 null
+        private Object[] weeks;
+    }
+}
@@ -0,0 +1,37 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CompatibleStudentsResult
+ * @date 2026/10/18 23:00
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 与某个学生空闲时间最相似的学生
+ */
+@Data
+public class CompatibleStudentsResult {
+    private StudentInfo student;
+    private Integer totalCells;  // 全学期格子总数 (周数 x 7 x 10)
+    private Boolean lsh;         // 是否使用了 LSH 候选 (人数较多时)
+    private List<Match> matches = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Match {
+        private StudentInfo student;
+        private Double jaccard;     // 空闲时间的 Jaccard 系数
+        private Integer sharedFree; // 两人都空闲的格子数
+    }
+}
@@ -24,6 +24,9 @@ public class CourseCell {
     // 忙碌的学生 (做热力图用)
     private List<StudentInfo> busyStudents = new ArrayList<>();
 
+    // 忙碌比例 (0-1)，没有学生时为 0
+    private Double busyRatio = 0.0;
+
     public void addFree(StudentInfo student) {
         this.freeStudents.add(student);
         this.freeCount++;
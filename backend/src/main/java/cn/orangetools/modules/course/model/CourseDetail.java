@@ -9,22 +9,37 @@ package cn.orangetools.modules.course.model;
  * @license GPL-3.0 License
  */
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.util.List;
+import cn.orangetools.common.timetable.WeekSet;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * 单门课程的详细信息
+ * 不可变：与 RawCourseItem 一样在学生之间、请求之间共享
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
 public class CourseDetail {
-    private String name;      // 课程名
-    private String teacher;   // 教师
-    private String location;  // 地点
-    private String rawWeekStr; // 原始周次字符串 (用于前端展示，如 "2-6,8周")
-    private List<Integer> weeks; // 解析后的周次列表 (用于计算是否在当前周)
+    private final String name;      // 课程名
+    private final String teacher;   // 教师
+    private final String location;  // 地点
+    private final String rawWeekStr; // 原始周次字符串 (用于前端展示，如 "2-6,8周")
+    private final WeekSet weeks; // 解析后的周次集合 (用于计算是否在当前周)
+
+    @JsonCreator
+    public CourseDetail(@JsonProperty("name") String name,
+                        @JsonProperty("teacher") String teacher,
+                        @JsonProperty("location") String location,
+                        @JsonProperty("rawWeekStr") String rawWeekStr,
+                        @JsonProperty("weeks") WeekSet weeks) {
+        this.name = name;
+        this.teacher = teacher;
+        this.location = location;
+        this.rawWeekStr = rawWeekStr;
+        this.weeks = weeks;
+    }
 }
@@ -0,0 +1,28 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file FileParseStat
+ * @date 2026/10/18 10:12
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 单个文件的解析耗时统计
+ * 用于观察并行解析的加速效果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileParseStat {
+    private String fileName; // 文件名
+    private Long costMs;     // 解析耗时 (毫秒)
+    private Boolean success; // 是否解析成功
+    private Boolean cached;  // 是否命中解析缓存 (文件内容未变，跳过解析)
+}
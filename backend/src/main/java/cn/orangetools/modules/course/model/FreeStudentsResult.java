@@ -0,0 +1,24 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file FreeStudentsResult
+ * @date 2026/10/18 18:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 空闲学生查询结果
+ */
+@Data
+public class FreeStudentsResult {
+    private Integer count; // 空闲人数
+    private List<StudentInfo> students = new ArrayList<>(); // 空闲的学生 (按分析结果中的顺序)
+}
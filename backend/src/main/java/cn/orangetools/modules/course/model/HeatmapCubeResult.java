@@ -0,0 +1,46 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file HeatmapCubeResult
+ * @date 2026/10/18 21:50
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 全学期热力图：一次返回所有周的忙碌人数，前端切换周次不必再请求
+ * busy 的下标为 ((week - 1) * 7 + (day - 1)) * 10 + (slot - 1)，
+ * freeRatio、allFreeWeeks 的下标为 (day - 1) * 10 + (slot - 1)
+ */
+@Data
+public class HeatmapCubeResult {
+    private Integer maxWeek;
+    private Integer totalPeople;  // 满足筛选条件的人数
+    private int[] busy;           // 各周各格子的忙碌人数
+    private double[] freeRatio;   // 每个格子整学期的平均空闲比例
+    private int[] allFreeWeeks;   // 每个格子有多少周所有人都空闲
+
+    private String groupBy;       // 分组维度 (college / major / grade)，不分组时为 null
+    private List<Group> groups = new ArrayList<>();
+
+    /**
+     * 按学院/专业/年级拆分的子立方体，布局与 busy 相同
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Group {
+        private String name;
+        private Integer people;
+        private int[] busy;
+    }
+}
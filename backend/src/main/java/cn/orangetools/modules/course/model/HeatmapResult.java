@@ -0,0 +1,28 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file HeatmapResult
+ * @date 2026/10/18 17:30
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 某一周的空闲/忙碌热力图
+ */
+@Data
+public class HeatmapResult {
+    private Integer week;        // 查询的周次
+    private Integer totalPeople; // 满足筛选条件的人数
+    private Integer maxFree;     // 单元格最大空闲人数 (前端计算颜色用)
+
+    // 10 x 7 的格子，cells.get(slot - 1).get(day - 1)
+    private List<List<CourseCell>> cells = new ArrayList<>();
+}
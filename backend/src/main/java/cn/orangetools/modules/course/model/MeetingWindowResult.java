@@ -0,0 +1,36 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file MeetingWindowResult
+ * @date 2026/10/18 22:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 连续空闲时段搜索结果 (按空闲人数从多到少排序)
+ */
+@Data
+public class MeetingWindowResult {
+    private Integer totalPeople; // 满足筛选条件的人数
+    private List<Window> windows = new ArrayList<>();
+
+    @Data
+    public static class Window {
+        private Integer week;       // 周次，固定时段模式下为 null (表示范围内每周)
+        private Integer day;        // 星期 (1-7)
+        private Integer startSlot;  // 起始节次
+        private Integer endSlot;    // 结束节次 (含)
+        private Integer freeCount;  // 有空的人数
+        private Double ratio;       // 有空的比例
+        private Integer missingCount;
+        private List<StudentInfo> missing = new ArrayList<>(); // 缺席的学生 (最多列出 200 个)
+    }
+}
@@ -0,0 +1,30 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ParsedWorkbook
+ * @date 2026/10/18 15:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 单个课表文件的解析结果
+ * 先按文件解析，再由 CourseService 按上传顺序合并；同时也是解析缓存中保存的内容
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParsedWorkbook {
+    private StudentInfo student;  // 文件对应的学生 (表头缺失时为 null)
+    private List<RawCourseItem> courses = new ArrayList<>(); // 该学生的课程 (按行列顺序)
+    private Integer maxWeek;      // 本文件出现的最大周次
+}
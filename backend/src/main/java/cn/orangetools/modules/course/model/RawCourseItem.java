@@ -9,24 +9,41 @@ package cn.orangetools.modules.course.model;
  * @license GPL-3.0 License
  */
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import cn.orangetools.common.timetable.WeekSet;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 原始课程项
  * 记录：周几、第几节、哪些周有课
+ * <p>
+ * 不可变：同一批文件里相同的格子由 InternPool 在学生之间共享，解析缓存也会跨请求共享同一个对象，
+ * 所以没有 setter，courseDetails 也是只读列表。需要改动时请新建对象。
+ * </p>
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
 public class RawCourseItem {
-    private Integer day; // 1-7 (周一到周日)
-    private Integer slot; // 1-10 (节次)
-    private List<Integer> busyWeeks; // 这节课忙碌的周次列表，如 [1, 2, 3, ... 16]
+    private final Integer day; // 1-7 (周一到周日)
+    private final Integer slot; // 1-10 (节次)
+    private final WeekSet busyWeeks; // 这节课忙碌的周次集合，如第 1-16 周
     // 【新增】存储该时间段内所有课程的详细信息
-    private List<CourseDetail> courseDetails = new ArrayList<>();
+    private final List<CourseDetail> courseDetails;
+
+    @JsonCreator
+    public RawCourseItem(@JsonProperty("day") Integer day,
+                         @JsonProperty("slot") Integer slot,
+                         @JsonProperty("busyWeeks") WeekSet busyWeeks,
+                         @JsonProperty("courseDetails") List<CourseDetail> courseDetails) {
+        this.day = day;
+        this.slot = slot;
+        this.busyWeeks = busyWeeks;
+        this.courseDetails = courseDetails == null ? List.of() : List.copyOf(courseDetails);
+    }
 }
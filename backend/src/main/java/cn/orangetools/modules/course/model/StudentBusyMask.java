@@ -0,0 +1,30 @@
+package cn.orangetools.modules.course.model;
+
+import cn.orangetools.common.timetable.WeekSet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file StudentBusyMask
+ * @date 2026/10/18 21:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 精简模式下单个学生的忙碌情况 (不含课程详情)
+ * cells 与 busyWeeks 一一对应，只列出有课的格子；同一格子的多门课已合并周次
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentBusyMask {
+    private StudentInfo student;
+    // (星期 - 1) * 10 + (节次 - 1)
+    private int[] cells;
+    // 对应格子忙碌的周次
+    private WeekSet[] busyWeeks;
+}
@@ -0,0 +1,37 @@
+package cn.orangetools.modules.course.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file StudentGroupsResult
+ * @date 2026/10/18 23:00
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 按空闲时间分组的结果 (值班小组、学习小组等)
+ */
+@Data
+public class StudentGroupsResult {
+    private Integer totalPeople;
+    private Integer totalCells;  // 全学期格子总数 (周数 x 7 x 10)
+    private Boolean lsh;         // 是否使用了 LSH 候选 (人数较多时)
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Group {
+        private List<StudentInfo> students;
+        private Integer sharedFree;    // 全组都空闲的格子数
+        private Double sharedFreeRatio; // sharedFree / totalCells
+    }
+}
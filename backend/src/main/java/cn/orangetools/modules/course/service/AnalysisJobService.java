@@ -0,0 +1,308 @@
+package cn.orangetools.modules.course.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+import cn.orangetools.common.exception.ServiceException;
+import cn.orangetools.common.timetable.ZipWorkbookReader;
+import cn.orangetools.common.utils.TempUploadFile;
+import cn.orangetools.modules.course.model.AnalysisJobStatus;
+import cn.orangetools.modules.course.model.AnalysisResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisJobService
+ * @date 2026/10/18 20:25
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 异步课表分析任务
+ * <p>
+ * 大批量上传时，同步接口会长时间占用 Tomcat 线程，代理超时后用户重试又会让负载翻倍。
+ * 异步模式下上传完成立即返回任务 ID，解析在独立的有界线程池中执行，
+ * 前端通过轮询或 SSE 获取进度 (已解析文件数 / 总数)，可以随时取消，完成后再取结果。
+ * 排队任务数有上限，超出直接拒绝；上传文件先落盘到临时目录，不占用堆内存。
+ * </p>
+ */
+@Slf4j
+@Service
+public class AnalysisJobService {
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    @Qualifier("analysisJobExecutor")
+    private ThreadPoolExecutor jobExecutor;
+
+    /**
+     * 任务结束后保留结果的时间 (分钟)
+     */
+    @Value("${orange-tools.job.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // 排队中、运行中的任务不会过期 (数量受线程池队列上限约束)
+    private final Map<String, Job> activeJobs = new ConcurrentHashMap<>();
+    // 已结束的任务，结果保留 ttlMinutes
+    private TimedCache<String, Job> finishedJobs;
+
+    @PostConstruct
+    public void init() {
+        finishedJobs = CacheUtil.newTimedCache(ttlMinutes * 60 * 1000);
+        finishedJobs.schedulePrune(60 * 1000);
+    }
+
+    /**
+     * 提交分析任务
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 解析并行度 (可选)
+     * @return 任务状态 (含任务 ID)
+     */
+    public AnalysisJobStatus submit(MultipartFile[] files, Integer parallelism) {
+        if (files == null || files.length == 0) {
+            throw new ServiceException("请至少上传一个 Excel 文件");
+        }
+        // 请求结束后容器会删除上传的临时文件，先复制一份
+        TempUploadFile[] copies = new TempUploadFile[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                copies[i] = TempUploadFile.copyOf(files[i]);
+            }
+        } catch (IOException e) {
+            deleteAll(copies);
+            throw new ServiceException("文件保存失败：" + e.getMessage());
+        }
+
+        Job job = new Job(UUID.randomUUID().toString().replace("-", ""), copies);
+        // ZIP 内的文件数要解析完才知道
+        job.totalFiles = files.length == 1 && ZipWorkbookReader.isZip(files[0]) ? null : files.length;
+        // 先登记再提交，任务很快结束时 finish 才能找到它
+        activeJobs.put(job.id, job);
+        try {
+            job.future = jobExecutor.submit(() -> run(job, parallelism));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.id);
+            deleteAll(copies);
+            log.warn("分析任务队列已满，拒绝新任务");
+            throw new ServiceException("当前排队的分析任务过多，请稍后再试");
+        }
+        log.info("提交异步分析任务：{}，文件数：{}", job.id, files.length);
+        return job.snapshot();
+    }
+
+    public AnalysisJobStatus status(String jobId) {
+        return getJob(jobId).snapshot();
+    }
+
+    /**
+     * 订阅任务进度 (SSE)
+     * 先推送一次当前状态，之后每解析完一个文件推送一次 progress 事件，结束时推送 done 事件并关闭连接
+     */
+    public SseEmitter subscribe(String jobId) {
+        Job job = getJob(jobId);
+        SseEmitter emitter = new SseEmitter(ttlMinutes * 60 * 1000);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(e -> job.emitters.remove(emitter));
+        synchronized (job) {
+            AnalysisJobStatus snapshot = job.snapshot();
+            if (job.isFinished()) {
+                send(emitter, "done", snapshot);
+                emitter.complete();
+            } else {
+                send(emitter, "progress", snapshot);
+                job.emitters.add(emitter);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 取消任务：排队中的直接移出队列，运行中的中断解析
+     */
+    public AnalysisJobStatus cancel(String jobId) {
+        Job job = getJob(jobId);
+        boolean dequeued = false;
+        synchronized (job) {
+            if (job.isFinished()) return job.snapshot();
+            job.cancelled = true;
+            if ("QUEUED".equals(job.status)) {
+                job.future.cancel(false);
+                jobExecutor.purge();
+                dequeued = true;
+            } else {
+                job.future.cancel(true);
+            }
+        }
+        if (dequeued) {
+            // 任务还没开始执行，不会走到 run 的 finally，在这里收尾
+            finish(job, "CANCELLED", null);
+        }
+        log.info("取消异步分析任务：{}", jobId);
+        return job.snapshot();
+    }
+
+    /**
+     * 获取任务结果，任务未成功结束时抛出业务异常
+     */
+    public AnalysisResult result(String jobId) {
+        Job job = getJob(jobId);
+        switch (job.status) {
+            case "SUCCESS":
+                return job.result;
+            case "FAILED":
+                throw new ServiceException("分析失败：" + job.message);
+            case "CANCELLED":
+                throw new ServiceException("任务已取消");
+            default:
+                throw new ServiceException("任务尚未完成");
+        }
+    }
+
+    private void run(Job job, Integer parallelism) {
+        synchronized (job) {
+            if (!"QUEUED".equals(job.status)) return;
+            job.status = "RUNNING";
+        }
+        broadcast(job, "progress");
+        String status;
+        String message = null;
+        try {
+            AnalysisResult result = courseService.analyze(job.files, parallelism, parsed -> {
+                job.parsedFiles = parsed;
+                broadcast(job, "progress");
+            });
+            if (job.cancelled) {
+                status = "CANCELLED";
+            } else {
+                job.result = result;
+                job.totalFiles = result.getFileStats().size();
+                status = "SUCCESS";
+            }
+        } catch (ServiceException e) {
+            status = job.cancelled ? "CANCELLED" : "FAILED";
+            message = e.getMessage();
+        } catch (Exception e) {
+            log.error("异步分析任务异常：" + job.id, e);
+            status = job.cancelled ? "CANCELLED" : "FAILED";
+            message = "系统繁忙，请稍后再试";
+        }
+        finish(job, status, message);
+    }
+
+    private void finish(Job job, String status, String message) {
+        deleteAll(job.files);
+        List<SseEmitter> emitters;
+        synchronized (job) {
+            job.status = status;
+            job.message = message;
+            job.finishedAt = System.currentTimeMillis();
+            emitters = List.copyOf(job.emitters);
+            job.emitters.clear();
+        }
+        // 移入已结束的任务，结果从任务结束时起保留 (先放入再移除，期间查询不会落空)
+        finishedJobs.put(job.id, job);
+        activeJobs.remove(job.id);
+        AnalysisJobStatus snapshot = job.snapshot();
+        for (SseEmitter emitter : emitters) {
+            send(emitter, "done", snapshot);
+            emitter.complete();
+        }
+        log.info("异步分析任务结束：{}，状态：{}", job.id, status);
+    }
+
+    private void broadcast(Job job, String event) {
+        AnalysisJobStatus snapshot = job.snapshot();
+        for (SseEmitter emitter : job.emitters) {
+            if (!send(emitter, event, snapshot)) {
+                job.emitters.remove(emitter);
+            }
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, String event, AnalysisJobStatus data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (Exception e) {
+            // 客户端断开，不影响任务本身
+            return false;
+        }
+    }
+
+    private Job getJob(String jobId) {
+        Job job = null;
+        if (jobId != null) {
+            job = activeJobs.get(jobId);
+            if (job == null) job = finishedJobs.get(jobId);
+        }
+        if (job == null) {
+            throw new ServiceException("任务不存在或已过期");
+        }
+        return job;
+    }
+
+    private static void deleteAll(TempUploadFile[] files) {
+        for (TempUploadFile file : files) {
+            if (file != null) file.delete();
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final TempUploadFile[] files;
+        private final long createdAt = System.currentTimeMillis();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private Future<?> future;
+
+        private volatile String status = "QUEUED";
+        private volatile int parsedFiles = 0;
+        private volatile Integer totalFiles;
+        private volatile String message;
+        private volatile boolean cancelled = false;
+        private volatile AnalysisResult result;
+        private volatile Long finishedAt;
+
+        Job(String id, TempUploadFile[] files) {
+            this.id = id;
+            this.files = files;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        AnalysisJobStatus snapshot() {
+            AnalysisJobStatus s = new AnalysisJobStatus();
+            s.setJobId(id);
+            s.setStatus(status);
+            s.setParsedFiles(parsedFiles);
+            s.setTotalFiles(totalFiles);
+            s.setMessage(message);
+            s.setSessionId(result != null ? result.getSessionId() : null);
+            s.setCreatedAt(createdAt);
+            s.setFinishedAt(finishedAt);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package cn.orangetools.modules.course.service;
+
+import cn.orangetools.common.timetable.AvailabilityIndex;
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.modules.course.model.AnalysisResult;
+import cn.orangetools.modules.course.model.CompactAnalysisResult;
+import cn.orangetools.modules.course.model.CourseDetail;
+import cn.orangetools.modules.course.model.RawCourseItem;
+import cn.orangetools.modules.course.model.StudentInfo;
+import cn.orangetools.modules.course.model.StudentSchedule;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisResultCompactor
+ * @date 2026/10/18 21:00
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * AnalysisResult 转紧凑格式
+ * <p>
+ * 解析时相同的课程格子和课程详情已经通过享元池共用同一个对象，这里按对象身份去重即可。
+ * </p>
+ */
+public final class AnalysisResultCompactor {
+
+    private AnalysisResultCompactor() {
+    }
+
+    public static CompactAnalysisResult compact(AnalysisResult result) {
+        CompactAnalysisResult compact = new CompactAnalysisResult();
+        compact.setSessionId(result.getSessionId());
+        compact.setTotalPeople(result.getTotalPeople());
+        compact.setMaxWeek(result.getMaxWeek());
+        compact.setAllColleges(result.getAllColleges());
+        compact.setAllMajors(result.getAllMajors());
+        compact.setAllGrades(result.getAllGrades());
+        compact.setParallelism(result.getParallelism());
+        compact.setCostMs(result.getCostMs());
+        compact.setFileStats(result.getFileStats());
+
+        List<StudentSchedule> data = result.getData() == null ? List.of() : result.getData();
+        StringDictionary dict = new StringDictionary();
+        Map<RawCourseItem, Integer> itemIds = new IdentityHashMap<>();
+        List<RawCourseItem> items = new ArrayList<>();
+        Map<CourseDetail, Integer> detailIds = new IdentityHashMap<>();
+        List<CourseDetail> details = new ArrayList<>();
+
+        int n = data.size();
+        CompactAnalysisResult.Students students = new CompactAnalysisResult.Students();
+        students.setName(new int[n]);
+        students.setCode(new int[n]);
+        students.setCollege(new int[n]);
+        students.setMajor(new int[n]);
+        students.setGrade(new int[n]);
+        students.setClassName(new int[n]);
+        students.setCourses(new int[n][]);
+        for (int i = 0; i < n; i++) {
+            StudentSchedule schedule = data.get(i);
+            StudentInfo s = schedule.getStudent();
+            students.getName()[i] = dict.intern(s.getName());
+            students.getCode()[i] = dict.intern(s.getCode());
+            students.getCollege()[i] = dict.intern(s.getCollege());
+            students.getMajor()[i] = dict.intern(s.getMajor());
+            students.getGrade()[i] = dict.intern(s.getGrade());
+            students.getClassName()[i] = dict.intern(s.getClassName());
+            List<RawCourseItem> courses = schedule.getCourses();
+            int[] refs = new int[courses.size()];
+            for (int j = 0; j < refs.length; j++) {
+                RawCourseItem item = courses.get(j);
+                Integer id = itemIds.get(item);
+                if (id == null) {
+                    id = items.size();
+                    itemIds.put(item, id);
+                    items.add(item);
+                }
+                refs[j] = id;
+            }
+            students.getCourses()[i] = refs;
+        }
+
+        CompactAnalysisResult.Items itemTable = new CompactAnalysisResult.Items();
+        itemTable.setCell(new int[items.size()]);
+        itemTable.setBusyWeeks(new Object[items.size()]);
+        itemTable.setDetails(new int[items.size()][]);
+        for (int i = 0; i < items.size(); i++) {
+            RawCourseItem item = items.get(i);
+            itemTable.getCell()[i] = (item.getDay() - 1) * AvailabilityIndex.SLOTS + (item.getSlot() - 1);
+            itemTable.getBusyWeeks()[i] = weeks(item.getBusyWeeks());
+            List<CourseDetail> itemDetails = item.getCourseDetails();
+            int[] refs = new int[itemDetails.size()];
+            for (int j = 0; j < refs.length; j++) {
+                CourseDetail detail = itemDetails.get(j);
+                Integer id = detailIds.get(detail);
+                if (id == null) {
+                    id = details.size();
+                    detailIds.put(detail, id);
+                    details.add(detail);
+                }
+                refs[j] = id;
+            }
+            itemTable.getDetails()[i] = refs;
+        }
+
+        CompactAnalysisResult.Details detailTable = new CompactAnalysisResult.Details();
+        int m = details.size();
+        detailTable.setName(new int[m]);
+        detailTable.setTeacher(new int[m]);
+        detailTable.setLocation(new int[m]);
+        detailTable.setRawWeekStr(new int[m]);
+        detailTable.setWeeks(new Object[m]);
+        for (int i = 0; i < m; i++) {
+            CourseDetail d = details.get(i);
+            detailTable.getName()[i] = dict.intern(d.getName());
+            detailTable.getTeacher()[i] = dict.intern(d.getTeacher());
+            detailTable.getLocation()[i] = dict.intern(d.getLocation());
+            detailTable.getRawWeekStr()[i] = dict.intern(d.getRawWeekStr());
+            detailTable.getWeeks()[i] = weeks(d.getWeeks());
+        }
+
+        compact.setStrings(dict.strings());
+        compact.setStudents(students);
+        compact.setItems(itemTable);
+        compact.setDetails(detailTable);
+        return compact;
+    }
+
+    /**
+     * 与 WeekSetJsonSerializer 的默认规则一致
+     */
+    private static Object weeks(WeekSet weeks) {
+        if (weeks == null) return null;
+        return weeks.isSafeMask() ? (Object) weeks.mask() : weeks.toRangeString();
+    }
+}
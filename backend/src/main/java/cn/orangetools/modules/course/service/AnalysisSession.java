@@ -0,0 +1,227 @@
+package cn.orangetools.modules.course.service;
+
+import cn.orangetools.common.timetable.AvailabilityIndex;
+import cn.orangetools.modules.course.model.RawCourseItem;
+import cn.orangetools.modules.course.model.StudentInfo;
+import cn.orangetools.modules.course.model.StudentSchedule;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisSession
+ * @date 2026/10/18 17:35
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 一次课表分析的服务端结果
+ * <p>
+ * 学生按 data 中的下标编号，热力图、空闲查询等都基于 AvailabilityIndex 的位运算。
+ * 支持按学生增量新增、替换、移除 (学生身份沿用 StudentInfo 的 姓名+专业+年级)，
+ * 索引、最大周次和筛选项随之增量更新，不需要重新解析全部文件。
+ * </p>
+ * <p>
+ * 查询请在 read 中执行，修改在 write 中执行 (读写锁)。
+ * </p>
+ */
+public class AnalysisSession {
+
+    // 默认最少展示 20 周，与 CourseService.analyze 一致
+    private static final int MIN_WEEKS = 20;
+
+    @Getter
+    private final String id;
+    // 下标即学生序号，移除的学生留下 null
+    private final List<StudentSchedule> data;
+    private final Map<StudentInfo, Integer> ordinals = new HashMap<>();
+    // 每名学生课表中的最大周次 -> 人数，用于增量维护整体最大周次
+    private final TreeMap<Integer, Integer> maxWeekCounts = new TreeMap<>();
+    @Getter
+    private final AvailabilityIndex index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 上次在 Redis 中续期的时间 (System.nanoTime)，创建时刚写入或读出过
+    private final AtomicLong redisTouchedAt = new AtomicLong(System.nanoTime());
+    // 每次增删学生加一 (在写锁内修改)；创建时的内容已经写入过 Redis，从 0 开始
+    private long version;
+    // 已写入 Redis 的版本，只在 persistLock 内访问
+    private long persistedVersion;
+    private final Object persistLock = new Object();
+
+    public AnalysisSession(String id, List<StudentSchedule> data, int maxWeek) {
+        this.id = id;
+        this.data = new ArrayList<>(data);
+        AvailabilityIndex.Builder builder = AvailabilityIndex.builder(data.size(), maxWeek);
+        for (int i = 0; i < data.size(); i++) {
+            StudentSchedule schedule = data.get(i);
+            StudentInfo s = schedule.getStudent();
+            ordinals.put(s, i);
+            maxWeekCounts.merge(maxWeekOf(schedule), 1, Integer::sum);
+            builder.attributes(i, s.getCollege(), s.getMajor(), s.getGrade());
+            for (RawCourseItem item : schedule.getCourses()) {
+                builder.busy(i, item.getDay(), item.getSlot(), item.getBusyWeeks());
+            }
+        }
+        this.index = builder.build();
+    }
+
+    /**
+     * 距上次续期超过 intervalNanos 时占用这次续期，并发访问时只有一个线程返回 true
+     */
+    boolean claimRedisTouch(long intervalNanos) {
+        long now = System.nanoTime();
+        long last = redisTouchedAt.get();
+        return now - last >= intervalNanos && redisTouchedAt.compareAndSet(last, now);
+    }
+
+    public <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取快照并写出 (写入 Redis)
+     * <p>
+     * 快照在读锁内取得，写出在读锁外进行，网络往返期间不阻塞修改。
+     * 多个线程并发修改后各自调用时，先取快照的线程可能后完成写出，用旧快照覆盖新快照，
+     * 因此同一会话的取快照和写出串行执行，并且只写出比已写出版本更新的快照：
+     * 后执行的一定看到不旧于先执行的内容，本次修改已被其他线程带上时直接跳过。
+     * </p>
+     * @param snapshot 在读锁内执行，返回 null 表示不写出
+     */
+    <T> void persist(Supplier<T> snapshot, Consumer<T> writer) {
+        synchronized (persistLock) {
+            long[] snapshotVersion = new long[1];
+            T value = read(() -> {
+                snapshotVersion[0] = version;
+                return version == persistedVersion ? null : snapshot.get();
+            });
+            if (value == null) return;
+            writer.accept(value);
+            persistedVersion = snapshotVersion[0];
+        }
+    }
+
+    public <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前人数
+     */
+    public int size() {
+        return ordinals.size();
+    }
+
+    public int getMaxWeek() {
+        return maxWeekCounts.isEmpty() ? MIN_WEEKS : Math.max(MIN_WEEKS, maxWeekCounts.lastKey());
+    }
+
+    public StudentInfo student(int ordinal) {
+        return data.get(ordinal).getStudent();
+    }
+
+    public StudentSchedule schedule(int ordinal) {
+        return data.get(ordinal);
+    }
+
+    /**
+     * 按 姓名+专业+年级 查找学生课表，不存在时返回 null
+     */
+    public StudentSchedule find(StudentInfo student) {
+        Integer ordinal = ordinals.get(student);
+        return ordinal == null ? null : data.get(ordinal);
+    }
+
+    /**
+     * 按 姓名+专业+年级 查找学生序号，不存在时返回 null
+     */
+    public Integer ordinalOf(StudentInfo student) {
+        return ordinals.get(student);
+    }
+
+    /**
+     * 当前所有学生 (按序号顺序，跳过已移除的)
+     */
+    public List<StudentSchedule> students() {
+        List<StudentSchedule> result = new ArrayList<>(ordinals.size());
+        for (StudentSchedule schedule : data) {
+            if (schedule != null) result.add(schedule);
+        }
+        return result;
+    }
+
+    /**
+     * 新增学生，已存在 (姓名+专业+年级相同) 时整体替换其课表
+     * @return true 表示替换，false 表示新增
+     */
+    public boolean upsert(StudentSchedule schedule) {
+        Integer ordinal = ordinals.get(schedule.getStudent());
+        boolean replaced = ordinal != null;
+        if (replaced) {
+            detach(ordinal);
+        } else {
+            ordinal = data.size();
+            data.add(null);
+        }
+        StudentInfo s = schedule.getStudent();
+        data.set(ordinal, schedule);
+        ordinals.put(s, ordinal);
+        maxWeekCounts.merge(maxWeekOf(schedule), 1, Integer::sum);
+        index.add(ordinal, s.getCollege(), s.getMajor(), s.getGrade());
+        for (RawCourseItem item : schedule.getCourses()) {
+            index.addBusy(ordinal, item.getDay(), item.getSlot(), item.getBusyWeeks());
+        }
+        version++;
+        return replaced;
+    }
+
+    /**
+     * 移除学生
+     * @return 学生不存在时返回 false
+     */
+    public boolean remove(StudentInfo student) {
+        Integer ordinal = ordinals.get(student);
+        if (ordinal == null) return false;
+        detach(ordinal);
+        data.set(ordinal, null);
+        version++;
+        return true;
+    }
+
+    private void detach(int ordinal) {
+        StudentSchedule old = data.get(ordinal);
+        ordinals.remove(old.getStudent());
+        maxWeekCounts.computeIfPresent(maxWeekOf(old), (k, v) -> v == 1 ? null : v - 1);
+        index.remove(ordinal);
+    }
+
+    private static int maxWeekOf(StudentSchedule schedule) {
+        int max = 0;
+        for (RawCourseItem item : schedule.getCourses()) {
+            max = Math.max(max, item.getBusyWeeks().max());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,166 @@
+package cn.orangetools.modules.course.service;
+
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.modules.course.model.CourseDetail;
+import cn.orangetools.modules.course.model.RawCourseItem;
+import cn.orangetools.modules.course.model.StudentInfo;
+import cn.orangetools.modules.course.model.StudentSchedule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisSessionCodec
+ * @date 2026/10/18 19:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 分析会话的二进制编码 (存入 Redis 用)
+ * <p>
+ * 所有字符串 (姓名、课程名、地点、周次区间等) 先放进一张字典表，其余地方只写下标；
+ * 享元池里共用的 RawCourseItem 也只写一次，学生只记录课程下标。最后整体 GZIP 压缩。
+ * 解码后相同的课程仍然共用同一个对象。
+ * </p>
+ */
+final class AnalysisSessionCodec {
+
+    private static final int VERSION = 1;
+
+    private AnalysisSessionCodec() {
+    }
+
+    static byte[] encode(List<StudentSchedule> data, int maxWeek) throws IOException {
+        StringDictionary dict = new StringDictionary();
+        Map<RawCourseItem, Integer> itemIds = new IdentityHashMap<>();
+        List<RawCourseItem> items = new ArrayList<>();
+        for (StudentSchedule schedule : data) {
+            StudentInfo s = schedule.getStudent();
+            dict.add(s.getName(), s.getCode(), s.getCollege(), s.getMajor(), s.getGrade(), s.getClassName());
+            for (RawCourseItem item : schedule.getCourses()) {
+                if (itemIds.putIfAbsent(item, items.size()) != null) continue;
+                items.add(item);
+                dict.add(item.getBusyWeeks().toRangeString());
+                for (CourseDetail d : item.getCourseDetails()) {
+                    dict.add(d.getName(), d.getTeacher(), d.getLocation(), d.getRawWeekStr(), weeksText(d.getWeeks()));
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(VERSION);
+            out.writeInt(maxWeek);
+
+            out.writeInt(dict.strings().size());
+            for (String str : dict.strings()) {
+                out.writeUTF(str);
+            }
+
+            out.writeInt(items.size());
+            for (RawCourseItem item : items) {
+                out.writeByte(item.getDay());
+                out.writeByte(item.getSlot());
+                out.writeInt(dict.id(item.getBusyWeeks().toRangeString()));
+                out.writeInt(item.getCourseDetails().size());
+                for (CourseDetail d : item.getCourseDetails()) {
+                    out.writeInt(dict.id(d.getName()));
+                    out.writeInt(dict.id(d.getTeacher()));
+                    out.writeInt(dict.id(d.getLocation()));
+                    out.writeInt(dict.id(d.getRawWeekStr()));
+                    out.writeInt(dict.id(weeksText(d.getWeeks())));
+                }
+            }
+
+            out.writeInt(data.size());
+            for (StudentSchedule schedule : data) {
+                StudentInfo s = schedule.getStudent();
+                out.writeInt(dict.id(s.getName()));
+                out.writeInt(dict.id(s.getCode()));
+                out.writeInt(dict.id(s.getCollege()));
+                out.writeInt(dict.id(s.getMajor()));
+                out.writeInt(dict.id(s.getGrade()));
+                out.writeInt(dict.id(s.getClassName()));
+                out.writeInt(schedule.getCourses().size());
+                for (RawCourseItem item : schedule.getCourses()) {
+                    out.writeInt(itemIds.get(item));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码
+     * @param maxWeekOut 长度为 1 的数组，用于带回最大周次
+     */
+    static List<StudentSchedule> decode(byte[] bytes, int[] maxWeekOut) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)))) {
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的会话版本：" + version);
+            }
+            maxWeekOut[0] = in.readInt();
+
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+
+            RawCourseItem[] items = new RawCourseItem[in.readInt()];
+            for (int i = 0; i < items.length; i++) {
+                int day = in.readByte();
+                int slot = in.readByte();
+                WeekSet busy = WeekSet.parseRangeString(str(strings, in.readInt()));
+                int detailCount = in.readInt();
+                List<CourseDetail> details = new ArrayList<>(detailCount);
+                for (int j = 0; j < detailCount; j++) {
+                    String name = str(strings, in.readInt());
+                    String teacher = str(strings, in.readInt());
+                    String location = str(strings, in.readInt());
+                    String rawWeekStr = str(strings, in.readInt());
+                    String weeks = str(strings, in.readInt());
+                    details.add(new CourseDetail(name, teacher, location, rawWeekStr,
+                            weeks == null ? null : WeekSet.parseRangeString(weeks)));
+                }
+                items[i] = new RawCourseItem(day, slot, busy, Collections.unmodifiableList(details));
+            }
+
+            int studentCount = in.readInt();
+            List<StudentSchedule> data = new ArrayList<>(studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                StudentInfo s = new StudentInfo(str(strings, in.readInt()), str(strings, in.readInt()),
+                        str(strings, in.readInt()), str(strings, in.readInt()),
+                        str(strings, in.readInt()), str(strings, in.readInt()));
+                int courseCount = in.readInt();
+                List<RawCourseItem> courses = new ArrayList<>(courseCount);
+                for (int j = 0; j < courseCount; j++) {
+                    courses.add(items[in.readInt()]);
+                }
+                data.add(new StudentSchedule(s, courses));
+            }
+            return data;
+        }
+    }
+
+    private static String weeksText(WeekSet weeks) {
+        return weeks == null ? null : weeks.toRangeString();
+    }
+
+    private static String str(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+}
@@ -0,0 +1,177 @@
+package cn.orangetools.modules.course.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.orangetools.common.exception.ServiceException;
+import cn.orangetools.modules.course.model.StudentSchedule;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisSessionStore
+ * @date 2026/10/18 17:48
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 课表分析会话存储
+ * <p>
+ * 一级是进程内 LRU (保存已建好索引的会话，超过有效期自动失效)；
+ * 开启 Redis 后，会话同时以压缩后的二进制形式写入 Redis，
+ * 本机未命中 (重启、多实例、被 LRU 淘汰) 时从 Redis 读回并重建索引。
+ * 超过大小上限的会话只保存在本机。
+ * </p>
+ */
+@Slf4j
+@Component
+public class AnalysisSessionStore {
+
+    private static final String REDIS_KEY_PREFIX = "tools:course:session:";
+
+    @Value("${orange-tools.session.capacity:50}")
+    private int capacity;
+
+    @Value("${orange-tools.session.ttl-minutes:120}")
+    private long ttlMinutes;
+
+    @Value("${orange-tools.session.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${orange-tools.session.redis-max-bytes:5242880}")
+    private int redisMaxBytes;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    private LRUCache<String, AnalysisSession> sessions;
+    private StringRedisTemplate redis;
+
+    @PostConstruct
+    public void init() {
+        sessions = CacheUtil.newLRUCache(capacity, ttlMinutes * 60 * 1000);
+        redis = redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+    }
+
+    /**
+     * 保存分析结果
+     * <p>
+     * 会话 ID 是访问凭证：查询、增删学生都只凭它鉴权 (匿名用户也能用)，只返回给创建者。
+     * 因此必须不可猜测，这里用 SecureRandom 生成的 UUID (122 位随机数)，不要改成自增或时间戳。
+     * </p>
+     * @return 会话 ID
+     */
+    public String save(List<StudentSchedule> data, int maxWeek) {
+        // UUID.randomUUID 内部使用 SecureRandom
+        String id = UUID.randomUUID().toString().replace("-", "");
+        sessions.put(id, new AnalysisSession(id, data, maxWeek));
+        writeRedis(id, data, maxWeek);
+        log.info("创建分析会话：{}，人数：{}", id, data.size());
+        return id;
+    }
+
+    /**
+     * 获取会话，不存在或已过期时抛出业务异常
+     */
+    public AnalysisSession get(String id) {
+        if (id == null) {
+            throw new ServiceException("分析结果已过期，请重新上传课表");
+        }
+        AnalysisSession session = sessions.get(id);
+        if (session == null) {
+            session = readRedis(id);
+            if (session != null) sessions.put(id, session);
+        } else {
+            touchRedis(session);
+        }
+        if (session == null) {
+            throw new ServiceException("分析结果已过期，请重新上传课表");
+        }
+        return session;
+    }
+
+    /**
+     * 会话增量修改后重新写入 Redis，在写锁之外调用
+     * 读锁内只做编码，SET 在读锁外执行；同一会话串行写入并跳过过期快照，Redis 中不会留下比本机旧的内容
+     */
+    public void persist(AnalysisSession session) {
+        if (redis == null) return;
+        session.persist(() -> encode(session.getId(), session.students(), session.getMaxWeek()),
+                bytes -> writeRedis(session.getId(), bytes));
+    }
+
+    private void writeRedis(String id, List<StudentSchedule> data, int maxWeek) {
+        if (redis == null) return;
+        byte[] bytes = encode(id, data, maxWeek);
+        if (bytes != null) writeRedis(id, bytes);
+    }
+
+    /**
+     * 编码会话，超过大小上限或编码失败时返回 null
+     */
+    private byte[] encode(String id, List<StudentSchedule> data, int maxWeek) {
+        try {
+            byte[] bytes = AnalysisSessionCodec.encode(data, maxWeek);
+            if (bytes.length > redisMaxBytes) {
+                log.warn("分析会话 {} 压缩后 {} 字节，超过上限，只保存在本机", id, bytes.length);
+                return null;
+            }
+            return bytes;
+        } catch (Exception e) {
+            log.warn("分析会话编码失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String id, byte[] bytes) {
+        try {
+            redis.opsForValue().set(REDIS_KEY_PREFIX + id, Base64.getEncoder().encodeToString(bytes), ttlMinutes, TimeUnit.MINUTES);
+            log.debug("分析会话 {} 已写入 Redis，{} 字节", id, bytes.length);
+        } catch (Exception e) {
+            // Redis 不可用时退化为只保存在本机
+            log.warn("分析会话写入 Redis 失败：{}", e.getMessage());
+        }
+    }
+
+    private AnalysisSession readRedis(String id) {
+        if (redis == null) return null;
+        try {
+            String text = redis.opsForValue().get(REDIS_KEY_PREFIX + id);
+            if (text == null) return null;
+            int[] maxWeek = new int[1];
+            List<StudentSchedule> data = AnalysisSessionCodec.decode(Base64.getDecoder().decode(text), maxWeek);
+            // 读取即续期，与本机 LRU 的访问顺延保持一致
+            redis.expire(REDIS_KEY_PREFIX + id, ttlMinutes, TimeUnit.MINUTES);
+            log.info("从 Redis 恢复分析会话：{}，人数：{}", id, data.size());
+            return new AnalysisSession(id, data, maxWeek[0]);
+        } catch (Exception e) {
+            log.warn("分析会话读取 Redis 失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 本机命中时顺延 Redis 中的有效期
+     * 每个会话最多每 1/4 有效期续期一次，频繁查询时不必每次都访问 Redis
+     */
+    private void touchRedis(AnalysisSession session) {
+        if (redis == null || !session.claimRedisTouch(TimeUnit.MINUTES.toNanos(ttlMinutes) / 4)) return;
+        try {
+            redis.expire(REDIS_KEY_PREFIX + session.getId(), ttlMinutes, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.debug("分析会话续期失败：{}", e.getMessage());
+        }
+    }
+}
@@ -1,16 +1,45 @@
 package cn.orangetools.modules.course.service;
 
+import cn.hutool.core.util.StrUtil;
 import cn.orangetools.common.exception.ServiceException;
+import cn.orangetools.common.timetable.AvailabilityIndex;
+import cn.orangetools.common.timetable.AvailabilitySimilarity;
+import cn.orangetools.common.timetable.BusyCube;
+import cn.orangetools.common.timetable.CacheStats;
+import cn.orangetools.common.timetable.CellTokenizer;
+import cn.orangetools.common.timetable.InternPool;
+import cn.orangetools.common.timetable.MeetingWindowFinder;
+import cn.orangetools.common.timetable.ParseCache;
+import cn.orangetools.common.timetable.ParseCacheFactory;
+import cn.orangetools.common.timetable.WeekExpressionCompiler;
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.common.timetable.WorkbookBatch;
+import cn.orangetools.common.timetable.WorkbookSource;
+import cn.orangetools.common.timetable.ZipWorkbookReader;
+import cn.orangetools.common.utils.ParallelTasks;
 import cn.orangetools.modules.course.model.*;
 import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.exception.ExcelAnalysisStopException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,39 +56,105 @@ import java.util.regex.Pattern;
 @Service
 public class CourseService {
 
+    // 空闲时段搜索：最多返回的时段数、每个时段最多列出的缺席学生数
+    private static final int MAX_TOP_K = 100;
+    private static final int MISSING_LIMIT = 200;
+
+    @Autowired
+    @Qualifier("timetableParseExecutor")
+    private ExecutorService parseExecutor;
+
+    @Autowired
+    private WeekExpressionCompiler weekCompiler;
+
+    @Autowired
+    private ParseCacheFactory parseCacheFactory;
+
+    @Autowired
+    private ZipWorkbookReader zipReader;
+
+    @Autowired
+    private AnalysisSessionStore sessionStore;
+
+    // 按文件内容寻址的解析结果缓存 (相同文件再次上传时跳过 EasyExcel)
+    private ParseCache<ParsedWorkbook> parseCache;
+
+    /**
+     * 单个请求允许的最大并行度，0 表示使用 CPU 核数
+     */
+    @Value("${orange-tools.parse.max-parallelism:0}")
+    private int maxParallelism;
+
+    @PostConstruct
+    public void initParseCache() {
+        // 结构变化时修改版本号，使旧的 Redis 缓存失效
+        parseCache = parseCacheFactory.create("course-v2", ParsedWorkbook.class);
+    }
+
     public AnalysisResult analyze(MultipartFile[] files) {
-        log.info("开始处理课表分析，接收文件数量：{}", files.length);
+        return analyze(files, null);
+    }
+
+    public AnalysisResult analyze(MultipartFile[] files, Integer parallelism) {
+        return analyze(files, parallelism, null);
+    }
+
+    /**
+     * 批量分析课表
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 本次请求的解析并行度 (为空则使用默认值，1 即为顺序解析)
+     * @param onFileParsed 进度回调，参数为已解析的文件数 (可空，可能来自多个线程)
+     * @return 分析结果
+     */
+    public AnalysisResult analyze(MultipartFile[] files, Integer parallelism, IntConsumer onFileParsed) {
         if (files == null || files.length == 0) {
             log.warn("分析失败，未上传文件");
             throw new ServiceException("请至少上传一个 Excel 文件");
         }
+        int threads = resolveParallelism(parallelism);
+        log.info("开始处理课表分析，接收文件数量：{}，并行度：{}", files.length, threads);
+        long startTime = System.currentTimeMillis();
+
+        // 解析结果先按序号存放，全部完成后再按上传顺序取出
+        Map<Integer, ParsedWorkbook> parsed = new ConcurrentHashMap<>();
+        Map<Integer, FileParseStat> parsedStats = new ConcurrentHashMap<>();
+        AtomicInteger done = new AtomicInteger();
+        InternPool internPool = new InternPool();
+        int fileCount = parseEach(files, threads, internPool, (index, workbook, stat) -> {
+            parsed.put(index, workbook);
+            parsedStats.put(index, stat);
+            if (onFileParsed != null) onFileParsed.accept(done.incrementAndGet());
+        });
+        List<ParsedWorkbook> workbooks = new ArrayList<>(fileCount);
+        List<FileParseStat> stats = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            workbooks.add(parsed.get(i));
+            stats.add(parsedStats.get(i));
+        }
 
         AnalysisResult result = new AnalysisResult();
         // 临时存储：StudentInfo -> StudentSchedule
-        // 用 Map 方便我们在解析过程中随时把课程塞给对应的学生
+        // 按上传顺序合并，保证结果与顺序解析完全一致 (同一个学生出现在多个文件时，课程顺序不变)
         Map<StudentInfo, StudentSchedule> scheduleMap = new HashMap<>();
 
         Set<String> allColleges = new HashSet<>();
         Set<String> allMajors = new HashSet<>();
         Set<String> allGrades = new HashSet<>();
 
-        // 全局最大周次，默认为 20，解析过程中动态更新
-        final int[] maxWeekRef = {20};
+        // 全局最大周次，默认为 20，合并过程中动态更新
+        int maxWeek = 20;
 
-        for (MultipartFile file : files) {
-            try {
-                log.info("开始解析文件：{}", file.getOriginalFilename());
-                // 解析器
-                new ExcelParser(file, scheduleMap, maxWeekRef).parse();
-                log.info("文件解析完成：{}", file.getOriginalFilename());
-            } catch (Exception e) {
-                log.error("解析异常: " + file.getOriginalFilename(), e);
-            }
+        for (ParsedWorkbook workbook : workbooks) {
+            // 缓存中的对象会被多个请求共享，这里只读取，不修改
+            maxWeek = Math.max(maxWeek, workbook.getMaxWeek());
+            if (workbook.getStudent() == null) continue;
+            scheduleMap.computeIfAbsent(workbook.getStudent(), s -> new StudentSchedule(s, new ArrayList<>()))
+                    .getCourses().addAll(workbook.getCourses());
         }
 
         // 组装结果
         result.setTotalPeople(scheduleMap.size());
-        result.setMaxWeek(maxWeekRef[0]);
+        result.setMaxWeek(maxWeek);
         result.setData(new ArrayList<>(scheduleMap.values())); // 转为 List
 
         // 提取元数据
@@ -72,30 +167,727 @@ public class CourseService {
         result.setAllMajors(allMajors);
         result.setAllGrades(allGrades);
 
-        log.info("课表分析汇总完成，总人数：{}，最大周次：{}", result.getTotalPeople(), result.getMaxWeek());
+        result.setParallelism(threads);
+        result.setCostMs(System.currentTimeMillis() - startTime);
+        result.setFileStats(stats);
+        result.setSessionId(sessionStore.save(result.getData(), maxWeek));
+
+        log.info("课表分析汇总完成，总人数：{}，最大周次：{}，耗时：{}ms", result.getTotalPeople(), result.getMaxWeek(), result.getCostMs());
+        log.debug("周次表达式缓存：{}，享元池复用 {} 次 / 新建 {} 次", weekCompiler.stats(), internPool.hits(), internPool.misses());
+        return result;
+    }
+
+    /**
+     * 流式分析课表
+     * <p>
+     * 每解析完一个文件就立即回调一次，服务端不再持有完整的分析结果。
+     * 回调顺序为解析完成的顺序 (不是上传顺序)，同一个学生出现在多个文件时会回调多次，由调用方按学生合并课程。
+     * </p>
+     * @param files 课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 本次请求的解析并行度
+     * @param onStudent 学生回调 (同一时刻只会有一个线程在回调)
+     * @return 汇总信息 (data 为空)
+     */
+    public AnalysisResult analyzeStream(MultipartFile[] files, Integer parallelism, Consumer<StudentSchedule> onStudent) {
+        if (files == null || files.length == 0) {
+            log.warn("分析失败，未上传文件");
+            throw new ServiceException("请至少上传一个 Excel 文件");
+        }
+        int threads = resolveParallelism(parallelism);
+        log.info("开始流式课表分析，接收文件数量：{}，并行度：{}", files.length, threads);
+        long startTime = System.currentTimeMillis();
+
+        // 只保留汇总所需的少量信息
+        Set<StudentInfo> students = ConcurrentHashMap.newKeySet();
+        Map<Integer, FileParseStat> parsedStats = new ConcurrentHashMap<>();
+        AtomicInteger maxWeek = new AtomicInteger(20);
+        StudentWriter writer = new StudentWriter(onStudent);
+        int fileCount = parseEach(files, threads, new InternPool(), (index, workbook, stat) -> {
+            parsedStats.put(index, stat);
+            maxWeek.accumulateAndGet(workbook.getMaxWeek(), Math::max);
+            if (workbook.getStudent() == null) return;
+            students.add(workbook.getStudent());
+            // 新建 StudentSchedule，缓存中的课程列表只读共享
+            writer.offer(new StudentSchedule(workbook.getStudent(), workbook.getCourses()));
+        });
+        // 最后一个写出者退出后才入队的学生
+        writer.drain();
+
+        AnalysisResult summary = new AnalysisResult();
+        summary.setTotalPeople(students.size());
+        summary.setMaxWeek(maxWeek.get());
+        Set<String> allColleges = new HashSet<>();
+        Set<String> allMajors = new HashSet<>();
+        Set<String> allGrades = new HashSet<>();
+        for (StudentInfo s : students) {
+            if (s.getCollege() != null) allColleges.add(s.getCollege());
+            if (s.getMajor() != null) allMajors.add(s.getMajor());
+            if (s.getGrade() != null) allGrades.add(s.getGrade());
+        }
+        summary.setAllColleges(allColleges);
+        summary.setAllMajors(allMajors);
+        summary.setAllGrades(allGrades);
+        summary.setParallelism(threads);
+        summary.setCostMs(System.currentTimeMillis() - startTime);
+        List<FileParseStat> stats = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            stats.add(parsedStats.get(i));
+        }
+        summary.setFileStats(stats);
+        log.info("流式课表分析完成，总人数：{}，耗时：{}ms", summary.getTotalPeople(), summary.getCostMs());
+        return summary;
+    }
+
+    /**
+     * 某一周的空闲/忙碌热力图 (基于已保存的分析会话)
+     * @param sessionId 分析会话 ID
+     * @param week 周次
+     * @param college 学院筛选 (可空)
+     * @param major 专业筛选 (可空)
+     * @param grade 年级筛选 (可空)
+     */
+    public HeatmapResult heatmap(String sessionId, int week, String college, String major, String grade) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            if (week < 1 || week > session.getMaxWeek()) {
+                throw new ServiceException("周次超出范围：" + week);
+            }
+            AvailabilityIndex index = session.getIndex();
+            BitSet selected = index.select(optional(college), optional(major), optional(grade));
+            int total = selected.cardinality();
+
+            HeatmapResult result = new HeatmapResult();
+            result.setWeek(week);
+            result.setTotalPeople(total);
+            int maxFree = 0;
+            for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++) {
+                List<CourseCell> row = new ArrayList<>(AvailabilityIndex.DAYS);
+                for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                    BitSet busy = (BitSet) index.busy(week, day, slot).clone();
+                    busy.and(selected);
+                    BitSet free = (BitSet) selected.clone();
+                    free.andNot(busy);
+
+                    CourseCell cell = new CourseCell();
+                    for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+                        cell.addFree(session.student(i));
+                    }
+                    for (int i = busy.nextSetBit(0); i >= 0; i = busy.nextSetBit(i + 1)) {
+                        cell.addBusy(session.student(i));
+                    }
+                    cell.setBusyRatio(total > 0 ? (double) busy.cardinality() / total : 0.0);
+                    maxFree = Math.max(maxFree, cell.getFreeCount());
+                    row.add(cell);
+                }
+                result.getCells().add(row);
+            }
+            result.setMaxFree(maxFree);
+            return result;
+        });
+    }
+
+    /**
+     * 全学期热力图立方体 (所有周的忙碌人数，一次遍历课表得到)
+     * @param groupBy 分组维度 (college / major / grade，可空)，指定时额外返回每个分组的立方体
+     */
+    public HeatmapCubeResult heatmapCube(String sessionId, String college, String major, String grade, String groupBy) {
+        Function<StudentInfo, String> groupKey = groupKey(groupBy);
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            int maxWeek = session.getMaxWeek();
+            BitSet selected = session.getIndex().select(optional(college), optional(major), optional(grade));
+            BusyCube total = new BusyCube(maxWeek);
+            Map<String, BusyCube> groups = new TreeMap<>();
+            WeekSet[] cells = new WeekSet[BusyCube.CELLS];
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                StudentSchedule schedule = session.schedule(i);
+                // 同一格子的多门课先合并周次，避免同一个人被重复计数
+                mergeCells(schedule, cells);
+                total.add(cells);
+                if (groupKey != null) {
+                    String key = StrUtil.blankToDefault(groupKey.apply(schedule.getStudent()), "未知");
+                    groups.computeIfAbsent(key, k -> new BusyCube(maxWeek)).add(cells);
+                }
+            }
+
+            HeatmapCubeResult result = new HeatmapCubeResult();
+            result.setMaxWeek(maxWeek);
+            result.setTotalPeople(total.people());
+            result.setBusy(total.counts());
+            result.setFreeRatio(total.freeRatios());
+            result.setAllFreeWeeks(total.allFreeWeeks());
+            result.setGroupBy(groupKey == null ? null : groupBy);
+            groups.forEach((name, cube) ->
+                    result.getGroups().add(new HeatmapCubeResult.Group(name, cube.people(), cube.counts())));
+            return result;
+        });
+    }
+
+    private static Function<StudentInfo, String> groupKey(String groupBy) {
+        if (groupBy == null || groupBy.isEmpty()) return null;
+        switch (groupBy) {
+            case "college":
+                return StudentInfo::getCollege;
+            case "major":
+                return StudentInfo::getMajor;
+            case "grade":
+                return StudentInfo::getGrade;
+            default:
+                throw new ServiceException("不支持的分组维度：" + groupBy);
+        }
+    }
+
+    /**
+     * 查询指定周、星期、若干节次全部空闲的学生
+     * 同一维度的多个取值为"或"，不同维度之间为"且"，为空表示不限
+     * @param sessionId 分析会话 ID
+     * @param week 周次
+     * @param day 星期 (1-7)
+     * @param slots 节次 (1-10)，需全部空闲
+     */
+    public FreeStudentsResult freeStudents(String sessionId, int week, int day, List<Integer> slots,
+                                           List<String> colleges, List<String> majors, List<String> grades) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            if (slots == null || slots.isEmpty()) {
+                throw new ServiceException("请至少选择一个节次");
+            }
+            AvailabilityIndex index = session.getIndex();
+            BitSet free;
+            try {
+                free = index.free(week, day, slots, index.select(colleges, majors, grades));
+            } catch (IllegalArgumentException e) {
+                throw new ServiceException(e.getMessage());
+            }
+
+            FreeStudentsResult result = new FreeStudentsResult();
+            result.setCount(free.cardinality());
+            for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+                result.getStudents().add(session.student(i));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 搜索连续空闲时段，例如 "第 5-12 周连续 2 节、至少 90% 的人有空"
+     * @param duration 连续节数 (1-10)
+     * @param weekFrom 起始周 (可空，默认第 1 周)
+     * @param weekTo 结束周 (可空，默认最大周次)
+     * @param days 允许的星期 (可空，默认 1-7)
+     * @param minRatio 最低出席比例 (0-1，可空)
+     * @param topK 最多返回多少个时段 (可空，默认 10)
+     * @param recurring 是否要求周次范围内每周都有空 (固定的例会时间)
+     */
+    public MeetingWindowResult meetingWindows(String sessionId, List<String> colleges, List<String> majors,
+                                              List<String> grades, int duration, Integer weekFrom, Integer weekTo,
+                                              List<Integer> days, Double minRatio, Integer topK, boolean recurring) {
+        if (duration < 1 || duration > AvailabilityIndex.SLOTS) {
+            throw new ServiceException("连续节数需在 1-" + AvailabilityIndex.SLOTS + " 之间");
+        }
+        double ratio = minRatio == null ? 0.0 : minRatio;
+        if (ratio < 0 || ratio > 1) {
+            throw new ServiceException("出席比例需在 0-1 之间");
+        }
+        int k = topK == null ? 10 : Math.min(topK, MAX_TOP_K);
+        if (k < 1) {
+            throw new ServiceException("返回数量至少为 1");
+        }
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            int from = weekFrom == null ? 1 : weekFrom;
+            int to = weekTo == null ? session.getMaxWeek() : weekTo;
+            if (from < 1 || to > session.getMaxWeek() || from > to) {
+                throw new ServiceException("周次范围无效：" + from + "-" + to);
+            }
+            AvailabilityIndex index = session.getIndex();
+            BitSet candidates = index.select(colleges, majors, grades);
+            int total = candidates.cardinality();
+            int minFree = (int) Math.ceil(ratio * total);
+            List<MeetingWindowFinder.Window> windows = new MeetingWindowFinder(index)
+                    .find(candidates, duration, from, to, days, minFree, k, recurring);
+
+            MeetingWindowResult result = new MeetingWindowResult();
+            result.setTotalPeople(total);
+            for (MeetingWindowFinder.Window w : windows) {
+                MeetingWindowResult.Window window = new MeetingWindowResult.Window();
+                window.setWeek(w.week);
+                window.setDay(w.day);
+                window.setStartSlot(w.startSlot);
+                window.setEndSlot(w.endSlot);
+                window.setFreeCount(w.free);
+                window.setRatio(total == 0 ? 0.0 : (double) w.free / total);
+                window.setMissingCount(w.missing.cardinality());
+                for (int i = w.missing.nextSetBit(0); i >= 0 && window.getMissing().size() < MISSING_LIMIT;
+                     i = w.missing.nextSetBit(i + 1)) {
+                    window.getMissing().add(session.student(i));
+                }
+                result.getWindows().add(window);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 与某个学生空闲时间最相似的 k 个学生 (找搭档、调班)
+     * @param colleges 候选范围：学院 (可空)
+     * @param majors 候选范围：专业 (可空)
+     * @param grades 候选范围：年级 (可空)
+     */
+    public CompatibleStudentsResult compatibleStudents(String sessionId, String name, String major, String grade, int k,
+                                                       List<String> colleges, List<String> majors, List<String> grades) {
+        if (k < 1 || k > MAX_TOP_K) {
+            throw new ServiceException("返回数量需在 1-" + MAX_TOP_K + " 之间");
+        }
+        StudentInfo key = new StudentInfo();
+        key.setName(name);
+        key.setMajor(StrUtil.emptyToNull(major));
+        key.setGrade(StrUtil.emptyToNull(grade));
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            Integer self = session.ordinalOf(key);
+            if (self == null) {
+                throw new ServiceException("分析结果中没有该学生：" + name);
+            }
+            AvailabilityIndex index = session.getIndex();
+            BitSet roster = index.select(colleges, majors, grades);
+            // 本人不一定在候选范围内，但需要参与计算
+            roster.set(self);
+            AvailabilitySimilarity similarity = similarity(index, roster);
+
+            CompatibleStudentsResult result = new CompatibleStudentsResult();
+            result.setStudent(session.student(self));
+            result.setTotalCells(index.maxWeek() * BusyCube.CELLS);
+            result.setLsh(similarity.usesLsh());
+            for (AvailabilitySimilarity.Match m : similarity.topK(self, k)) {
+                result.getMatches().add(new CompatibleStudentsResult.Match(session.student(m.ordinal), m.jaccard, m.sharedFree));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 按空闲时间把学生分成 k 组 (每组人数尽量均匀)，组内共同空闲时间尽量多
+     */
+    public StudentGroupsResult studentGroups(String sessionId, int k,
+                                             List<String> colleges, List<String> majors, List<String> grades) {
+        if (k < 1) {
+            throw new ServiceException("分组数至少为 1");
+        }
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            AvailabilityIndex index = session.getIndex();
+            BitSet roster = index.select(colleges, majors, grades);
+            if (roster.isEmpty()) {
+                throw new ServiceException("没有满足筛选条件的学生");
+            }
+            AvailabilitySimilarity similarity = similarity(index, roster);
+            int totalCells = index.maxWeek() * BusyCube.CELLS;
+
+            StudentGroupsResult result = new StudentGroupsResult();
+            result.setTotalPeople(similarity.size());
+            result.setTotalCells(totalCells);
+            result.setLsh(similarity.usesLsh());
+            for (AvailabilitySimilarity.Group g : similarity.partition(k)) {
+                List<StudentInfo> students = new ArrayList<>(g.ordinals.length);
+                for (int ordinal : g.ordinals) {
+                    students.add(session.student(ordinal));
+                }
+                result.getGroups().add(new StudentGroupsResult.Group(students, g.sharedFree,
+                        (double) g.sharedFree / totalCells));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 分析会话的汇总信息 (不含课表数据)，用于页面刷新后恢复筛选项
+     */
+    public AnalysisResult sessionSummary(String sessionId) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            AnalysisResult result = new AnalysisResult();
+            result.setSessionId(sessionId);
+            result.setTotalPeople(session.size());
+            result.setMaxWeek(session.getMaxWeek());
+            // 筛选项由索引增量维护，移除某学院最后一名学生后该学院随之消失
+            result.setAllColleges(session.getIndex().colleges());
+            result.setAllMajors(session.getIndex().majors());
+            result.setAllGrades(session.getIndex().grades());
+            return result;
+        });
+    }
+
+    /**
+     * 向已有的分析会话中增加或替换学生课表 (只解析本次上传的文件)
+     * 同一学生 (姓名+专业+年级相同) 已存在时，用新课表整体替换
+     * @param sessionId 分析会话 ID
+     * @param files 新的课表文件 (也可以是单个 ZIP 压缩包)
+     * @param parallelism 解析并行度 (可选)
+     * @return 更新后的汇总信息
+     */
+    public AnalysisResult upsertWorkbooks(String sessionId, MultipartFile[] files, Integer parallelism) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        if (files == null || files.length == 0) {
+            throw new ServiceException("请至少上传一个 Excel 文件");
+        }
+        int threads = resolveParallelism(parallelism);
+        long startTime = System.currentTimeMillis();
+
+        Map<Integer, ParsedWorkbook> parsed = new ConcurrentHashMap<>();
+        Map<Integer, FileParseStat> parsedStats = new ConcurrentHashMap<>();
+        int fileCount = parseEach(files, threads, new InternPool(), (index, workbook, stat) -> {
+            parsed.put(index, workbook);
+            parsedStats.put(index, stat);
+        });
+
+        // 与 analyze 相同：同一学生出现在本次多个文件中时，按上传顺序合并课程
+        Map<StudentInfo, StudentSchedule> updates = new LinkedHashMap<>();
+        List<FileParseStat> stats = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            ParsedWorkbook workbook = parsed.get(i);
+            stats.add(parsedStats.get(i));
+            if (workbook.getStudent() == null) continue;
+            updates.computeIfAbsent(workbook.getStudent(), s -> new StudentSchedule(s, new ArrayList<>()))
+                    .getCourses().addAll(workbook.getCourses());
+        }
+
+        int replaced = session.write(() -> {
+            int count = 0;
+            for (StudentSchedule schedule : updates.values()) {
+                if (session.upsert(schedule)) count++;
+            }
+            return count;
+        });
+        sessionStore.persist(session);
+        log.info("分析会话 {} 增量更新：新增 {} 人，替换 {} 人", sessionId, updates.size() - replaced, replaced);
+
+        AnalysisResult result = sessionSummary(sessionId);
+        result.setParallelism(threads);
+        result.setCostMs(System.currentTimeMillis() - startTime);
+        result.setFileStats(stats);
         return result;
     }
 
+    /**
+     * 从分析会话中移除一名学生
+     * @return 更新后的汇总信息
+     */
+    public AnalysisResult removeStudent(String sessionId, String name, String major, String grade) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        // StudentInfo 只按 姓名+专业+年级 判断是否同一人
+        StudentInfo key = new StudentInfo();
+        key.setName(name);
+        key.setMajor(StrUtil.emptyToNull(major));
+        key.setGrade(StrUtil.emptyToNull(grade));
+        if (!session.write(() -> session.remove(key))) {
+            throw new ServiceException("分析结果中没有该学生：" + name);
+        }
+        sessionStore.persist(session);
+        log.info("分析会话 {} 移除学生：{}", sessionId, name);
+        return sessionSummary(sessionId);
+    }
+
+    /**
+     * 单个格子的详情：空闲的学生，以及忙碌的学生本周这一节在上什么课
+     */
+    public CellDetailResult cellDetail(String sessionId, int week, int day, int slot,
+                                       String college, String major, String grade) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        return session.read(() -> {
+            AvailabilityIndex index = session.getIndex();
+            BitSet selected = index.select(optional(college), optional(major), optional(grade));
+            BitSet busy;
+            try {
+                busy = (BitSet) index.busy(week, day, slot).clone();
+            } catch (IllegalArgumentException e) {
+                throw new ServiceException(e.getMessage());
+            }
+            busy.and(selected);
+            selected.andNot(busy);
+
+            CellDetailResult result = new CellDetailResult();
+            result.setWeek(week);
+            result.setDay(day);
+            result.setSlot(slot);
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                result.getFreeStudents().add(session.student(i));
+            }
+            for (int i = busy.nextSetBit(0); i >= 0; i = busy.nextSetBit(i + 1)) {
+                StudentSchedule schedule = session.schedule(i);
+                result.getBusyStudents().add(new CellDetailResult.BusyStudent(schedule.getStudent(),
+                        currentCourse(schedule, week, day, slot)));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 某个学生某一格的课程详情 (精简模式下打开详情弹窗时按需查询)
+     * @param week 周次 (可选)，传入时只返回该周在上的课
+     */
+    public List<CourseDetail> studentCourses(String sessionId, String name, String major, String grade,
+                                             int day, int slot, Integer week) {
+        AnalysisSession session = sessionStore.get(sessionId);
+        StudentInfo key = new StudentInfo();
+        key.setName(name);
+        key.setMajor(StrUtil.emptyToNull(major));
+        key.setGrade(StrUtil.emptyToNull(grade));
+        return session.read(() -> {
+            StudentSchedule schedule = session.find(key);
+            if (schedule == null) {
+                throw new ServiceException("分析结果中没有该学生：" + name);
+            }
+            List<CourseDetail> result = new ArrayList<>();
+            for (RawCourseItem item : schedule.getCourses()) {
+                if (item.getDay() != day || item.getSlot() != slot) continue;
+                if (week != null && !item.getBusyWeeks().contains(week)) continue;
+                for (CourseDetail detail : item.getCourseDetails()) {
+                    if (week == null || detail.getWeeks() == null || detail.getWeeks().contains(week)) {
+                        result.add(detail);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 转为精简结果：去掉课程详情，每个学生只保留各格子的忙碌周次
+     * 返回新对象，原结果 (可能仍被异步任务持有) 不受影响
+     */
+    public AnalysisResult lite(AnalysisResult result) {
+        AnalysisResult lite = new AnalysisResult();
+        lite.setSessionId(result.getSessionId());
+        lite.setTotalPeople(result.getTotalPeople());
+        lite.setMaxWeek(result.getMaxWeek());
+        lite.setAllColleges(result.getAllColleges());
+        lite.setAllMajors(result.getAllMajors());
+        lite.setAllGrades(result.getAllGrades());
+        lite.setParallelism(result.getParallelism());
+        lite.setCostMs(result.getCostMs());
+        lite.setFileStats(result.getFileStats());
+
+        List<StudentBusyMask> masks = new ArrayList<>(result.getData().size());
+        WeekSet[] cells = new WeekSet[BusyCube.CELLS];
+        for (StudentSchedule schedule : result.getData()) {
+            int count = mergeCells(schedule, cells);
+            int[] cellIds = new int[count];
+            WeekSet[] weeks = new WeekSet[count];
+            for (int cell = 0, k = 0; cell < cells.length; cell++) {
+                if (cells[cell] == null) continue;
+                cellIds[k] = cell;
+                weeks[k++] = cells[cell];
+            }
+            masks.add(new StudentBusyMask(schedule.getStudent(), cellIds, weeks));
+        }
+        lite.setBusyMasks(masks);
+        return lite;
+    }
+
+    /**
+     * 按格子合并学生的忙碌周次 (同一格子可能有多门课)
+     * @param cells 长度为 70 的输出数组，下标为 BusyCube.cellOf(day, slot)，没课的格子为 null
+     * @return 有课的格子数
+     */
+    private static int mergeCells(StudentSchedule schedule, WeekSet[] cells) {
+        Arrays.fill(cells, null);
+        int count = 0;
+        for (RawCourseItem item : schedule.getCourses()) {
+            if (item.getDay() < 1 || item.getDay() > AvailabilityIndex.DAYS
+                    || item.getSlot() < 1 || item.getSlot() > AvailabilityIndex.SLOTS) continue;
+            int cell = BusyCube.cellOf(item.getDay(), item.getSlot());
+            if (cells[cell] == null) {
+                count++;
+                cells[cell] = item.getBusyWeeks();
+            } else {
+                cells[cell] = cells[cell].union(item.getBusyWeeks());
+            }
+        }
+        return count;
+    }
+
+    private static CourseDetail currentCourse(StudentSchedule schedule, int week, int day, int slot) {
+        for (RawCourseItem item : schedule.getCourses()) {
+            if (item.getDay() != day || item.getSlot() != slot || !item.getBusyWeeks().contains(week)) continue;
+            for (CourseDetail detail : item.getCourseDetails()) {
+                if (detail.getWeeks() != null && detail.getWeeks().contains(week)) return detail;
+            }
+        }
+        return new CourseDetail("未知课程", "", "", "", WeekSet.EMPTY);
+    }
+
+    private static AvailabilitySimilarity similarity(AvailabilityIndex index, BitSet roster) {
+        int people = roster.cardinality();
+        if (people > AvailabilitySimilarity.MAX_PEOPLE) {
+            throw new ServiceException("参与计算的人数过多 (" + people + ")，最多 " + AvailabilitySimilarity.MAX_PEOPLE + " 人，请缩小筛选范围");
+        }
+        return new AvailabilitySimilarity(index, roster);
+    }
+
+    private static List<String> optional(String value) {
+        return value == null || value.isEmpty() ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    /**
+     * 流式分析的学生输出：解析线程只负责入队，同一时刻只有一个线程在回调 (写网络)
+     * <p>
+     * 没有线程在写时，入队的线程顺便把队列写空；有线程在写时直接返回继续解析。
+     * 客户端网速慢时最多拖住正在写的那一个线程，其余解析线程不受影响。
+     * </p>
+     */
+    private static final class StudentWriter {
+        private final Consumer<StudentSchedule> onStudent;
+        private final Queue<StudentSchedule> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean writing = new AtomicBoolean();
+
+        StudentWriter(Consumer<StudentSchedule> onStudent) {
+            this.onStudent = onStudent;
+        }
+
+        void offer(StudentSchedule schedule) {
+            queue.add(schedule);
+            drain();
+        }
+
+        void drain() {
+            // 释放写权限后重新检查，避免漏掉写出期间别的线程入队的学生
+            while (!queue.isEmpty() && writing.compareAndSet(false, true)) {
+                try {
+                    StudentSchedule schedule;
+                    while ((schedule = queue.poll()) != null) {
+                        onStudent.accept(schedule);
+                    }
+                } finally {
+                    writing.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个文件解析完成后的回调
+     */
+    @FunctionalInterface
+    private interface ParsedCallback {
+        void accept(int index, ParsedWorkbook workbook, FileParseStat stat);
+    }
+
+    /**
+     * 并行解析每个文件 (上传 ZIP 时文件总数事先未知)
+     * 每个文件各自解析到独立的 ExcelParser 中，只共享线程安全的享元池，可以安全地并行执行
+     * @return 文件总数
+     */
+    private int parseEach(MultipartFile[] files, int threads, InternPool internPool, ParsedCallback callback) {
+        int fileCount;
+        try (WorkbookBatch batch = zipReader.open(files)) {
+            ParallelTasks.drain(parseExecutor, threads, batch::next, source -> {
+                long fileStart = System.currentTimeMillis();
+                boolean success = true;
+                boolean cached = false;
+                String hash = null;
+                ParsedWorkbook workbook = null;
+                try {
+                    hash = ParseCacheFactory.hash(source.openStream());
+                    workbook = parseCache.get(hash);
+                    cached = workbook != null;
+                } catch (IOException e) {
+                    log.warn("计算文件摘要失败，跳过解析缓存: {}", source.getName());
+                }
+                if (!cached) {
+                    ExcelParser parser = new ExcelParser(source, internPool);
+                    try {
+                        log.info("开始解析文件：{}", source.getName());
+                        parser.parse();
+                        log.info("文件解析完成：{}", source.getName());
+                    } catch (Exception e) {
+                        success = false;
+                        log.error("解析异常: " + source.getName(), e);
+                    }
+                    // 解析中途出错的文件，已经读到的部分同样保留 (与顺序解析行为一致)，但不放入缓存
+                    // 姓名取自文件名时，内容相同的文件可能属于不同的人，缓存键只有内容摘要，同样不放入缓存
+                    workbook = parser.toWorkbook();
+                    if (success && hash != null && !parser.isNameFromFileName()) {
+                        parseCache.put(hash, workbook, System.currentTimeMillis() - fileStart);
+                    }
+                }
+                callback.accept(source.getIndex(), workbook,
+                        new FileParseStat(source.getName(), System.currentTimeMillis() - fileStart, success, cached));
+            });
+            fileCount = batch.size();
+        }
+        if (fileCount == 0) {
+            throw new ServiceException("压缩包内没有找到 Excel 文件");
+        }
+        return fileCount;
+    }
+
+    /**
+     * 解析相关缓存的命中统计
+     */
+    public List<CacheStats> cacheStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(weekCompiler.stats());
+        stats.add(parseCache.stats());
+        return stats;
+    }
+
+    private int resolveParallelism(Integer parallelism) {
+        int limit = maxParallelism > 0 ? maxParallelism : Runtime.getRuntime().availableProcessors();
+        if (parallelism == null || parallelism <= 0) return limit;
+        return Math.min(parallelism, limit);
+    }
+
     /**
      * 解析器内部类
+     * 每个文件一个实例，解析结果先存在自身字段里，由 analyze 统一合并
      */
     private class ExcelParser extends AnalysisEventListener<Map<Integer, String>> {
-        private final MultipartFile file;
-        private final Map<StudentInfo, StudentSchedule> scheduleMap;
-        private final int[] maxWeekRef;
+        private final WorkbookSource source;
+        // 本次分析共用的享元池 (相同单元格只解析一次、只保留一份对象)
+        private final InternPool internPool;
 
+        // 解析产出
         private StudentInfo currentStudent = null;
+        // 表头没有姓名，姓名取自文件名
+        private boolean nameFromFileName = false;
+        private final List<RawCourseItem> courses = new ArrayList<>();
+        private int maxWeek = 0;
+
         private Integer mondayColIndex = null;
         private Integer dataStartRowIndex = null;
 
-        public ExcelParser(MultipartFile file, Map<StudentInfo, StudentSchedule> scheduleMap, int[] maxWeekRef) {
-            this.file = file;
-            this.scheduleMap = scheduleMap;
-            this.maxWeekRef = maxWeekRef;
+        // 单元格扫描结果，整个文件复用同一个实例
+        private final CellTokenizer.Tokens tokens = new CellTokenizer.Tokens();
+
+        public ExcelParser(WorkbookSource source, InternPool internPool) {
+            this.source = source;
+            this.internPool = internPool;
         }
 
         public void parse() throws IOException {
-            EasyExcel.read(file.getInputStream(), this).sheet().doRead();
+            try {
+                EasyExcel.read(source.openStream(), this).sheet().doRead();
+            } catch (ExcelAnalysisStopException e) {
+                // hasNext 返回 false 时的正常结束
+            }
+        }
+
+        /**
+         * 课表区块 (锚点后 10 行) 读完后立即停止读取
+         * 部分教务导出会在后面附加很长的备注，这些行不再解析，也不再分配行数据
+         */
+        @Override
+        public boolean hasNext(AnalysisContext context) {
+            return dataStartRowIndex == null || context.readRowHolder().getRowIndex() < dataStartRowIndex + 9;
+        }
+
+        public boolean isNameFromFileName() {
+            return nameFromFileName;
+        }
+
+        public ParsedWorkbook toWorkbook() {
+            return new ParsedWorkbook(currentStudent, Collections.unmodifiableList(courses), maxWeek);
         }
 
         @Override
@@ -109,8 +901,6 @@ public class CourseService {
                     if (val != null) rawTextBuilder.append(val).append(" ");
                 }
                 this.currentStudent = extractStudentInfo(rawTextBuilder.toString());
-                // 如果 Map 里还没有这个学生，初始化一个
-                scheduleMap.putIfAbsent(this.currentStudent, new StudentSchedule(this.currentStudent, new ArrayList<>()));
                 return;
             }
 
@@ -134,36 +924,21 @@ public class CourseService {
                     for (int dayOffset = 0; dayOffset < 7; dayOffset++) {
                         int actualColIndex = mondayColIndex + dayOffset;
                         String cellContent = rowData.get(actualColIndex);
+                        if (cellContent == null) continue;
 
-                        // 【修改点 1】解析详细信息，而不是只解析数字
-                        List<CourseDetail> details = parseDetailsFromCell(cellContent);
-
-                        // 【修改点 2】计算忙碌周次并集 (兼容旧逻辑，用于前端快速计算热力图)
-                        Set<Integer> busyWeekSet = new HashSet<>();
-                        for (CourseDetail d : details) {
-                            if (d.getWeeks() != null) {
-                                busyWeekSet.addAll(d.getWeeks());
-                            }
-                        }
-                        List<Integer> busyWeeks = new ArrayList<>(busyWeekSet);
+                        // 同一星期、同一节次、内容相同的单元格，所有学生共用同一个 RawCourseItem
+                        int day = dayOffset + 1;
+                        RawCourseItem item = internPool.sharedInSlot(day, slotIndex, cellContent,
+                                content -> buildCourseItem(day, slotIndex, content));
 
                         // 如果有忙碌周次，就记录下来
-                        if (!busyWeeks.isEmpty()) {
-                            // 更新全局最大周次
-                            for (Integer w : busyWeeks) {
-                                if (w > maxWeekRef[0]) maxWeekRef[0] = w;
-                            }
+                        if (!item.getBusyWeeks().isEmpty()) {
+                            // 更新本文件最大周次
+                            maxWeek = Math.max(maxWeek, item.getBusyWeeks().max());
 
                             // 存入当前学生的课表
                             if (this.currentStudent != null) {
-                                StudentSchedule schedule = scheduleMap.get(this.currentStudent);
-                                // 【修改点 3】构造 RawCourseItem，同时存入 busyWeeks 和 courseDetails
-                                RawCourseItem item = new RawCourseItem();
-                                item.setDay(dayOffset + 1);
-                                item.setSlot(slotIndex);
-                                item.setBusyWeeks(busyWeeks);      // 旧字段 (必须保留)
-                                item.setCourseDetails(details);    // 新字段 (本次新增)
-                                schedule.addCourse(item);
+                                courses.add(item);
                             }
                         }
                     }
@@ -175,147 +950,70 @@ public class CourseService {
         public void doAfterAllAnalysed(AnalysisContext context) {}
 
         /**
-         * 【核心升级】从单元格解析完整的课程详情
+         * 构造单元格对应的 RawCourseItem (结果会放入享元池共享，之后不可再修改)
          */
-        private List<CourseDetail> parseDetailsFromCell(String content) {
-            List<CourseDetail> details = new ArrayList<>();
-            // 判空逻辑
-            if (content == null || content.trim().length() <= 1) return details;
-            if (content.contains("无课") || content.contains("时间段空闲")) return details;
-
-            // 1. 切割课程：使用 "……" (至少两个) 作为分隔符
-            // 你的示例中是 "………………"，这里用正则兼容不同长度的省略号
-            String[] courseBlocks = content.split("…{2,}");
-
-            for (String block : courseBlocks) {
-                if (block.trim().isEmpty()) continue;
-
-                // 2. 按行切割 (提取三行信息)
-                String[] lines = block.trim().split("\n");
-                List<String> validLines = new ArrayList<>();
-                for (String line : lines) {
-                    if (line.trim().length() > 0) validLines.add(line.trim());
-                }
+        private RawCourseItem buildCourseItem(int day, int slot, String content) {
+            // 【修改点 1】解析详细信息，而不是只解析数字 (与节次无关，不同节次的相同内容也共享)
+            List<CourseDetail> details = internPool.shared(content, this::parseDetailsFromCell);
 
-                if (validLines.isEmpty()) continue;
+            // 【修改点 2】计算忙碌周次并集 (兼容旧逻辑，用于前端快速计算热力图)
+            WeekSet.Builder busyBuilder = new WeekSet.Builder();
+            for (CourseDetail d : details) {
+                busyBuilder.addAll(d.getWeeks());
+            }
 
-                CourseDetail detail = new CourseDetail();
+            // 【修改点 3】构造 RawCourseItem，同时存入 busyWeeks 和 courseDetails
+            return new RawCourseItem(day, slot, busyBuilder.build(), details);
+        }
 
+        /**
+         * 【核心升级】从单元格解析完整的课程详情
+         * 切分规则见 CellTokenizer：课程之间 "……" 分隔，每门课依次为 课程名 / 教师【周次】 / 地点
+         */
+        private List<CourseDetail> parseDetailsFromCell(String content) {
+            int count = CellTokenizer.tokenize(content, tokens);
+            if (count == 0) return Collections.emptyList();
+            List<CourseDetail> details = new ArrayList<>(count);
+
+            for (int k = 0; k < count; k++) {
                 // 第一行：课程名
-                detail.setName(validLines.get(0));
-
-                // 第二行：教师 + 周次 (例如：杜洪霞【2-6,8周】)
-                if (validLines.size() > 1) {
-                    String line2 = validLines.get(1);
-                    // 正则：任意字符(Group1:老师) + 【 + 内容(Group2:周次) + 周/】
-                    // 示例：杜洪霞【2-6,8周】
-                    // 【修复】正则改为严格匹配方括号内部的所有内容
-                    // ^(.*?): 教师姓名
-                    // [【\\[]: 左括号
-                    // (.*?): 核心周次内容 (可能包含"周")
-                    // [】\\]]$: 右括号结尾
-                    Pattern p = Pattern.compile("^(.*?)[【\\[](.*?)[】\\]]$");
-                    Matcher m = p.matcher(line2);
-                    if (m.find()) {
-                        detail.setTeacher(m.group(1).trim());
-                        String weekStrRaw = m.group(2).trim();
-                        String weekStrClean = weekStrRaw.replaceAll("周", "");
-                        detail.setRawWeekStr(weekStrRaw.endsWith("周") ? weekStrRaw : weekStrRaw + "周"); // 修正展示文本，避免"周周"
-                        detail.setWeeks(expandWeeks(weekStrClean)); // 传入干净的数字字符串
-                    } else {
-                        // 格式不匹配兜底
-                        detail.setTeacher(line2);
-                        detail.setWeeks(new ArrayList<>());
-                    }
-                } else {
-                    detail.setWeeks(new ArrayList<>());
+                String name = internPool.intern(tokens.name(content, k));
+
+                // 第二行：教师 + 周次 (例如：杜洪霞【2-6,8周】)，格式不匹配时整行视为教师
+                String teacher = internPool.intern(tokens.teacher(content, k));
+                String weekStrRaw = tokens.weeks(content, k);
+                String rawWeekStr = null;
+                WeekSet weeks = WeekSet.EMPTY;
+                if (weekStrRaw != null) {
+                    rawWeekStr = internPool.intern(weekStrRaw.endsWith("周") ? weekStrRaw : weekStrRaw + "周"); // 修正展示文本，避免"周周"
+                    weeks = weekCompiler.compile(weekStrRaw); // 相同的周次表达式只编译一次
                 }
 
                 // 第三行：地点
-                if (validLines.size() > 2) {
-                    detail.setLocation(validLines.get(2));
-                } else {
-                    detail.setLocation("未知地点");
-                }
+                String location = tokens.location(content, k);
+                location = location != null ? internPool.intern(location) : "未知地点";
 
-                details.add(detail);
+                details.add(new CourseDetail(name, teacher, location, rawWeekStr, weeks));
             }
-            return details;
+            return Collections.unmodifiableList(details);
         }
 
-        /**
-         * 展开周次 (支持逗号、连字符、单双周)
-         * 输入: "3-5(单),8-10,16-18(双)"
-         * 输出: [3, 5, 8, 9, 10, 16, 18]
-         */
-        private List<Integer> expandWeeks(String weekStr) {
-            List<Integer> list = new ArrayList<>();
-            if (weekStr == null || weekStr.isEmpty()) return list;
-
-            // 1. 先按逗号切割
-            String[] parts = weekStr.split("[,，]");
-            for (String part : parts) {
-                try {
-                    part = part.trim();
-                    if (part.isEmpty()) continue;
-
-                    // 【新增】检测单双周标记 (兼容中英文括号)
-                    boolean isOdd = part.contains("(单)") || part.contains("（单）");
-                    boolean isEven = part.contains("(双)") || part.contains("（双）");
-
-                    // 【新增】清理非数字字符，保留数字和连字符 (移除 (单), (双) 等)
-                    // 这一步会把 "3-5(单)" 变成 "3-5"
-                    String cleanPart = part.replaceAll("[\\(（][单双][\\)）]", "").trim();
-
-                    if (cleanPart.contains("-")) {
-                        // 2. 处理连字符范围 "3-5"
-                        String[] range = cleanPart.split("-");
-                        if (range.length >= 2) {
-                            int start = Integer.parseInt(range[0].trim());
-                            int end = Integer.parseInt(range[1].trim());
-                            for (int i = start; i <= end; i++) {
-                                // 【新增】根据单双周标记过滤
-                                if (isOdd) {
-                                    if (i % 2 != 0) list.add(i);
-                                } else if (isEven) {
-                                    if (i % 2 == 0) list.add(i);
-                                } else {
-                                    list.add(i); // 无标记，全部添加
-                                }
-                            }
-                        }
-                    } else {
-                        // 3. 处理单个数字 "8"
-                        int val = Integer.parseInt(cleanPart.trim());
-                        // 单个数字通常不带单双标记，但为了严谨也加上判断
-                        if (isOdd) {
-                            if (val % 2 != 0) list.add(val);
-                        } else if (isEven) {
-                            if (val % 2 == 0) list.add(val);
-                        } else {
-                            list.add(val);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("周次片段解析异常: " + part + " in " + weekStr);
-                }
-            }
-            return list;
-        }
         private StudentInfo extractStudentInfo(String text) {
             StudentInfo info = new StudentInfo();
             String cleanText = text.replaceAll("：", ":").replaceAll("\\s+", " ");
             info.setName(getValueByRegex(cleanText, "姓名:(\\S+)"));
-            info.setGrade(getValueByRegex(cleanText, "年级:(\\S+)"));
-            info.setCollege(getValueByRegex(cleanText, "院系:(\\S+)"));
-            info.setMajor(getValueByRegex(cleanText, "专业:(\\S+)"));
+            // 学院/专业/年级在同一批文件中高度重复，只保留一份字符串
+            info.setGrade(internPool.intern(getValueByRegex(cleanText, "年级:(\\S+)")));
+            info.setCollege(internPool.intern(getValueByRegex(cleanText, "院系:(\\S+)")));
+            info.setMajor(internPool.intern(getValueByRegex(cleanText, "专业:(\\S+)")));
             String explicitCode = getValueByRegex(cleanText, "学号[:：](\\w+)");
             info.setCode(explicitCode != null ? explicitCode : "");
             info.setClassName("");
             if (info.getName() == null) {
-                String filename = file.getOriginalFilename();
+                String filename = source.getName();
                 if (filename != null && filename.contains(".")) {
                     info.setName(filename.substring(0, filename.lastIndexOf(".")));
+                    nameFromFileName = true;
                 } else {
                     info.setName("未知同学");
                 }
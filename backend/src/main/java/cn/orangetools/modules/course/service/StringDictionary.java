@@ -0,0 +1,55 @@
+package cn.orangetools.modules.course.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file StringDictionary
+ * @date 2026/10/18 20:50
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 字符串字典：相同字符串只保存一次，其余地方引用下标，null 对应下标 -1
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    void add(String... values) {
+        for (String value : values) {
+            intern(value);
+        }
+    }
+
+    /**
+     * 返回字符串的下标，不存在时先加入字典
+     */
+    int intern(String value) {
+        if (value == null) return -1;
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * 已加入字典的字符串的下标
+     */
+    int id(String value) {
+        return value == null ? -1 : ids.get(value);
+    }
+
+    List<String> strings() {
+        return strings;
+    }
+}
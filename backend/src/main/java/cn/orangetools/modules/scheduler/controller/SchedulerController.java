@@ -1,7 +1,9 @@
 package cn.orangetools.modules.scheduler.controller;
 import cn.orangetools.common.result.Result;
+import cn.orangetools.common.timetable.CacheStats;
 import cn.orangetools.modules.scheduler.dto.AutoScheduleRequest;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.SchedulerParseResultDTO;
 import cn.orangetools.modules.scheduler.dto.SchedulerStudentDTO;
 import cn.orangetools.modules.scheduler.service.SchedulerService;
 import lombok.extern.slf4j.Slf4j;
@@ -65,6 +67,33 @@ public class SchedulerController {
         }
     }
 
+    /**
+     * 2. 批量解析 Excel 课表文件 (容错模式)
+     * <p>
+     * 与 /parse 相同，但单个文件失败不会中断整个批次：
+     * 返回按上传顺序排列的成功数据，以及失败文件的错误列表。
+     * </p>
+     *
+     * @param files 上传的 Excel 文件数组
+     * @return 解析结果 (学生数据 + 错误列表)
+     */
+    @PostMapping("/parse-batch")
+    public Result<SchedulerParseResultDTO> parseFilesBatch(@RequestParam("files") MultipartFile[] files) {
+        log.info("scheduler-开始批量解析课表文件，数量：{}", files.length);
+        SchedulerParseResultDTO data = schedulerService.parseFilesBatch(files);
+        log.info("scheduler-批量解析完成，成功 {} 名，失败 {} 个文件", data.getStudents().size(), data.getErrors().size());
+        return Result.success(data);
+    }
+
+    /**
+     * 解析缓存命中统计 (运维监控用)
+     * @return 各缓存的命中/未命中次数，解析缓存额外包含节省的解析耗时
+     */
+    @GetMapping("/cache-stats")
+    public Result<List<CacheStats>> cacheStats() {
+        return Result.success(schedulerService.cacheStats());
+    }
+
     @PostMapping("/auto-generate")
     public Result autoGenerate(@RequestBody AutoScheduleRequest request) {
         log.info("scheduler-收到自动排班请求，策略：{}，学生人数：{}，需求时段数：{}", 
@@ -14,7 +14,7 @@ import java.util.List;
  */
 @Data
 public class AutoScheduleRequest {
-    // 策略名称: "GREEDY_BALANCE", "CONSECUTIVE", "RANDOM"
+    // 策略名称: "GREEDY_BALANCE", "CONSECUTIVE", "RANDOM", "HUNGARIAN", "MIN_COST_FLOW", "ANNEALING"
     private String strategy;
 
     // 全局约束
@@ -26,4 +26,10 @@ public class AutoScheduleRequest {
 
     // 学生候选人池
     private List<StudentCandidate> students;
+
+    // 随机种子 (可选)：相同的种子和输入得到相同的排班结果
+    private Long seed;
+
+    // 最长搜索时间 (可选，毫秒)：HUNGARIAN、ANNEALING 等搜索类策略到时间后返回当前最优解
+    private Long timeBudgetMs;
 }
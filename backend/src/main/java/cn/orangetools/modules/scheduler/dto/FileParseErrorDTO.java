@@ -0,0 +1,43 @@
+package cn.orangetools.modules.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file FileParseErrorDTO
+ * @date 2026/10/18 11:03
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+/**
+ * 排班助手 - 单个文件解析失败信息
+ *
+ * @author YuHeng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileParseErrorDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文件在本次上传中的序号 (从 0 开始)
+     */
+    private Integer index;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
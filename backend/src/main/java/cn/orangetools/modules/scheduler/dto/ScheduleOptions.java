@@ -0,0 +1,36 @@
+package cn.orangetools.modules.scheduler.dto;
+
+import lombok.Data;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ScheduleOptions
+ * @date 2026/10/18 23:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 排班算法的可选参数 (来自 AutoScheduleRequest，不需要的策略可以忽略)
+ */
+@Data
+public class ScheduleOptions {
+
+    // 随机种子，为空表示每次运行结果不同
+    private Long seed;
+
+    // 最长搜索时间 (毫秒)，为空时使用服务端配置的默认值，只对迭代搜索类策略有效
+    private Long timeBudgetMs;
+
+    /**
+     * 单线程使用的随机数生成器：指定了种子时结果可复现
+     */
+    public RandomGenerator newRandom() {
+        return seed != null ? new SplittableRandom(seed) : ThreadLocalRandom.current();
+    }
+}
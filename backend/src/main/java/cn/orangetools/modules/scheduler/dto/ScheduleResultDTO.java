@@ -23,4 +23,17 @@ public class ScheduleResultDTO {
 
     // 总需求人数 (用于计算覆盖率)
     private Integer totalNeeds;
+
+    // 以下为搜索类策略 (HUNGARIAN、ANNEALING) 的运行统计，其他策略为空
+    // 迭代次数 (随机重启次数或局部搜索的移动次数)
+    private Long iterations;
+
+    // 被接受的移动占比 (仅局部搜索)
+    private Double acceptanceRate;
+
+    // 最优解的负载方差 (越低越公平)
+    private Double bestScore;
+
+    // 算法耗时 (毫秒)
+    private Long costMs;
 }
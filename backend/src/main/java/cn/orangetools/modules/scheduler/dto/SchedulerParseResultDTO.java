@@ -0,0 +1,45 @@
+package cn.orangetools.modules.scheduler.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SchedulerParseResultDTO
+ * @date 2026/10/18 11:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+/**
+ * 排班助手 - 批量解析结果
+ * <p>
+ * 部分文件解析失败时不再整体中断：成功的学生按上传顺序放在 students 中，
+ * 失败的文件及原因放在 errors 中，由前端提示用户。
+ * </p>
+ *
+ * @author YuHeng
+ */
+@Data
+public class SchedulerParseResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 上传的文件总数
+     */
+    private Integer totalFiles;
+
+    /**
+     * 解析成功的学生数据 (保持上传顺序)
+     */
+    private List<SchedulerStudentDTO> students = new ArrayList<>();
+
+    /**
+     * 解析失败的文件列表
+     */
+    private List<FileParseErrorDTO> errors = new ArrayList<>();
+}
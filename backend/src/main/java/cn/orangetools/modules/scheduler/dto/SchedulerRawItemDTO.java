@@ -1,11 +1,13 @@
 package cn.orangetools.modules.scheduler.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import cn.orangetools.common.timetable.WeekSet;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * @author YuHeng
@@ -21,12 +23,16 @@ import java.util.List;
  * 对应 Excel 中解析出的每一个“课程块”。
  * 一个单元格如果包含多门课（用省略号分隔），会被拆分成多个此对象。
  * </p>
+ * <p>
+ * 不可变：同一批文件里相同的格子由 InternPool 在学生之间共享，解析缓存也会跨请求共享同一个对象，
+ * 所以没有 setter。需要改动时请新建对象。
+ * </p>
  *
  * @author YuHeng
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
 public class SchedulerRawItemDTO implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -34,29 +40,42 @@ public class SchedulerRawItemDTO implements Serializable {
     /**
      * 星期几 (1=周一, 7=周日)
      */
-    private Integer day;
+    private final Integer day;
 
     /**
      * 节次 (1-10)
      */
-    private Integer section;
+    private final Integer section;
 
     /**
      * 课程名称
      * (新增字段：用于前端手动排班时，提示具体的冲突原因，如"高等数学")
      */
-    private String courseName;
+    private final String courseName;
 
     /**
      * 上课地点
      * (可选字段：辅助决策，如"明华楼301")
      */
-    private String location;
+    private final String location;
 
     /**
-     * 忙碌的周次列表
-     * (例如：[1, 2, 3, 4, 8, 9])
-     * 前端根据此列表 + 用户选择的"当前周"，判断该时段是否冲突。
+     * 忙碌的周次集合
+     * (默认序列化为位图数字，第 w 位为 1 表示第 w 周有课；开启兼容开关后为 [1, 2, 3, 4, 8, 9])
+     * 前端根据此集合 + 用户选择的"当前周"，判断该时段是否冲突。
      */
-    private List<Integer> busyWeeks;
+    private final WeekSet busyWeeks;
+
+    @JsonCreator
+    public SchedulerRawItemDTO(@JsonProperty("day") Integer day,
+                               @JsonProperty("section") Integer section,
+                               @JsonProperty("courseName") String courseName,
+                               @JsonProperty("location") String location,
+                               @JsonProperty("busyWeeks") WeekSet busyWeeks) {
+        this.day = day;
+        this.section = section;
+        this.courseName = courseName;
+        this.location = location;
+        this.busyWeeks = busyWeeks;
+    }
 }
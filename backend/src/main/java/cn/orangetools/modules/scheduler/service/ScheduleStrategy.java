@@ -1,5 +1,6 @@
 package cn.orangetools.modules.scheduler.service;
 
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
 import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
 import cn.orangetools.modules.scheduler.dto.StudentCandidate;
@@ -23,4 +24,13 @@ public interface ScheduleStrategy {
      * @return 排班结果对象
      */
     ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek);
+
+    /**
+     * 带可选参数执行排班算法，默认忽略参数
+     * @param options 随机种子、时间上限等
+     */
+    default ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements,
+                                      int maxPerWeek, ScheduleOptions options) {
+        return execute(students, requirements, maxPerWeek);
+    }
 }
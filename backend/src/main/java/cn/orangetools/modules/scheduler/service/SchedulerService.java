@@ -1,23 +1,38 @@
 package cn.orangetools.modules.scheduler.service;
 
 import cn.orangetools.common.exception.ServiceException;
-import cn.orangetools.modules.scheduler.dto.AutoScheduleRequest;
-import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
-import cn.orangetools.modules.scheduler.dto.SchedulerRawItemDTO;
-import cn.orangetools.modules.scheduler.dto.SchedulerStudentDTO;
+import cn.orangetools.common.timetable.CacheStats;
+import cn.orangetools.common.timetable.CellTokenizer;
+import cn.orangetools.common.timetable.InternPool;
+import cn.orangetools.common.timetable.ParseCache;
+import cn.orangetools.common.timetable.ParseCacheFactory;
+import cn.orangetools.common.timetable.WeekExpressionCompiler;
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.common.timetable.WorkbookBatch;
+import cn.orangetools.common.timetable.WorkbookSource;
+import cn.orangetools.common.timetable.ZipWorkbookReader;
+import cn.orangetools.common.utils.ParallelTasks;
+import cn.orangetools.modules.scheduler.dto.*;
 import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.exception.ExcelAnalysisStopException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,51 +61,211 @@ public class SchedulerService {
     @Autowired
     private ScheduleStrategyFactory strategyFactory;
 
+    @Autowired
+    private WeekExpressionCompiler weekCompiler;
+
+    @Autowired
+    @Qualifier("timetableParseExecutor")
+    private ExecutorService parseExecutor;
+
+    /**
+     * 单个请求允许的最大并行度，0 表示使用 CPU 核数
+     */
+    @Value("${orange-tools.parse.max-parallelism:0}")
+    private int maxParallelism;
+
+    @Autowired
+    private ParseCacheFactory parseCacheFactory;
+
+    @Autowired
+    private ZipWorkbookReader zipReader;
+
+    // 按文件内容寻址的解析结果缓存 (相同文件再次上传时跳过 EasyExcel)
+    private ParseCache<SchedulerStudentDTO> parseCache;
+
+    @PostConstruct
+    public void initParseCache() {
+        // 结构变化时修改版本号，使旧的 Redis 缓存失效
+        parseCache = parseCacheFactory.create("scheduler-v1", SchedulerStudentDTO.class);
+    }
+
+    /**
+     * 解析文件 (严格模式)
+     * <p>
+     * 文件并行解析，但任意一个文件失败都会整体报错 (按上传顺序报告第一个失败的文件)。
+     * </p>
+     */
     public List<SchedulerStudentDTO> parseFiles(MultipartFile[] files) {
+        checkFiles(files);
         log.info("开始处理文件解析任务，文件数：{}", files.length);
+
+        List<ParseOutcome> outcomes = parseAll(files);
+
+        List<SchedulerStudentDTO> resultList = new ArrayList<>();
+        for (ParseOutcome outcome : outcomes) {
+            if (outcome.error != null) {
+                throw new ServiceException(outcome.error);
+            }
+            if (outcome.student != null) {
+                resultList.add(outcome.student);
+            }
+        }
+        log.info("所有文件解析完成，共获取 {} 条记录", resultList.size());
+        return resultList;
+    }
+
+    /**
+     * 解析文件 (批量容错模式)
+     * <p>
+     * 文件并行解析，单个文件失败不影响其他文件：
+     * 成功的学生按上传顺序返回，失败的文件汇总到 errors 中。
+     * </p>
+     */
+    public SchedulerParseResultDTO parseFilesBatch(MultipartFile[] files) {
+        checkFiles(files);
+        log.info("开始处理批量解析任务，文件数：{}", files.length);
+
+        List<ParseOutcome> outcomes = parseAll(files);
+
+        SchedulerParseResultDTO result = new SchedulerParseResultDTO();
+        result.setTotalFiles(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            ParseOutcome outcome = outcomes.get(i);
+            if (outcome.error != null) {
+                result.getErrors().add(new FileParseErrorDTO(i, outcome.fileName, outcome.error));
+            } else if (outcome.student != null) {
+                result.getStudents().add(outcome.student);
+            }
+        }
+        log.info("批量解析完成，成功 {} 条，失败 {} 个文件", result.getStudents().size(), result.getErrors().size());
+        return result;
+    }
+
+    private void checkFiles(MultipartFile[] files) {
         if (files == null || files.length == 0) {
             log.warn("文件解析失败：未上传文件");
             throw new ServiceException("请至少上传一个 Excel 文件");
         }
+    }
 
-        List<SchedulerStudentDTO> resultList = new ArrayList<>();
+    /**
+     * 并行解析所有文件 (上传单个 ZIP 时解析其中的每个 Excel)
+     * @return 每个文件的解析结果，与上传顺序 / 压缩包内顺序一一对应
+     */
+    private List<ParseOutcome> parseAll(MultipartFile[] files) {
+        int threads = maxParallelism > 0 ? maxParallelism : Runtime.getRuntime().availableProcessors();
+        // 本批文件共用的享元池：相同的单元格、院系、专业等只保留一份对象
+        InternPool internPool = new InternPool();
+        Map<Integer, ParseOutcome> outcomes = new ConcurrentHashMap<>();
+        int fileCount;
+        try (WorkbookBatch batch = zipReader.open(files)) {
+            ParallelTasks.drain(parseExecutor, threads, batch::next,
+                    source -> outcomes.put(source.getIndex(), parseOne(source, internPool)));
+            fileCount = batch.size();
+        }
+        if (fileCount == 0) {
+            throw new ServiceException("压缩包内没有找到 Excel 文件");
+        }
+        List<ParseOutcome> ordered = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            ordered.add(outcomes.get(i));
+        }
+        return ordered;
+    }
 
-        for (MultipartFile file : files) {
+    private ParseOutcome parseOne(WorkbookSource source, InternPool internPool) {
+        ParseOutcome outcome = new ParseOutcome(source.getName());
+        try {
+            long fileStart = System.currentTimeMillis();
+            String hash = ParseCacheFactory.hash(source.openStream());
+            SchedulerStudentDTO cached = parseCache.get(hash);
+            if (cached != null) {
+                log.info("文件命中解析缓存：{}", source.getName());
+                outcome.student = copyWithNewId(cached);
+                return outcome;
+            }
+            log.info("正在解析文件：{}", source.getName());
+            SchedulerExcelParser parser = new SchedulerExcelParser(weekCompiler, internPool);
             try {
-                log.info("正在解析文件：{}", file.getOriginalFilename());
-                SchedulerExcelParser parser = new SchedulerExcelParser();
-                EasyExcel.read(file.getInputStream(), parser).sheet().doRead();
-
-                if (parser.getStudentDTO() != null) {
-                    resultList.add(parser.getStudentDTO());
-                }
-                log.info("文件解析成功：{}", file.getOriginalFilename());
-            } catch (IOException e) {
-                log.error("文件流读取失败: {}", file.getOriginalFilename(), e);
-                throw new ServiceException("文件读取失败：" + file.getOriginalFilename());
-            } catch (Exception e) {
-                log.error("Excel解析异常: {}", file.getOriginalFilename(), e);
-                throw new ServiceException("解析异常(" + file.getOriginalFilename() + "): " + e.getMessage());
+                EasyExcel.read(source.openStream(), parser).sheet().doRead();
+            } catch (ExcelAnalysisStopException e) {
+                // 课表区块读完，提前结束 (见 SchedulerExcelParser.hasNext)
             }
+            outcome.student = parser.getStudentDTO();
+            if (outcome.student != null) {
+                // 缓存里放一份独立的副本，避免与本次返回的对象共用 id
+                parseCache.put(hash, copyWithNewId(outcome.student), System.currentTimeMillis() - fileStart);
+            }
+            log.info("文件解析成功：{}", source.getName());
+        } catch (IOException e) {
+            log.error("文件流读取失败: {}", source.getName(), e);
+            outcome.error = "文件读取失败：" + source.getName();
+        } catch (Exception e) {
+            log.error("Excel解析异常: {}", source.getName(), e);
+            outcome.error = "解析异常(" + source.getName() + "): " + e.getMessage();
         }
-        log.info("所有文件解析完成，共获取 {} 条记录", resultList.size());
-        return resultList;
+        return outcome;
+    }
+
+    /**
+     * 单个文件的解析结果：成功时 student 可能为空 (表头没有姓名)，失败时 error 不为空
+     */
+    private static class ParseOutcome {
+        private final String fileName;
+        private SchedulerStudentDTO student;
+        private String error;
+
+        ParseOutcome(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * 复制一份学生数据并生成新的 ID
+     * 同一个文件重复上传时，前端仍然需要互不相同的 key
+     * 课程单元不可变，只复制列表，元素直接共享
+     */
+    private SchedulerStudentDTO copyWithNewId(SchedulerStudentDTO source) {
+        SchedulerStudentDTO copy = new SchedulerStudentDTO();
+        copy.setId(UUID.randomUUID().toString().replace("-", ""));
+        copy.setName(source.getName());
+        copy.setGrade(source.getGrade());
+        copy.setCollege(source.getCollege());
+        copy.setMajor(source.getMajor());
+        copy.setScheduleRaw(source.getScheduleRaw() == null ? null : new ArrayList<>(source.getScheduleRaw()));
+        return copy;
+    }
+
+    /**
+     * 解析相关缓存的命中统计
+     */
+    public List<CacheStats> cacheStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(weekCompiler.stats());
+        stats.add(parseCache.stats());
+        return stats;
     }
 
     private static class SchedulerExcelParser extends AnalysisEventListener<Map<Integer, String>> {
-        // ... (保持内部类不变) ...
+        private final WeekExpressionCompiler weekCompiler;
+        private final InternPool internPool;
         private SchedulerStudentDTO studentDTO = new SchedulerStudentDTO();
 
         private Integer mondayColIndex = null;
         private Integer dataStartRowIndex = null;
 
+        // 单元格扫描结果，整个文件复用同一个实例
+        private final CellTokenizer.Tokens tokens = new CellTokenizer.Tokens();
+
         // --- 元数据正则 (严格匹配 Key[:：]Value 格式) ---
         private static final Pattern NAME_PATTERN = Pattern.compile("姓名[:：](\\S+)");
         private static final Pattern GRADE_PATTERN = Pattern.compile("年级[:：](\\S+)");
         private static final Pattern COLLEGE_PATTERN = Pattern.compile("院系[:：](\\S+)");
         private static final Pattern MAJOR_PATTERN = Pattern.compile("专业[:：](\\S+)");
 
-        public SchedulerExcelParser() {
+        public SchedulerExcelParser(WeekExpressionCompiler weekCompiler, InternPool internPool) {
+            this.weekCompiler = weekCompiler;
+            this.internPool = internPool;
             // 初始化时生成唯一 ID，确保前端 key 不为空且唯一
             studentDTO.setId(UUID.randomUUID().toString().replace("-", ""));
         }
@@ -129,6 +304,14 @@ public class SchedulerService {
         @Override
         public void doAfterAllAnalysed(AnalysisContext context) {}
 
+        /**
+         * 第 10 节读完即可停止，表头在锚点之前，已经全部读过
+         */
+        @Override
+        public boolean hasNext(AnalysisContext context) {
+            return dataStartRowIndex == null || context.readRowHolder().getRowIndex() < dataStartRowIndex + 9;
+        }
+
         /**
          * 解析第三行的学生元数据
          */
@@ -145,15 +328,15 @@ public class SchedulerService {
             }
             if (studentDTO.getGrade() == null) {
                 Matcher gradeM = GRADE_PATTERN.matcher(rawText);
-                if (gradeM.find()) studentDTO.setGrade(gradeM.group(1).trim());
+                if (gradeM.find()) studentDTO.setGrade(internPool.intern(gradeM.group(1).trim()));
             }
             if (studentDTO.getCollege() == null) {
                 Matcher collegeM = COLLEGE_PATTERN.matcher(rawText);
-                if (collegeM.find()) studentDTO.setCollege(collegeM.group(1).trim());
+                if (collegeM.find()) studentDTO.setCollege(internPool.intern(collegeM.group(1).trim()));
             }
             if (studentDTO.getMajor() == null) {
                 Matcher majorM = MAJOR_PATTERN.matcher(rawText);
-                if (majorM.find()) studentDTO.setMajor(majorM.group(1).trim());
+                if (majorM.find()) studentDTO.setMajor(internPool.intern(majorM.group(1).trim()));
             }
         }
 
@@ -163,9 +346,12 @@ public class SchedulerService {
             for (int dayOffset = 0; dayOffset < 7; dayOffset++) {
                 int colIndex = mondayColIndex + dayOffset;
                 String cellContent = rowData.get(colIndex);
+                if (cellContent == null) continue;
 
-                // 解析单元格内容
-                List<SchedulerRawItemDTO> items = parseCellContent(cellContent, dayOffset + 1, slot);
+                // 解析单元格内容 (同一星期、同一节次、内容相同的单元格，所有学生共用同一组课程项)
+                int day = dayOffset + 1;
+                List<SchedulerRawItemDTO> items = internPool.sharedInSlot(day, slot, cellContent,
+                        content -> parseCellContent(content, day, slot));
 
                 // 将解析出的课程项添加到 DTO
                 for (SchedulerRawItemDTO item : items) {
@@ -176,127 +362,33 @@ public class SchedulerService {
 
         /**
          * 【核心解析逻辑更新】
-         * 同步 CourseService 的解析规则：
+         * 与 CourseService 共用 CellTokenizer 的切分规则：
          * 1. 支持用 "……" 分隔多门课
          * 2. 第一行：课程名
          * 3. 第二行：教师 + 周次【xx周】
          * 4. 第三行：地点
          */
         private List<SchedulerRawItemDTO> parseCellContent(String content, int day, int slot) {
-            List<SchedulerRawItemDTO> result = new ArrayList<>();
-            if (content == null || content.trim().length() <= 1) return result;
-            if (content.contains("无课") || content.contains("时间段空闲")) return result;
-
-            // 1. 切割课程 (兼容不同长度的省略号)
-            String[] courseBlocks = content.split("…{2,}");
-
-            for (String block : courseBlocks) {
-                if (block.trim().isEmpty()) continue;
-
-                // 2. 按行切割，过滤空行
-                String[] rawLines = block.trim().split("\n");
-                List<String> lines = new ArrayList<>();
-                for (String l : rawLines) {
-                    if (l.trim().length() > 0) lines.add(l.trim());
-                }
-
-                if (lines.isEmpty()) continue;
-
-                SchedulerRawItemDTO item = new SchedulerRawItemDTO();
-                item.setDay(day);
-                item.setSection(slot);
+            int count = CellTokenizer.tokenize(content, tokens);
+            if (count == 0) return Collections.emptyList();
+            List<SchedulerRawItemDTO> result = new ArrayList<>(count);
 
+            for (int k = 0; k < count; k++) {
                 // Line 1: 课程名
-                item.setCourseName(lines.get(0));
-
-                // Line 2: 教师 + 周次
-                if (lines.size() > 1) {
-                    String line2 = lines.get(1);
-                    // 正则：匹配 方括号内的内容
-                    // 示例：杜洪霞【2-6,8周】
-                    Pattern p = Pattern.compile("^(.*?)[【\\[](.*?)[】\\]]$");
-                    Matcher m = p.matcher(line2);
-
-                    if (m.find()) {
-                        // m.group(1) 是教师名，SchedulerRawItemDTO 暂不需要存教师名，这里忽略
-                        String weekStrRaw = m.group(2).trim();
-                        // 移除 "周" 字，准备交给 expandWeeks 解析
-                        String weekStrClean = weekStrRaw.replaceAll("周", "");
-                        item.setBusyWeeks(expandWeeks(weekStrClean));
-                    } else {
-                        // 没匹配到，兜底策略 (设为空)
-                        item.setBusyWeeks(new ArrayList<>());
-                    }
-                } else {
-                    item.setBusyWeeks(new ArrayList<>());
-                }
-
-                // Line 3: 地点 (如有)
-                if (lines.size() > 2) {
-                    item.setLocation(lines.get(2));
-                }
+                String courseName = internPool.intern(tokens.name(content, k));
 
-                // 只有当解析出有效的忙碌周次（或者至少有课程名）时才添加
-                result.add(item);
-            }
-            return result;
-        }
+                // Line 2: 教师 + 周次 (教师名 SchedulerRawItemDTO 暂不需要，这里忽略)
+                String weekStrRaw = tokens.weeks(content, k);
+                // 交给共享的周次编译器 (自动去掉 "周" 字，相同表达式只编译一次)；没匹配到则设为空
+                WeekSet busyWeeks = weekStrRaw != null ? weekCompiler.compile(weekStrRaw) : WeekSet.EMPTY;
 
-        /**
-         * 【核心周次解析更新】
-         * 支持：逗号分隔、连字符范围、(单)/(双)周标记
-         */
-        private List<Integer> expandWeeks(String weekStr) {
-            List<Integer> list = new ArrayList<>();
-            if (weekStr == null || weekStr.isEmpty()) return list;
+                // Line 3: 地点 (如有)
+                String location = internPool.intern(tokens.location(content, k));
 
-            try {
-                // 1. 先按逗号切割
-                String[] parts = weekStr.split("[,，]");
-                for (String part : parts) {
-                    part = part.trim();
-                    if (part.isEmpty()) continue;
-
-                    // 【新增】检测单双周标记
-                    boolean isOdd = part.contains("(单)") || part.contains("（单）");
-                    boolean isEven = part.contains("(双)") || part.contains("（双）");
-
-                    // 【新增】清理非数字和连字符字符 (移除 (单), (双) 等)
-                    String cleanPart = part.replaceAll("[\\(（][单双][\\)）]", "").trim();
-
-                    if (cleanPart.contains("-")) {
-                        // 处理范围 "3-5"
-                        String[] range = cleanPart.split("-");
-                        if (range.length >= 2) {
-                            int start = Integer.parseInt(range[0].trim());
-                            int end = Integer.parseInt(range[1].trim());
-                            for (int i = start; i <= end; i++) {
-                                // 过滤单双周
-                                if (isOdd) {
-                                    if (i % 2 != 0) list.add(i);
-                                } else if (isEven) {
-                                    if (i % 2 == 0) list.add(i);
-                                } else {
-                                    list.add(i);
-                                }
-                            }
-                        }
-                    } else {
-                        // 处理单个数字 "8"
-                        int val = Integer.parseInt(cleanPart.trim());
-                        if (isOdd) {
-                            if (val % 2 != 0) list.add(val);
-                        } else if (isEven) {
-                            if (val % 2 == 0) list.add(val);
-                        } else {
-                            list.add(val);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("周次解析异常: " + weekStr);
+                result.add(new SchedulerRawItemDTO(day, slot, courseName, location, busyWeeks));
             }
-            return list;
+            // 结果会放入享元池被多个学生共享，之后不可再修改
+            return Collections.unmodifiableList(result);
         }
     }
 
@@ -306,10 +398,14 @@ public class SchedulerService {
         ScheduleStrategy strategy = strategyFactory.getStrategy(request.getStrategy());
 
         // 2. 执行算法
+        ScheduleOptions options = new ScheduleOptions();
+        options.setSeed(request.getSeed());
+        options.setTimeBudgetMs(request.getTimeBudgetMs());
         ScheduleResultDTO result = strategy.execute(
                 request.getStudents(),
                 request.getRequirements(),
-                request.getMaxPerWeek()
+                request.getMaxPerWeek(),
+                options
         );
         log.info("排班逻辑执行完成");
         return result;
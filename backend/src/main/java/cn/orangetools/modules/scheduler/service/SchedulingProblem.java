@@ -0,0 +1,305 @@
+package cn.orangetools.modules.scheduler.service;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SchedulingProblem
+ * @date 2026/10/18 23:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 编译后的排班问题，供各个 ScheduleStrategy 共用
+ * <p>
+ * 学生按输入顺序编号为 0 ~ n-1，需求里出现的时段 ("1_2" 这类 key) 编号为 0 ~ m-1。
+ * 每个学生的忙碌时段是一段 words 个 long 的位图，判断某个时段是否忙碌只需一次位运算，
+ * 不用再在 busySlots 列表里逐个比较字符串；只在需求里出现的时段才需要编号，其余忙碌时段直接忽略。
+ * </p>
+ * <p>
+ * 负载用 int[] 记录，下标是 loadIndex(学生)。原先负载按学生 id 记在 Map 里，
+ * id 相同的人选共用同一份负载，这里保持一致。
+ * </p>
+ */
+public final class SchedulingProblem {
+
+    private final List<StudentCandidate> students;
+    private final int maxPerWeek;
+    // 学生 -> 负载下标
+    private final int[] loadIndex;
+    private final int loadCount;
+    private final Map<String, Integer> slotIds;
+    private final String[] slotKeys;
+    // 学生 i 的位图为 busy[i * words, (i + 1) * words)
+    private final int words;
+    private final long[] busy;
+
+    private SchedulingProblem(List<StudentCandidate> students, int maxPerWeek, int[] loadIndex, int loadCount,
+                              Map<String, Integer> slotIds, String[] slotKeys, int words, long[] busy) {
+        this.students = students;
+        this.maxPerWeek = maxPerWeek;
+        this.loadIndex = loadIndex;
+        this.loadCount = loadCount;
+        this.slotIds = slotIds;
+        this.slotKeys = slotKeys;
+        this.words = words;
+        this.busy = busy;
+    }
+
+    public static SchedulingProblem compile(List<StudentCandidate> students, List<ScheduleRequirement> requirements,
+                                            int maxPerWeek) {
+        Map<String, Integer> slotIds = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (ScheduleRequirement req : requirements) {
+            String key = req.getKey();
+            if (slotIds.putIfAbsent(key, keys.size()) == null) {
+                keys.add(key);
+            }
+        }
+        int words = Math.max(1, (keys.size() + 63) >>> 6);
+
+        int n = students.size();
+        long[] busy = new long[n * words];
+        int[] loadIndex = new int[n];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            StudentCandidate s = students.get(i);
+            Integer id = ids.get(s.getId());
+            if (id == null) {
+                id = ids.size();
+                ids.put(s.getId(), id);
+            }
+            loadIndex[i] = id;
+            if (s.getBusySlots() == null) continue;
+            for (String key : s.getBusySlots()) {
+                Integer slot = slotIds.get(key);
+                if (slot != null) {
+                    busy[i * words + (slot >>> 6)] |= 1L << slot;
+                }
+            }
+        }
+        return new SchedulingProblem(students, maxPerWeek, loadIndex, ids.size(), slotIds,
+                keys.toArray(new String[0]), words, busy);
+    }
+
+    public int studentCount() {
+        return loadIndex.length;
+    }
+
+    public int slotCount() {
+        return slotKeys.length;
+    }
+
+    public int maxPerWeek() {
+        return maxPerWeek;
+    }
+
+    /**
+     * 负载数组的长度 (不同 id 的个数)
+     */
+    public int loadCount() {
+        return loadCount;
+    }
+
+    public int loadIndex(int student) {
+        return loadIndex[student];
+    }
+
+    public StudentCandidate student(int student) {
+        return students.get(student);
+    }
+
+    /**
+     * @return 时段编号，不是任何需求的时段时返回 -1
+     */
+    public int slotOf(String key) {
+        Integer slot = slotIds.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    public String slotKey(int slot) {
+        return slotKeys[slot];
+    }
+
+    public boolean isBusy(int student, int slot) {
+        return (busy[student * words + (slot >>> 6)] & (1L << slot)) != 0;
+    }
+
+    /**
+     * 按编号取出学生列表
+     */
+    public List<StudentCandidate> candidates(int[] picked, int len) {
+        List<StudentCandidate> list = new ArrayList<>(len);
+        for (int i = 0; i < len; i++) {
+            list.add(students.get(picked[i]));
+        }
+        return list;
+    }
+
+    /**
+     * 排班结果的负载方差 (越低越公平)
+     * <p>
+     * 与原先的计算方式相同：平方和按不同 id 累加，但分母是学生人数。
+     * </p>
+     * @param sum 所有人负载之和
+     * @param sumSq 按 id 统计的负载平方和
+     */
+    public double variance(long sum, long sumSq) {
+        double mean = (double) sum / students.size();
+        return (sumSq - 2 * mean * sum + loadCount * mean * mean) / students.size();
+    }
+
+    /**
+     * 每个时段的需求人数
+     * <p>
+     * 同一时段有多条需求时以最后一条为准，与其他策略中 solution 被后一条覆盖的结果一致。
+     * </p>
+     */
+    public int[] slotNeeds(List<ScheduleRequirement> requirements) {
+        int[] need = new int[slotKeys.length];
+        for (ScheduleRequirement req : requirements) {
+            need[slotOf(req.getKey())] = req.getCount();
+        }
+        return need;
+    }
+
+    /**
+     * 人数不足的提示，按需求顺序输出，同一时段只提示一次
+     * @param need slotNeeds 的结果
+     * @param assigned 每个时段实际排的人数
+     */
+    public List<String> shortageWarnings(List<ScheduleRequirement> requirements, int[] need, int[] assigned) {
+        List<String> warnings = new ArrayList<>();
+        boolean[] reported = new boolean[slotKeys.length];
+        // 倒序找每个时段的最后一条需求，再恢复顺序
+        for (int r = requirements.size() - 1; r >= 0; r--) {
+            ScheduleRequirement req = requirements.get(r);
+            int slot = slotOf(req.getKey());
+            if (reported[slot]) continue;
+            reported[slot] = true;
+            if (assigned[slot] < need[slot]) {
+                warnings.add(String.format("周%d-第%d节 需求%d人，实排%d人 (可用人力不足)",
+                        req.getDay(), req.getSection(), need[slot], assigned[slot]));
+            }
+        }
+        Collections.reverse(warnings);
+        return warnings;
+    }
+
+    public Workspace newWorkspace() {
+        return new Workspace();
+    }
+
+    /**
+     * 单线程使用的工作区，筛选、打乱、排序都在 candidates 上原地进行，避免每个需求都分配列表
+     */
+    public final class Workspace {
+
+        public final int[] candidates = new int[loadIndex.length];
+        private final int[] keys = new int[loadIndex.length];
+        private final int[] tmp = new int[loadIndex.length];
+        private int[] counts = new int[16];
+
+        private Workspace() {
+        }
+
+        /**
+         * 按输入顺序筛选出该时段不忙、负载未满的学生，放在 candidates 开头
+         * @return 人数
+         */
+        public int collect(int slot, int[] loads) {
+            int word = slot >>> 6;
+            long bit = 1L << slot;
+            int count = 0;
+            for (int s = 0, pos = word; s < loadIndex.length; s++, pos += words) {
+                if ((busy[pos] & bit) == 0 && loads[loadIndex[s]] < maxPerWeek) {
+                    candidates[count++] = s;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 打乱 candidates 的前 len 个
+         */
+        public void shuffle(int len, RandomGenerator random) {
+            for (int i = len - 1; i > 0; i--) {
+                swap(i, random.nextInt(i + 1));
+            }
+        }
+
+        /**
+         * 随机挑出 k 个放在开头，效果与整体打乱后取前 k 个相同
+         */
+        public void shufflePrefix(int len, int k, RandomGenerator random) {
+            int limit = Math.min(k, len - 1);
+            for (int i = 0; i < limit; i++) {
+                swap(i, i + random.nextInt(len - i));
+            }
+        }
+
+        /**
+         * 把 candidates[from, to) 按当前负载稳定排序 (计数排序，负载相同的保持原有顺序)
+         */
+        public void sortByLoad(int from, int to, int[] loads) {
+            if (to - from < 2) return;
+            int max = 0;
+            for (int i = from; i < to; i++) {
+                int key = loads[loadIndex[candidates[i]]];
+                keys[i] = key;
+                if (key > max) max = key;
+            }
+            if (counts.length < max + 2) {
+                counts = new int[max + 2];
+            }
+            Arrays.fill(counts, 0, max + 2, 0);
+            for (int i = from; i < to; i++) {
+                counts[keys[i] + 1]++;
+            }
+            for (int k = 1; k <= max + 1; k++) {
+                counts[k] += counts[k - 1];
+            }
+            for (int i = from; i < to; i++) {
+                tmp[from + counts[keys[i]]++] = candidates[i];
+            }
+            System.arraycopy(tmp, from, candidates, from, to - from);
+        }
+
+        /**
+         * 稳定划分：满足条件的学生排在前面，两部分内部保持原有顺序
+         * @return 满足条件的人数
+         */
+        public int partition(int len, IntPredicate first) {
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < len; i++) {
+                int s = candidates[i];
+                if (first.test(s)) {
+                    candidates[head++] = s;
+                } else {
+                    tmp[tail++] = s;
+                }
+            }
+            System.arraycopy(tmp, 0, candidates, head, tail);
+            return head;
+        }
+
+        private void swap(int i, int j) {
+            int t = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = t;
+        }
+    }
+}
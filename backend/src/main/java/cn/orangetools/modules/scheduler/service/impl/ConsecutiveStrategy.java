@@ -4,11 +4,11 @@ import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
 import cn.orangetools.modules.scheduler.dto.StudentCandidate;
 import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author YuHeng
@@ -28,8 +28,6 @@ public class ConsecutiveStrategy implements ScheduleStrategy {
         ScheduleResultDTO result = new ScheduleResultDTO();
         Map<String, List<StudentCandidate>> solution = new HashMap<>();
         List<String> warnings = new ArrayList<>();
-        Map<String, Integer> currentLoad = new HashMap<>();
-        for (StudentCandidate s : students) currentLoad.put(s.getId(), 0);
 
         // 1. 关键步骤：必须按时间顺序排序需求！
         // 这样处理第2节时，第1节的结果一定已经出来了
@@ -38,47 +36,52 @@ public class ConsecutiveStrategy implements ScheduleStrategy {
             return a.getSection() - b.getSection();
         });
 
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        SchedulingProblem.Workspace workspace = problem.newWorkspace();
+        int[] currentLoad = new int[problem.loadCount()];
+        // 每个时段当前的录取结果 (学生编号)，对应 solution 中的值
+        int[][] picksBySlot = new int[problem.slotCount()][];
+        // prevMark[负载下标] == round 表示这个人 (按 id) 排了上一节
+        int[] prevMark = new int[problem.loadCount()];
+        int round = 0;
+
         int totalNeeds = 0;
 
         for (ScheduleRequirement req : requirements) {
             String slotKey = req.getKey();
+            int slot = problem.slotOf(slotKey);
             int needCount = req.getCount();
             totalNeeds += needCount;
 
             // 获取上一节课的 key (简单逻辑：同一天，section - 1)
             // 这里可以根据你的 0, 11, 12, 13 做更复杂的映射，这里简化处理 ID 连续的情况
-            String prevSlotKey = req.getDay() + "_" + (req.getSection() - 1);
-            List<StudentCandidate> prevWorkers = solution.getOrDefault(prevSlotKey, Collections.emptyList());
-            Set<String> prevWorkerIds = prevWorkers.stream().map(StudentCandidate::getId).collect(Collectors.toSet());
+            int prevSlot = problem.slotOf(req.getDay() + "_" + (req.getSection() - 1));
+            round++;
+            if (prevSlot >= 0 && picksBySlot[prevSlot] != null) {
+                for (int s : picksBySlot[prevSlot]) prevMark[problem.loadIndex(s)] = round;
+            }
 
-            List<StudentCandidate> available = students.stream()
-                    .filter(s -> !s.getBusySlots().contains(slotKey) && currentLoad.get(s.getId()) < maxPerWeek)
-                    .collect(Collectors.toList());
+            int available = workspace.collect(slot, currentLoad);
 
             // 2. 核心逻辑：排序评分
-            available.sort((s1, s2) -> {
-                // 因子1：是否是连班 (权重最高)
-                boolean s1Consecutive = prevWorkerIds.contains(s1.getId());
-                boolean s2Consecutive = prevWorkerIds.contains(s2.getId());
-                if (s1Consecutive && !s2Consecutive) return -1; // s1 优先
-                if (!s1Consecutive && s2Consecutive) return 1;
-
-                // 因子2：负载均衡 (次要权重)
-                return currentLoad.get(s1.getId()) - currentLoad.get(s2.getId());
-            });
+            // 因子1：是否是连班 (权重最高)，连班的排在前面
+            final int current = round;
+            int consecutive = workspace.partition(available, s -> prevMark[problem.loadIndex(s)] == current);
+            // 因子2：负载均衡 (次要权重)
+            workspace.sortByLoad(0, consecutive, currentLoad);
+            workspace.sortByLoad(consecutive, available, currentLoad);
 
-            List<StudentCandidate> selected = new ArrayList<>();
-            if (available.size() < needCount) {
+            int take = needCount;
+            if (available < needCount) {
                 warnings.add("人力不足: " + slotKey);
-                selected.addAll(available);
-            } else {
-                selected.addAll(available.subList(0, needCount));
+                take = available;
             }
 
-            for (StudentCandidate s : selected) {
-                currentLoad.put(s.getId(), currentLoad.get(s.getId()) + 1);
+            for (int i = 0; i < take; i++) {
+                currentLoad[problem.loadIndex(workspace.candidates[i])]++;
             }
-            solution.put(slotKey, selected);
+            picksBySlot[slot] = Arrays.copyOf(workspace.candidates, take);
+            solution.put(slotKey, problem.candidates(workspace.candidates, take));
         }
 
         result.setSolution(solution);
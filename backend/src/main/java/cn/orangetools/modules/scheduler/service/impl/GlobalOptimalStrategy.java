@@ -1,13 +1,25 @@
 package cn.orangetools.modules.scheduler.service.impl;
 
+import cn.orangetools.common.utils.ParallelTasks;
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
 import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
 import cn.orangetools.modules.scheduler.dto.StudentCandidate;
 import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
 
 /**
  * @author YuHeng
@@ -21,111 +33,336 @@ import java.util.*;
 @Slf4j
 public class GlobalOptimalStrategy implements ScheduleStrategy {
 
-    // 迭代次数：次数越多越精确，但越慢。5000次通常在 100ms 内
+    // 迭代次数上限：次数越多越精确，但越慢。问题规模较大时由时间上限提前结束
     private static final int ITERATIONS = 5000;
 
+    // 剪枝时的相对容差：下界与方差的算法不同，留出浮点误差，避免误剪平局
+    private static final double PRUNE_EPSILON = 1e-9;
+
+    // 相邻迭代种子的间隔 (黄金分割常数，SplittableRandom 内部还会再混淆一次)
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    @Autowired
+    @Qualifier("scheduleSearchExecutor")
+    private ThreadPoolExecutor searchExecutor;
+
+    /**
+     * 请求未指定时的最长搜索时间 (毫秒)
+     */
+    @Value("${orange-tools.schedule.time-budget-ms:3000}")
+    private long defaultTimeBudgetMs = 3000;
+
+    /**
+     * 请求可指定的最长搜索时间上限 (毫秒)
+     */
+    @Value("${orange-tools.schedule.max-time-budget-ms:30000}")
+    private long maxTimeBudgetMs = 30000;
+
+    /**
+     * 是否按方差下界提前放弃不可能胜出的迭代 (关闭后结果不变，只是更慢，用于排查问题)
+     */
+    @Value("${orange-tools.schedule.prune:true}")
+    private boolean prune = true;
+
     @Override
     public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
-        log.info("策略执行开始：HUNGARIAN (GlobalOptimal)，学生人数：{}，需求项：{}，迭代次数：{}", students.size(), requirements.size(), ITERATIONS);
+        return execute(students, requirements, maxPerWeek, new ScheduleOptions());
+    }
 
-        ScheduleResultDTO bestResult = null;
-        double minVariance = Double.MAX_VALUE;
+    /**
+     * 多线程并行迭代，每个线程从共享计数器领取迭代序号
+     * <p>
+     * 第 i 次迭代的随机数只由 (种子, i) 决定，方差相同时取序号最小的解，
+     * 所以指定种子且没有触发时间上限时，结果与线程数、调度顺序无关，可以复现。
+     * 找到方差为 0 的解后，序号更大的迭代不再开始 (更小的仍会跑完，保证结果确定)。
+     * </p>
+     */
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek,
+                                     ScheduleOptions options) {
+        long budgetMs = options.getTimeBudgetMs() != null && options.getTimeBudgetMs() > 0
+                ? Math.min(options.getTimeBudgetMs(), maxTimeBudgetMs) : defaultTimeBudgetMs;
+        int workers = searchExecutor == null ? 1 : Math.min(searchExecutor.getMaximumPoolSize(), ITERATIONS);
+        log.info("策略执行开始：HUNGARIAN (GlobalOptimal)，学生人数：{}，需求项：{}，迭代次数上限：{}，时间上限：{}ms，线程数：{}",
+                students.size(), requirements.size(), ITERATIONS, budgetMs, workers);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        long baseSeed = options.getSeed() != null ? options.getSeed() : ThreadLocalRandom.current().nextLong();
+
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger limit = new AtomicInteger(ITERATIONS);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger pruned = new AtomicInteger();
+        AtomicReference<Best> best = new AtomicReference<>();
 
         // 疯狂迭代 N 次，寻找最公平的解
-        for (int i = 0; i < ITERATIONS; i++) {
-            // 每次迭代必须深拷贝一份数据，或者重新计算
-            ScheduleResultDTO currentResult = runRandomizedGreedy(students, requirements, maxPerWeek);
-
-            // 计算这个结果的“不公平度” (方差)
-            double variance = calculateVariance(currentResult.getSolution(), students);
-
-            // 擂台赛：谁方差小，谁就是当前的“最优解”
-            if (variance < minVariance) {
-                minVariance = variance;
-                bestResult = currentResult;
-                // 如果方差已经为0（绝对公平），直接提前结束
-                if (minVariance == 0.0) break;
+        ParallelTasks.forEach(searchExecutor, workers, workers, w -> {
+            Attempt attempt = new Attempt(problem, requirements);
+            int i;
+            while ((i = next.getAndIncrement()) < limit.get()) {
+                // 至少要有一个解；之后超时就停止
+                if (best.get() != null && System.nanoTime() - deadline > 0) break;
+                if (Thread.currentThread().isInterrupted()) break;
+                Best current = best.get();
+                double cutoff = !prune || current == null ? Double.POSITIVE_INFINITY
+                        : current.variance + PRUNE_EPSILON * (1 + current.variance);
+                if (!attempt.run(new SplittableRandom(baseSeed + i * SEED_STEP), cutoff)) {
+                    pruned.incrementAndGet();
+                    continue;
+                }
+
+                // 计算这个结果的“不公平度” (方差)
+                double variance = attempt.variance();
+                completed.incrementAndGet();
+                offer(best, i, variance, attempt);
+                // 如果方差已经为0（绝对公平），可以提前结束
+                if (variance == 0.0) limit.accumulateAndGet(i + 1, Math::min);
             }
+        });
+
+        Best winner = best.get();
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("策略执行结束：HUNGARIAN，完成迭代：{}，剪枝：{}，耗时：{}ms，最小方差：{}", completed.get(), pruned.get(),
+                costMs, winner == null ? null : winner.variance);
+        if (winner == null) return null;
+        ScheduleResultDTO result = winner.toResult(problem, requirements);
+        result.setIterations((long) completed.get() + pruned.get());
+        result.setBestScore(winner.variance);
+        result.setCostMs(costMs);
+        return result;
+    }
+
+    /**
+     * 擂台赛：谁方差小，谁就是当前的“最优解” (无锁，CAS 替换)
+     */
+    private static void offer(AtomicReference<Best> best, int iteration, double variance, Attempt attempt) {
+        Best current = best.get();
+        if (current != null && !current.worseThan(variance, iteration)) return;
+        Best candidate = new Best(iteration, variance, attempt);
+        while (!best.compareAndSet(current, candidate)) {
+            current = best.get();
+            if (current != null && !current.worseThan(variance, iteration)) return;
         }
-        log.info("策略执行结束：HUNGARIAN，最小方差：{}", minVariance);
-        return bestResult;
     }
 
     /**
-     * 执行一次随机化的分配
-     * (类似贪心，但每次人员顺序是随机的，避免因为 ID 排序导致 ID 靠前的人总是先被选中)
+     * 当前最优解 (创建后不再修改)
      */
-    private ScheduleResultDTO runRandomizedGreedy(List<StudentCandidate> students, List<ScheduleRequirement> reqs, int maxPerWeek) {
-        ScheduleResultDTO result = new ScheduleResultDTO();
-        Map<String, List<StudentCandidate>> solution = new HashMap<>();
-        List<String> warnings = new ArrayList<>();
-        Map<String, Integer> currentLoad = new HashMap<>();
-        for (StudentCandidate s : students) currentLoad.put(s.getId(), 0);
-
-        int totalNeeds = 0;
-
-        // 随机打乱需求处理顺序 (防止前面的日子总是抢占资源)
-        List<ScheduleRequirement> shuffledReqs = new ArrayList<>(reqs);
-        Collections.shuffle(shuffledReqs);
-
-        for (ScheduleRequirement req : shuffledReqs) {
-            String slotKey = req.getKey();
-            int needCount = req.getCount();
-            totalNeeds += needCount;
-
-            List<StudentCandidate> available = new ArrayList<>();
-            for(StudentCandidate s : students) {
-                if (!s.getBusySlots().contains(slotKey) && currentLoad.get(s.getId()) < maxPerWeek) {
-                    available.add(s);
-                }
-            }
+    private static final class Best {
+        final int iteration;
+        final double variance;
+        final int[] pickStart;
+        final int[] picked;
+        final int[] pickLen;
+        final int[] order;
+        final boolean[] shortage;
 
-            // 关键：完全随机选取，不看负载，纯靠大数定律去撞最优解
-            // 或者：也可以在这里加入一点贪心（优先选负载低的），结合随机性，效果更好
-            Collections.shuffle(available);
+        Best(int iteration, double variance, Attempt attempt) {
+            this.iteration = iteration;
+            this.variance = variance;
+            this.pickStart = attempt.pickStart;
+            this.picked = attempt.picked.clone();
+            this.pickLen = attempt.pickLen.clone();
+            this.order = attempt.order.clone();
+            this.shortage = attempt.shortage.clone();
+        }
 
-            // 这里我们采用“随机贪心”：先打乱，再稍微排个序(稍微增加点权重)，这样收敛更快
-            available.sort(Comparator.comparingInt(s -> currentLoad.get(s.getId())));
+        boolean worseThan(double otherVariance, int otherIteration) {
+            return otherVariance < variance || (otherVariance == variance && otherIteration < iteration);
+        }
 
-            List<StudentCandidate> selected = new ArrayList<>();
-            if (available.size() < needCount) {
-                warnings.add(String.format("周%d-第%d节 人力不足", req.getDay(), req.getSection()));
-                selected.addAll(available);
-            } else {
-                selected.addAll(available.subList(0, needCount));
+        ScheduleResultDTO toResult(SchedulingProblem problem, List<ScheduleRequirement> requirements) {
+            ScheduleResultDTO result = new ScheduleResultDTO();
+            Map<String, List<StudentCandidate>> solution = new HashMap<>();
+            for (int slot = 0; slot < pickLen.length; slot++) {
+                solution.put(problem.slotKey(slot), problem.candidates(
+                        Arrays.copyOfRange(picked, pickStart[slot], pickStart[slot] + pickLen[slot]), pickLen[slot]));
+            }
+            List<String> warnings = new ArrayList<>();
+            int totalNeeds = 0;
+            for (ScheduleRequirement req : requirements) {
+                totalNeeds += req.getCount();
             }
+            for (int i = 0; i < order.length; i++) {
+                if (shortage[i]) {
+                    ScheduleRequirement req = requirements.get(order[i]);
+                    warnings.add(String.format("周%d-第%d节 人力不足", req.getDay(), req.getSection()));
+                }
+            }
+            result.setSolution(solution);
+            result.setWarnings(warnings);
+            result.setTotalNeeds(totalNeeds);
+            return result;
+        }
+    }
+
+    /**
+     * 一次随机化的分配
+     * (类似贪心，但每次人员顺序是随机的，避免因为 ID 排序导致 ID 靠前的人总是先被选中)
+     * <p>
+     * 所有状态都放在可复用的数组里，每次迭代不再分配新的集合。
+     * 边分配边维护最终方案的负载之和、平方和以及负载直方图，每处理完一条需求就算一次最终方差的下界：
+     * 剩余时段最多再排 remaining 人次，按"先补负载最低的人" (注水) 分配时平方和最小；
+     * 方差在同一水位内是人次的凹函数，只需在各水位的端点取最小值。
+     * 下界已经超过当前最优解时，这次迭代不可能胜出，直接放弃。
+     * </p>
+     * <p>
+     * 同一时段有多条需求时方案只保留最后处理的那条，所以一个时段的人选要等它的需求全部处理完才计入。
+     * 负载 (loads) 仍按每次实际选人累加，筛选候选人的规则与原先一致。
+     * </p>
+     */
+    private static final class Attempt {
+        final SchedulingProblem problem;
+        final SchedulingProblem.Workspace workspace;
+        final int[] reqSlot;
+        final int[] reqNeed;
+        // 时段 slot 的人选为 picked[pickStart[slot], pickStart[slot] + pickLen[slot])
+        final int[] pickStart;
+        final int[] picked;
+        final int[] pickLen;
+        // 每个时段的需求条数，以及本次还没处理的条数
+        final int[] slotReqs;
+        final int[] slotLeft;
+        final int[] loads;
+        // 已定下的时段里每个 id 的班次数
+        final int[] counts;
+        // levels[c]：counts 为 c 的 id 个数
+        final int[] levels;
+        // 本次的需求处理顺序 (需求下标)
+        final int[] order;
+        // shortage[i]：第 i 个处理的需求人力不足
+        final boolean[] shortage;
+        // 注水的最高水位：id 不重复时每人不超过 maxPerWeek，否则只受总需求限制
+        final int cap;
+        final long totalNeeds;
+        long sum;
+        long sumSq;
 
-            for (StudentCandidate s : selected) {
-                currentLoad.put(s.getId(), currentLoad.get(s.getId()) + 1);
+        Attempt(SchedulingProblem problem, List<ScheduleRequirement> reqs) {
+            this.problem = problem;
+            this.workspace = problem.newWorkspace();
+            this.reqSlot = new int[reqs.size()];
+            this.reqNeed = new int[reqs.size()];
+            int m = problem.slotCount();
+            this.slotReqs = new int[m];
+            this.slotLeft = new int[m];
+            // 每个时段最多排多少人 (各条需求取大)，同时作为 picked 中的区间长度
+            int[] slotSize = new int[m];
+            for (int r = 0; r < reqs.size(); r++) {
+                ScheduleRequirement req = reqs.get(r);
+                int slot = problem.slotOf(req.getKey());
+                reqSlot[r] = slot;
+                reqNeed[r] = req.getCount();
+                slotReqs[slot]++;
+                slotSize[slot] = Math.max(slotSize[slot], reqNeed[r]);
+            }
+            this.pickStart = new int[m + 1];
+            for (int slot = 0; slot < m; slot++) {
+                pickStart[slot + 1] = pickStart[slot] + slotSize[slot];
             }
-            solution.put(slotKey, selected);
+            this.totalNeeds = pickStart[m];
+            this.picked = new int[pickStart[m]];
+            this.pickLen = new int[m];
+            this.loads = new int[problem.loadCount()];
+            this.counts = new int[problem.loadCount()];
+            this.order = new int[reqs.size()];
+            this.shortage = new boolean[reqs.size()];
+            boolean distinctIds = problem.loadCount() == problem.studentCount();
+            this.cap = (int) (distinctIds ? Math.min(Math.max(problem.maxPerWeek(), 0), totalNeeds) : totalNeeds);
+            this.levels = new int[(int) totalNeeds + 2];
         }
 
-        result.setSolution(solution);
-        result.setWarnings(warnings);
-        result.setTotalNeeds(totalNeeds);
-        return result;
-    }
+        /**
+         * @param cutoff 下界超过这个值就放弃
+         * @return 是否跑完 (false 表示中途被剪枝)
+         */
+        boolean run(RandomGenerator random, double cutoff) {
+            Arrays.fill(loads, 0);
+            Arrays.fill(counts, 0);
+            Arrays.fill(levels, 0);
+            levels[0] = counts.length;
+            System.arraycopy(slotReqs, 0, slotLeft, 0, slotReqs.length);
+            sum = 0;
+            sumSq = 0;
+            // 随机打乱需求处理顺序 (防止前面的日子总是抢占资源)
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+
+            long remaining = totalNeeds;
+            for (int i = 0; i < order.length; i++) {
+                int r = order[i];
+                int slot = reqSlot[r];
+                int needCount = reqNeed[r];
+                int available = workspace.collect(slot, loads);
 
-    // 计算排班结果的方差 (越低越公平)
-    private double calculateVariance(Map<String, List<StudentCandidate>> solution, List<StudentCandidate> allStudents) {
-        Map<String, Integer> counts = new HashMap<>();
-        for (StudentCandidate s : allStudents) counts.put(s.getId(), 0);
+                // 关键：完全随机选取，不看负载，纯靠大数定律去撞最优解
+                // 或者：也可以在这里加入一点贪心（优先选负载低的），结合随机性，效果更好
+                workspace.shuffle(available, random);
 
-        for (List<StudentCandidate> list : solution.values()) {
-            for (StudentCandidate s : list) {
-                counts.put(s.getId(), counts.get(s.getId()) + 1);
+                // 这里我们采用“随机贪心”：先打乱，再稍微排个序(稍微增加点权重)，这样收敛更快
+                workspace.sortByLoad(0, available, loads);
+
+                shortage[i] = available < needCount;
+                int take = shortage[i] ? available : needCount;
+                int base = pickStart[slot];
+                for (int k = 0; k < take; k++) {
+                    int s = workspace.candidates[k];
+                    loads[problem.loadIndex(s)]++;
+                    picked[base + k] = s;
+                }
+                pickLen[slot] = take;
+
+                // 这个时段的需求都处理完了，人选不会再变，计入最终方案
+                if (--slotLeft[slot] > 0) continue;
+                for (int k = base; k < base + take; k++) {
+                    int c = counts[problem.loadIndex(picked[k])]++;
+                    levels[c]--;
+                    levels[c + 1]++;
+                    sum++;
+                    sumSq += 2L * c + 1;
+                }
+                remaining -= pickStart[slot + 1] - base;
+                if (lowerBound(remaining) > cutoff) return false;
             }
+            return true;
         }
 
-        double sum = 0;
-        for (int c : counts.values()) sum += c;
-        double mean = sum / allStudents.size();
+        /**
+         * 再排最多 remaining 人次后，最终方差的下界
+         */
+        private double lowerBound(long remaining) {
+            double bound = problem.variance(sum, sumSq);
+            long s = sum;
+            long q = sumSq;
+            long left = remaining;
+            long count = 0;
+            for (int level = 0; level < cap && left > 0; level++) {
+                // 水位升到 level + 1：班次不超过 level 的 id 各加一次
+                count += levels[level];
+                if (count == 0) continue;
+                long step = Math.min(count, left);
+                s += step;
+                q += step * (2L * level + 1);
+                left -= step;
+                bound = Math.min(bound, problem.variance(s, q));
+            }
+            return bound;
+        }
 
-        double temp = 0;
-        for (int c : counts.values()) {
-            temp += (c - mean) * (c - mean);
+        /**
+         * 跑完后最终方案的方差
+         */
+        double variance() {
+            return problem.variance(sum, sumSq);
         }
-        return temp / allStudents.size();
     }
 }
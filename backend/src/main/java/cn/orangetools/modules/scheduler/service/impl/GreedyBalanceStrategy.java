@@ -1,14 +1,16 @@
 package cn.orangetools.modules.scheduler.service.impl;
 
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
 import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
 import cn.orangetools.modules.scheduler.dto.StudentCandidate;
 import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.random.RandomGenerator;
 
 /**
  * @author YuHeng
@@ -24,16 +26,22 @@ public class GreedyBalanceStrategy implements ScheduleStrategy {
 
     @Override
     public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        return execute(students, requirements, maxPerWeek, new ScheduleOptions());
+    }
+
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek,
+                                     ScheduleOptions options) {
         log.info("策略执行开始：GREEDY_BALANCE，学生人数：{}，需求项：{}", students.size(), requirements.size());
         ScheduleResultDTO result = new ScheduleResultDTO();
         Map<String, List<StudentCandidate>> solution = new HashMap<>();
         List<String> warnings = new ArrayList<>();
 
         // 1. 初始化负载计数器 (记录每个人已经排了几个班)
-        Map<String, Integer> currentLoad = new HashMap<>();
-        for (StudentCandidate s : students) {
-            currentLoad.put(s.getId(), 0);
-        }
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        SchedulingProblem.Workspace workspace = problem.newWorkspace();
+        int[] currentLoad = new int[problem.loadCount()];
+        RandomGenerator random = options.newRandom();
 
         // 2. 预处理：为了公平，可以将需求列表随机打乱，或者按“难易度”排序
         // 这里暂时按默认顺序处理
@@ -47,38 +55,28 @@ public class GreedyBalanceStrategy implements ScheduleStrategy {
             totalNeeds += needCount;
 
             // 3.1 筛选可用人员
-            List<StudentCandidate> available = students.stream()
-                    .filter(s -> {
-                        // 规则A: 这个时间段他不忙
-                        if (s.getBusySlots().contains(slotKey)) return false;
-                        // 规则B: 他没超过周最大负载
-                        if (currentLoad.get(s.getId()) >= maxPerWeek) return false;
-                        return true;
-                    })
-                    .collect(Collectors.toList());
+            // 规则A: 这个时间段他不忙；规则B: 他没超过周最大负载
+            int available = workspace.collect(problem.slotOf(slotKey), currentLoad);
 
             // 3.2 排序 (负载均衡的核心！)
             // 策略：优先选负载最少的。如果负载一样，随机选一个(防止死盯着某个人)
-            Collections.shuffle(available); // 先打乱，解决同分情况下的公平性
-            available.sort(Comparator.comparingInt(s -> currentLoad.get(s.getId())));
+            workspace.shuffle(available, random); // 先打乱，解决同分情况下的公平性
+            workspace.sortByLoad(0, available, currentLoad);
 
             // 3.3 录取 Top N
-            List<StudentCandidate> selected = new ArrayList<>();
-            if (available.size() < needCount) {
+            int take = needCount;
+            if (available < needCount) {
                 // 人不够
                 warnings.add(String.format("周%d-第%s节 需求%d人，实排%d人 (可用人力不足)",
-                        req.getDay(), parseSectionName(req.getSection()), needCount, available.size()));
-                selected.addAll(available); // 能排几个是几个
-            } else {
-                // 人够了，取前 N 个
-                selected.addAll(available.subList(0, needCount));
+                        req.getDay(), parseSectionName(req.getSection()), needCount, available));
+                take = available; // 能排几个是几个
             }
 
             // 3.4 更新负载和结果
-            for (StudentCandidate s : selected) {
-                currentLoad.put(s.getId(), currentLoad.get(s.getId()) + 1);
+            for (int i = 0; i < take; i++) {
+                currentLoad[problem.loadIndex(workspace.candidates[i])]++;
             }
-            solution.put(slotKey, selected);
+            solution.put(slotKey, problem.candidates(workspace.candidates, take));
         }
 
         result.setSolution(solution);
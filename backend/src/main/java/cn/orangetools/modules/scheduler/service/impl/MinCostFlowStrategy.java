@@ -0,0 +1,222 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file MinCostFlowStrategy
+ * @date 2026/10/19 00:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 最小费用流排班：覆盖人数最多，且负载方差最小 (精确解)
+ * <p>
+ * 网络为 源点 -> 时段 (容量 = 需求人数) -> 有空的学生 (容量 1) -> 学生 id -> 汇点。
+ * 同一 id 的第 k 个班次费用为 2k - 1，总费用即 Σ 负载²；流量最大时总班次固定，
+ * Σ 负载² 最小也就是方差最小。
+ * </p>
+ * <p>
+ * 费用只出现在 id -> 汇点的边上，任何一条增广路只会让终点那个 id 的负载加 1 (途中经过的 id 只是换了时段)，
+ * 所以最短增广路就是"能到达的负载最低的 id"。按负载分层：第 L 层把每个 id 的汇点容量放宽到 L + 1，
+ * 用 Dinic 求一次最大流。这等价于逐条走最短路的连续最短路算法，但每层只需几轮 BFS。
+ * </p>
+ * <p>
+ * 同一时段出现多条需求时，与其他策略一样以最后一条为准；结果是确定的，不使用随机种子。
+ * </p>
+ */
+@Component("MIN_COST_FLOW")
+@Slf4j
+public class MinCostFlowStrategy implements ScheduleStrategy {
+
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        log.info("策略执行开始：MIN_COST_FLOW，学生人数：{}，需求项：{}", students.size(), requirements.size());
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        int m = problem.slotCount();
+        int n = problem.studentCount();
+        int k = problem.loadCount();
+
+        int totalNeeds = 0;
+        for (ScheduleRequirement req : requirements) {
+            totalNeeds += req.getCount();
+        }
+        int[] need = problem.slotNeeds(requirements);
+
+        // 节点：源点 0，时段 1..m，学生 m+1..m+n，id m+n+1..m+n+k，汇点
+        int source = 0;
+        int slotBase = 1;
+        int studentBase = slotBase + m;
+        int idBase = studentBase + n;
+        int sink = idBase + k;
+        FlowNetwork network = new FlowNetwork(sink + 1);
+        int capacity = 0;
+        for (int slot = 0; slot < m; slot++) {
+            if (need[slot] > 0) {
+                network.addEdge(source, slotBase + slot, need[slot]);
+                capacity += need[slot];
+            }
+        }
+        // 时段 -> 学生的边，记下编号用于读出结果
+        int[] assignEdgeStart = new int[m + 1];
+        for (int slot = 0; slot < m; slot++) {
+            assignEdgeStart[slot] = network.edgeCount();
+            for (int s = 0; s < n; s++) {
+                if (!problem.isBusy(s, slot)) {
+                    network.addEdge(slotBase + slot, studentBase + s, 1);
+                }
+            }
+        }
+        assignEdgeStart[m] = network.edgeCount();
+        int maxLoad = Math.max(maxPerWeek, 0);
+        for (int s = 0; s < n; s++) {
+            network.addEdge(studentBase + s, idBase + problem.loadIndex(s), maxLoad);
+        }
+        int[] sinkEdge = new int[k];
+        for (int id = 0; id < k; id++) {
+            sinkEdge[id] = network.addEdge(idBase + id, sink, 0);
+        }
+
+        // 逐层放宽每个 id 的负载上限，每层求最大流
+        int flow = 0;
+        for (int level = 0; level < maxLoad && flow < capacity; level++) {
+            for (int id = 0; id < k; id++) {
+                network.cap[sinkEdge[id]]++;
+            }
+            int added = network.maxFlow(source, sink);
+            flow += added;
+            // 这一层一条增广路都没有，之后的层也不会有
+            if (added == 0) break;
+        }
+
+        ScheduleResultDTO result = new ScheduleResultDTO();
+        Map<String, List<StudentCandidate>> solution = new HashMap<>();
+        int[] assigned = new int[m];
+        for (int slot = 0; slot < m; slot++) {
+            List<StudentCandidate> selected = new ArrayList<>();
+            for (int e = assignEdgeStart[slot]; e < assignEdgeStart[slot + 1]; e += 2) {
+                // 正向边容量用完即选中
+                if (network.cap[e] == 0) {
+                    selected.add(problem.student(network.to[e] - studentBase));
+                }
+            }
+            assigned[slot] = selected.size();
+            solution.put(problem.slotKey(slot), selected);
+        }
+        List<String> warnings = problem.shortageWarnings(requirements, need, assigned);
+
+        result.setSolution(solution);
+        result.setWarnings(warnings);
+        result.setTotalNeeds(totalNeeds);
+        log.info("策略执行结束：MIN_COST_FLOW，总需求：{}，实排：{}", totalNeeds, flow);
+        return result;
+    }
+
+    /**
+     * Dinic 最大流 (边成对存放，e ^ 1 是 e 的反向边)
+     */
+    private static final class FlowNetwork {
+        private final int nodes;
+        private final int[] head;
+        private int[] next = new int[1024];
+        private int[] to = new int[1024];
+        private int[] cap = new int[1024];
+        private int edges;
+        private final int[] level;
+        private final int[] cursor;
+        private final int[] queue;
+
+        FlowNetwork(int nodes) {
+            this.nodes = nodes;
+            this.head = new int[nodes];
+            Arrays.fill(head, -1);
+            this.level = new int[nodes];
+            this.cursor = new int[nodes];
+            this.queue = new int[nodes];
+        }
+
+        int edgeCount() {
+            return edges;
+        }
+
+        /**
+         * @return 正向边编号
+         */
+        int addEdge(int from, int target, int capacity) {
+            if (edges + 2 > to.length) {
+                int size = to.length * 2;
+                next = Arrays.copyOf(next, size);
+                to = Arrays.copyOf(to, size);
+                cap = Arrays.copyOf(cap, size);
+            }
+            int e = edges;
+            to[e] = target;
+            cap[e] = capacity;
+            next[e] = head[from];
+            head[from] = e;
+            to[e + 1] = from;
+            cap[e + 1] = 0;
+            next[e + 1] = head[target];
+            head[target] = e + 1;
+            edges += 2;
+            return e;
+        }
+
+        int maxFlow(int source, int sink) {
+            int total = 0;
+            while (bfs(source, sink)) {
+                System.arraycopy(head, 0, cursor, 0, nodes);
+                int f;
+                while ((f = dfs(source, sink, Integer.MAX_VALUE)) > 0) {
+                    total += f;
+                }
+            }
+            return total;
+        }
+
+        private boolean bfs(int source, int sink) {
+            Arrays.fill(level, -1);
+            int qh = 0;
+            int qt = 0;
+            queue[qt++] = source;
+            level[source] = 0;
+            while (qh < qt) {
+                int v = queue[qh++];
+                for (int e = head[v]; e != -1; e = next[e]) {
+                    if (cap[e] > 0 && level[to[e]] < 0) {
+                        level[to[e]] = level[v] + 1;
+                        queue[qt++] = to[e];
+                    }
+                }
+            }
+            return level[sink] >= 0;
+        }
+
+        private int dfs(int v, int sink, int limit) {
+            if (v == sink) return limit;
+            for (; cursor[v] != -1; cursor[v] = next[cursor[v]]) {
+                int e = cursor[v];
+                int w = to[e];
+                if (cap[e] > 0 && level[w] == level[v] + 1) {
+                    int f = dfs(w, sink, Math.min(limit, cap[e]));
+                    if (f > 0) {
+                        cap[e] -= f;
+                        cap[e ^ 1] += f;
+                        return f;
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+}
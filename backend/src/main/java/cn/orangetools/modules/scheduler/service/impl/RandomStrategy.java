@@ -1,14 +1,16 @@
 package cn.orangetools.modules.scheduler.service.impl;
 
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
 import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
 import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
 import cn.orangetools.modules.scheduler.dto.StudentCandidate;
 import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.random.RandomGenerator;
 
 /**
  * @author YuHeng
@@ -24,14 +26,22 @@ public class RandomStrategy implements ScheduleStrategy {
 
     @Override
     public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        return execute(students, requirements, maxPerWeek, new ScheduleOptions());
+    }
+
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek,
+                                     ScheduleOptions options) {
         log.info("策略执行开始：RANDOM，学生人数：{}，需求项：{}", students.size(), requirements.size());
         ScheduleResultDTO result = new ScheduleResultDTO();
         Map<String, List<StudentCandidate>> solution = new HashMap<>();
         List<String> warnings = new ArrayList<>();
 
         // 记录负载，防止超标
-        Map<String, Integer> currentLoad = new HashMap<>();
-        for (StudentCandidate s : students) currentLoad.put(s.getId(), 0);
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        SchedulingProblem.Workspace workspace = problem.newWorkspace();
+        int[] currentLoad = new int[problem.loadCount()];
+        RandomGenerator random = options.newRandom();
 
         int totalNeeds = 0;
 
@@ -41,30 +51,22 @@ public class RandomStrategy implements ScheduleStrategy {
             totalNeeds += needCount;
 
             // 1. 筛选可用人员
-            List<StudentCandidate> available = students.stream()
-                    .filter(s -> {
-                        if (s.getBusySlots().contains(slotKey)) return false;
-                        if (currentLoad.get(s.getId()) >= maxPerWeek) return false;
-                        return true;
-                    })
-                    .collect(Collectors.toList());
+            int available = workspace.collect(problem.slotOf(slotKey), currentLoad);
 
-            // 2. 核心逻辑：彻底洗牌
-            Collections.shuffle(available);
+            // 2. 核心逻辑：彻底洗牌 (只有前 needCount 个会被录取，洗出这几个即可)
+            workspace.shufflePrefix(available, needCount, random);
 
-            List<StudentCandidate> selected = new ArrayList<>();
-            if (available.size() < needCount) {
+            int take = needCount;
+            if (available < needCount) {
                 warnings.add(String.format("周%d-第%d节 人力不足", req.getDay(), req.getSection()));
-                selected.addAll(available);
-            } else {
-                selected.addAll(available.subList(0, needCount));
+                take = available;
             }
 
             // 更新负载
-            for (StudentCandidate s : selected) {
-                currentLoad.put(s.getId(), currentLoad.get(s.getId()) + 1);
+            for (int i = 0; i < take; i++) {
+                currentLoad[problem.loadIndex(workspace.candidates[i])]++;
             }
-            solution.put(slotKey, selected);
+            solution.put(slotKey, problem.candidates(workspace.candidates, take));
         }
 
         result.setSolution(solution);
@@ -0,0 +1,239 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import cn.orangetools.modules.scheduler.service.ScheduleStrategy;
+import cn.orangetools.modules.scheduler.service.SchedulingProblem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SimulatedAnnealingStrategy
+ * @date 2026/10/19 01:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 模拟退火排班：从贪心解出发，反复做小的改动
+ * <p>
+ * 每个时段有 need 个座位。每一步随机选一个座位和一个这个时段有空的学生：
+ * 座位空着就让他补上 (覆盖人数 +1)，否则让他替换原来的人。
+ * 目标是先覆盖人数最多、再负载平方和最小，能量 = W * 空座数 + Σ 负载²。
+ * 一次替换只改变两个 id 的负载，能量变化为 2 * (新人负载 - 原负载 + 1)，补位为 2 * 新人负载 + 1 - W，
+ * 都是 O(1)，不用像重启式搜索那样每次重新统计整个方案。
+ * </p>
+ * <p>
+ * 温度从 START 按几何级数降到 END，进度取移动次数和耗时两者中较大的比例。
+ * 最优解只在"即将从最优状态往上走"时才复制一次，避免每次改进都拷贝整个方案。
+ * </p>
+ */
+@Component("ANNEALING")
+@Slf4j
+public class SimulatedAnnealingStrategy implements ScheduleStrategy {
+
+    // 移动次数上限
+    private static final long MAX_MOVES = 20_000_000L;
+
+    // 每隔多少步检查一次时间并更新温度 (必须是 2 的幂)
+    private static final int CHECK_INTERVAL = 4096;
+
+    // 初始温度：能量 +2 (最小的变差) 约有一半概率被接受
+    private static final double START_TEMPERATURE = 2 / Math.log(2);
+
+    private static final double END_TEMPERATURE = 0.05;
+
+    /**
+     * 请求未指定时的最长搜索时间 (毫秒)
+     */
+    @Value("${orange-tools.schedule.time-budget-ms:3000}")
+    private long defaultTimeBudgetMs = 3000;
+
+    /**
+     * 请求可指定的最长搜索时间上限 (毫秒)
+     */
+    @Value("${orange-tools.schedule.max-time-budget-ms:30000}")
+    private long maxTimeBudgetMs = 30000;
+
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        return execute(students, requirements, maxPerWeek, new ScheduleOptions());
+    }
+
+    @Override
+    public ScheduleResultDTO execute(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek,
+                                     ScheduleOptions options) {
+        long budgetMs = options.getTimeBudgetMs() != null && options.getTimeBudgetMs() > 0
+                ? Math.min(options.getTimeBudgetMs(), maxTimeBudgetMs) : defaultTimeBudgetMs;
+        log.info("策略执行开始：ANNEALING，学生人数：{}，需求项：{}，移动次数上限：{}，时间上限：{}ms",
+                students.size(), requirements.size(), MAX_MOVES, budgetMs);
+        long start = System.nanoTime();
+        RandomGenerator random = options.newRandom();
+
+        SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+        int m = problem.slotCount();
+        int n = problem.studentCount();
+        int totalNeeds = 0;
+        for (ScheduleRequirement req : requirements) {
+            totalNeeds += req.getCount();
+        }
+        int[] need = problem.slotNeeds(requirements);
+
+        // 座位：时段 slot 的座位为 seat[seatStart[slot], seatStart[slot + 1])，-1 表示空座
+        int[] seatStart = new int[m + 1];
+        for (int slot = 0; slot < m; slot++) {
+            seatStart[slot + 1] = seatStart[slot] + Math.max(need[slot], 0);
+        }
+        int seats = seatStart[m];
+        int[] seat = new int[seats];
+        int[] seatSlot = new int[seats];
+        Arrays.fill(seat, -1);
+        for (int slot = 0; slot < m; slot++) {
+            Arrays.fill(seatSlot, seatStart[slot], seatStart[slot + 1], slot);
+        }
+        // 每个时段有空的学生
+        int[] freeStart = new int[m + 1];
+        int[] free = new int[16];
+        int freeCount = 0;
+        for (int slot = 0; slot < m; slot++) {
+            freeStart[slot] = freeCount;
+            for (int s = 0; s < n; s++) {
+                if (problem.isBusy(s, slot)) continue;
+                if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+                free[freeCount++] = s;
+            }
+        }
+        freeStart[m] = freeCount;
+        // member[slot * n + s]：学生 s 已排在这个时段
+        boolean[] member = new boolean[m * n];
+        int[] loads = new int[problem.loadCount()];
+
+        // 1. 初始解：与 GREEDY_BALANCE 相同的随机贪心
+        SchedulingProblem.Workspace workspace = problem.newWorkspace();
+        long covered = 0;
+        long sumSq = 0;
+        for (int slot = 0; slot < m; slot++) {
+            int available = workspace.collect(slot, loads);
+            workspace.shuffle(available, random);
+            workspace.sortByLoad(0, available, loads);
+            int next = seatStart[slot];
+            for (int i = 0; i < available && next < seatStart[slot + 1]; i++) {
+                int s = workspace.candidates[i];
+                int id = problem.loadIndex(s);
+                // id 相同的人选可能在同一时段都被筛出来，这里逐个复查上限
+                if (loads[id] >= maxPerWeek) continue;
+                seat[next++] = s;
+                member[slot * n + s] = true;
+                sumSq += 2L * loads[id] + 1;
+                loads[id]++;
+                covered++;
+            }
+        }
+
+        // 2. 退火
+        long vacancyWeight = 2L * Math.max(maxPerWeek, 1);
+        long energy = vacancyWeight * (seats - covered) + sumSq;
+        long bestEnergy = energy;
+        long bestCovered = covered;
+        long bestSumSq = sumSq;
+        int[] bestSeat = new int[seats];
+        // bestSeat 是否已保存最优状态；为 false 时当前状态就是最优状态
+        boolean bestSaved = false;
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        double temperature = START_TEMPERATURE;
+        long moves = 0;
+        long accepted = 0;
+        while (seats > 0 && moves < MAX_MOVES) {
+            if ((moves & (CHECK_INTERVAL - 1)) == 0) {
+                long now = System.nanoTime();
+                if (now - deadline > 0 || Thread.currentThread().isInterrupted()) break;
+                double progress = Math.max((double) moves / MAX_MOVES, (double) (now - start) / (deadline - start));
+                temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+            }
+            moves++;
+            int r = random.nextInt(seats);
+            int slot = seatSlot[r];
+            int freeSize = freeStart[slot + 1] - freeStart[slot];
+            if (freeSize == 0) continue;
+            int b = free[freeStart[slot] + random.nextInt(freeSize)];
+            int idB = problem.loadIndex(b);
+            if (member[slot * n + b] || loads[idB] >= maxPerWeek) continue;
+
+            int a = seat[r];
+            long delta;
+            if (a < 0) {
+                delta = 2L * loads[idB] + 1 - vacancyWeight;
+            } else {
+                int idA = problem.loadIndex(a);
+                delta = idA == idB ? 0 : 2L * (loads[idB] - loads[idA] + 1);
+            }
+            if (delta > 0) {
+                if (random.nextDouble() >= Math.exp(-delta / temperature)) continue;
+                // 即将离开最优状态，先保存
+                if (!bestSaved && energy == bestEnergy) {
+                    System.arraycopy(seat, 0, bestSeat, 0, seats);
+                    bestSaved = true;
+                }
+            }
+
+            accepted++;
+            if (a < 0) {
+                covered++;
+                sumSq += delta + vacancyWeight;
+            } else {
+                member[slot * n + a] = false;
+                loads[problem.loadIndex(a)]--;
+                sumSq += delta;
+            }
+            seat[r] = b;
+            member[slot * n + b] = true;
+            loads[idB]++;
+            energy += delta;
+            if (energy < bestEnergy) {
+                bestEnergy = energy;
+                bestCovered = covered;
+                bestSumSq = sumSq;
+                bestSaved = false;
+            }
+        }
+        if (!bestSaved) {
+            System.arraycopy(seat, 0, bestSeat, 0, seats);
+        }
+
+        ScheduleResultDTO result = new ScheduleResultDTO();
+        Map<String, List<StudentCandidate>> solution = new HashMap<>();
+        int[] assigned = new int[m];
+        for (int slot = 0; slot < m; slot++) {
+            List<StudentCandidate> selected = new ArrayList<>();
+            for (int i = seatStart[slot]; i < seatStart[slot + 1]; i++) {
+                if (bestSeat[i] >= 0) {
+                    selected.add(problem.student(bestSeat[i]));
+                }
+            }
+            assigned[slot] = selected.size();
+            solution.put(problem.slotKey(slot), selected);
+        }
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        double variance = problem.variance(bestCovered, bestSumSq);
+        result.setSolution(solution);
+        result.setWarnings(problem.shortageWarnings(requirements, need, assigned));
+        result.setTotalNeeds(totalNeeds);
+        result.setIterations(moves);
+        result.setAcceptanceRate(moves == 0 ? 0.0 : (double) accepted / moves);
+        result.setBestScore(variance);
+        result.setCostMs(costMs);
+        log.info("策略执行结束：ANNEALING，移动次数：{}，接受率：{}，实排：{}，方差：{}，耗时：{}ms",
+                moves, result.getAcceptanceRate(), bestCovered, variance, costMs);
+        return result;
+    }
+}
@@ -0,0 +1,240 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AvailabilityIndexTest
+ * @date 2026/10/19 14:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class AvailabilityIndexTest {
+
+    @Test
+    void identicalBitmapsAreShared() {
+        AvailabilityIndex index = AvailabilityIndex.builder(2, 20)
+                .busy(0, 1, 1, WeekSet.parseRangeString("1-16"))
+                .busy(1, 1, 1, WeekSet.parseRangeString("1-16"))
+                .busy(0, 2, 3, WeekSet.parseRangeString("1-8"))
+                .build();
+        assertSame(index.busy(1, 1, 1), index.busy(16, 1, 1));
+        assertSame(index.busy(1, 2, 3), index.busy(8, 2, 3));
+        assertSame(index.busy(17, 1, 1), index.busy(20, 7, 10));
+        assertEquals(2, index.distinctBitmaps());
+        assertThrows(IllegalArgumentException.class, () -> index.busy(21, 1, 1));
+    }
+
+    @Test
+    void addBusyCopiesSharedBitmaps() {
+        AvailabilityIndex index = AvailabilityIndex.builder(2, 20)
+                .busy(0, 1, 1, WeekSet.parseRangeString("1-16"))
+                .build();
+        BitSet shared = index.busy(1, 1, 1);
+        BitSet snapshot = (BitSet) shared.clone();
+
+        index.add(1, null, null, null);
+        index.addBusy(1, 1, 1, WeekSet.of(3));
+
+        // 之前拿到的位图不受影响，共用同一位图的其它周也不受影响
+        assertEquals(snapshot, shared);
+        assertSame(shared, index.busy(4, 1, 1));
+        assertNotSame(shared, index.busy(3, 1, 1));
+        assertEquals(bits(0, 1), index.busy(3, 1, 1));
+        // 没有人忙碌的格子也共用同一个空位图
+        BitSet empty = index.busy(5, 2, 2);
+        index.addBusy(1, 2, 2, WeekSet.of(6));
+        assertTrue(empty.isEmpty());
+        assertTrue(index.busy(5, 2, 2).isEmpty());
+        assertEquals(bits(1), index.busy(6, 2, 2));
+    }
+
+    @Test
+    void removeCopiesSharedBitmaps() {
+        AvailabilityIndex index = AvailabilityIndex.builder(3, 20)
+                .attributes(0, "计算机学院", "软件工程", "2023")
+                .attributes(1, "计算机学院", "数学", "2023")
+                .attributes(2, "外语学院", "英语", "2024")
+                .busy(0, 1, 1, WeekSet.parseRangeString("1-16"))
+                .busy(1, 1, 1, WeekSet.parseRangeString("1-16"))
+                .busy(2, 3, 4, WeekSet.parseRangeString("1-20"))
+                .build();
+        BitSet shared = index.busy(1, 1, 1);
+        BitSet snapshot = (BitSet) shared.clone();
+        BitSet roster = index.select(null, null, null);
+
+        index.remove(2);
+
+        assertEquals(snapshot, shared);
+        assertEquals(bits(0, 1, 2), roster);
+        assertTrue(index.busy(1, 3, 4).isEmpty());
+        assertEquals(2, index.count());
+        assertEquals(3, index.size());
+        assertEquals(Set.of("计算机学院"), index.colleges());
+        assertEquals(bits(0, 1), index.select(null, null, null));
+
+        index.remove(1);
+        assertEquals(snapshot, shared);
+        assertEquals(bits(0), index.busy(1, 1, 1));
+        assertEquals(bits(0), index.select(List.of("计算机学院"), null, List.of("2023")));
+        assertFalse(index.majors().contains("数学"));
+
+        // 移除后可以在原来的序号上重新加入
+        index.add(1, "计算机学院", "数学", "2023");
+        index.addBusy(1, 5, 5, WeekSet.of(2));
+        assertEquals(bits(0), index.busy(1, 1, 1));
+        assertEquals(bits(1), index.busy(2, 5, 5));
+        assertEquals(bits(0, 1), index.select(List.of("计算机学院"), null, null));
+    }
+
+    @Test
+    void addBusyGrowsMaxWeek() {
+        AvailabilityIndex index = AvailabilityIndex.builder(1, 20)
+                .busy(0, 1, 1, WeekSet.parseRangeString("1-16"))
+                .build();
+        index.add(1, null, null, null);
+        index.addBusy(1, 2, 1, WeekSet.parseRangeString("60-70"));
+        assertEquals(70, index.maxWeek());
+        assertEquals(bits(1), index.busy(65, 2, 1));
+        assertTrue(index.busy(30, 2, 1).isEmpty());
+        assertTrue(index.busy(65, 1, 1).isEmpty());
+        assertEquals(bits(0), index.busy(16, 1, 1));
+    }
+
+    @Test
+    void maxWeekIsCapped() {
+        // 最大周次可能来自 Redis 中的会话，不能按它直接分配
+        assertEquals(WeekSet.MAX_WEEK, AvailabilityIndex.builder(1, 99999999).build().maxWeek());
+        assertEquals(0, AvailabilityIndex.builder(1, -1).build().maxWeek());
+    }
+
+    @Test
+    void randomUpdatesMatchNaiveModel() {
+        Random random = new Random(20261019L);
+        int maxWeek = 20;
+        int students = 60;
+        // 朴素模型：每名学生忙碌的 (周, 星期, 节次) 与所属学院
+        Map<Integer, Set<List<Integer>>> busy = new HashMap<>();
+        Map<Integer, String> college = new HashMap<>();
+
+        AvailabilityIndex.Builder builder = AvailabilityIndex.builder(students, maxWeek);
+        for (int s = 0; s < students; s++) {
+            college.put(s, "学院" + random.nextInt(4));
+            builder.attributes(s, college.get(s), null, null);
+            Set<List<Integer>> cells = new HashSet<>();
+            busy.put(s, cells);
+            for (int c = 0; c < 6; c++) {
+                int day = 1 + random.nextInt(7);
+                int slot = 1 + random.nextInt(10);
+                WeekSet weeks = randomWeeks(random, maxWeek);
+                builder.busy(s, day, slot, weeks);
+                weeks.forEach(w -> cells.add(List.of(w, day, slot)));
+            }
+        }
+        AvailabilityIndex index = builder.build();
+        assertMatches(index, busy, college);
+
+        int next = students;
+        for (int step = 0; step < 300; step++) {
+            List<BitSet> before = new ArrayList<>();
+            List<BitSet> snapshots = new ArrayList<>();
+            for (int k = 0; k < 20; k++) {
+                BitSet bits = index.busy(1 + random.nextInt(index.maxWeek()), 1 + random.nextInt(7), 1 + random.nextInt(10));
+                before.add(bits);
+                snapshots.add((BitSet) bits.clone());
+            }
+
+            if (random.nextInt(3) == 0 && !busy.isEmpty()) {
+                List<Integer> alive = new ArrayList<>(busy.keySet());
+                int s = alive.get(random.nextInt(alive.size()));
+                index.remove(s);
+                busy.remove(s);
+                college.remove(s);
+            } else {
+                int s = random.nextBoolean() || busy.size() == next ? next++ : randomRemoved(random, busy, next);
+                college.put(s, "学院" + random.nextInt(5));
+                busy.put(s, new HashSet<>());
+                index.add(s, college.get(s), null, null);
+                for (int c = 0; c < 4; c++) {
+                    int day = 1 + random.nextInt(7);
+                    int slot = 1 + random.nextInt(10);
+                    WeekSet weeks = randomWeeks(random, maxWeek + step / 10);
+                    index.addBusy(s, day, slot, weeks);
+                    final int student = s;
+                    weeks.forEach(w -> busy.get(student).add(List.of(w, day, slot)));
+                }
+            }
+
+            // 修改前拿到的位图内容不变
+            assertEquals(snapshots, before);
+            if (step % 25 == 0) assertMatches(index, busy, college);
+        }
+        assertMatches(index, busy, college);
+    }
+
+    private static void assertMatches(AvailabilityIndex index, Map<Integer, Set<List<Integer>>> busy, Map<Integer, String> college) {
+        BitSet alive = new BitSet();
+        busy.keySet().forEach(alive::set);
+        assertEquals(alive, index.select(null, null, null));
+        assertEquals(busy.size(), index.count());
+        assertEquals(new HashSet<>(college.values()), index.colleges());
+        for (String c : index.colleges()) {
+            BitSet expected = new BitSet();
+            college.forEach((s, v) -> {
+                if (v.equals(c)) expected.set(s);
+            });
+            assertEquals(expected, index.select(List.of(c), null, null), c);
+        }
+        for (int week = 1; week <= index.maxWeek(); week++) {
+            for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++) {
+                    BitSet expected = new BitSet();
+                    List<Integer> cell = List.of(week, day, slot);
+                    busy.forEach((s, cells) -> {
+                        if (cells.contains(cell)) expected.set(s);
+                    });
+                    assertEquals(expected, index.busy(week, day, slot), cell.toString());
+                    BitSet free = index.free(week, day, List.of(slot), alive);
+                    BitSet expectedFree = (BitSet) alive.clone();
+                    expectedFree.andNot(expected);
+                    assertEquals(expectedFree, free);
+                }
+            }
+        }
+    }
+
+    private static int randomRemoved(Random random, Map<Integer, Set<List<Integer>>> busy, int next) {
+        while (true) {
+            int s = random.nextInt(next);
+            if (!busy.containsKey(s)) return s;
+        }
+    }
+
+    private static WeekSet randomWeeks(Random random, int maxWeek) {
+        int start = 1 + random.nextInt(maxWeek);
+        return WeekSet.parseRangeString(start + "-" + (start + random.nextInt(Math.max(1, maxWeek - start + 1))));
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int o : ordinals) bits.set(o);
+        return bits;
+    }
+}
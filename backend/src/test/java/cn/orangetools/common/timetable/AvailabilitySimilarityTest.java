@@ -0,0 +1,217 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AvailabilitySimilarityTest
+ * @date 2026/10/19 14:50
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class AvailabilitySimilarityTest {
+
+    private static final int MAX_WEEK = 20;
+
+    @Test
+    void exactModeMatchesBruteForce() {
+        Random random = new Random(20261019L);
+        AvailabilityIndex index = randomIndex(random, 200);
+        // 只取一部分学生参与计算
+        BitSet roster = new BitSet();
+        for (int s = 0; s < 200; s++) {
+            if (random.nextInt(3) > 0) roster.set(s);
+        }
+        AvailabilitySimilarity similarity = new AvailabilitySimilarity(index, roster);
+        assertFalse(similarity.usesLsh());
+        assertEquals(roster.cardinality(), similarity.size());
+
+        int[] members = roster.stream().toArray();
+        BitSet[] free = new BitSet[200];
+        for (int s : members) {
+            free[s] = freeCells(index, s);
+        }
+        for (int a : members) {
+            List<Integer> expected = new ArrayList<>();
+            for (int b : members) {
+                if (b == a) continue;
+                expected.add(b);
+                assertEquals(jaccard(free[a], free[b]), similarity.jaccard(a, b), 1e-12);
+                assertEquals(sharedFree(free[a], free[b]), similarity.sharedFree(a, b));
+            }
+            expected.sort(Comparator.comparingDouble((Integer b) -> -jaccard(free[a], free[b])).thenComparingInt(b -> b));
+            List<Integer> actual = new ArrayList<>();
+            similarity.topK(a, 10).forEach(m -> actual.add(m.ordinal));
+            assertEquals(expected.subList(0, 10), actual);
+        }
+
+        int outside = roster.nextClearBit(0);
+        assertFalse(similarity.contains(outside));
+        assertThrows(IllegalArgumentException.class, () -> similarity.topK(outside, 5));
+    }
+
+    @Test
+    void partitionCoversRosterWithinCapacity() {
+        Random random = new Random(7L);
+        AvailabilityIndex index = randomIndex(random, 150);
+        BitSet roster = new BitSet();
+        roster.set(0, 150);
+        AvailabilitySimilarity similarity = new AvailabilitySimilarity(index, roster);
+        for (int k : new int[]{1, 4, 7, 150, 200}) {
+            assertPartition(index, roster, similarity.partition(k), Math.min(k, 150));
+        }
+    }
+
+    /**
+     * 超过 EXACT_LIMIT 时改用 LSH：按"模板课表 + 随机噪声"生成明显成簇的学生，
+     * 检查近邻召回率和分组纯度 (组内同一模板的比例)
+     */
+    @Test
+    void lshKeepsQualityOnPlantedClusters() {
+        int n = 1200;
+        int clusters = 12;
+        Random random = new Random(20261019L);
+        // 模板的忙碌格子取自同一个小池子，模板之间有较多重叠
+        int[][] pool = new int[24][];
+        for (int k = 0; k < pool.length; k++) {
+            pool[k] = new int[]{1 + random.nextInt(7), 1 + random.nextInt(10)};
+        }
+        int[][][] templates = new int[clusters][8][];
+        for (int c = 0; c < clusters; c++) {
+            for (int k = 0; k < 8; k++) templates[c][k] = pool[random.nextInt(pool.length)];
+        }
+        AvailabilityIndex.Builder builder = AvailabilityIndex.builder(n, MAX_WEEK);
+        for (int s = 0; s < n; s++) {
+            for (int[] cell : templates[s % clusters]) {
+                builder.busy(s, cell[0], cell[1], WeekSet.parseRangeString("1-16"));
+            }
+            for (int k = 0; k < 6; k++) {
+                int week = 1 + random.nextInt(16);
+                builder.busy(s, 1 + random.nextInt(7), 1 + random.nextInt(10), WeekSet.parseRangeString(week + "-" + (week + 3)));
+            }
+        }
+        AvailabilityIndex index = builder.build();
+        BitSet roster = new BitSet();
+        roster.set(0, n);
+        AvailabilitySimilarity similarity = new AvailabilitySimilarity(index, roster);
+        assertTrue(similarity.usesLsh());
+
+        int total = 0;
+        int sameCluster = 0;
+        int recalled = 0;
+        for (int s = 0; s < n; s += 7) {
+            // 精确的第 10 名相似度
+            List<Double> all = new ArrayList<>();
+            for (int o = 0; o < n; o++) {
+                if (o != s) all.add(similarity.jaccard(s, o));
+            }
+            all.sort(Comparator.reverseOrder());
+            double tenth = all.get(9);
+            for (AvailabilitySimilarity.Match m : similarity.topK(s, 10)) {
+                total++;
+                if (m.ordinal % clusters == s % clusters) sameCluster++;
+                if (m.jaccard >= tenth - 1e-12) recalled++;
+                assertEquals(similarity.jaccard(s, m.ordinal), m.jaccard, 1e-12);
+            }
+        }
+        assertTrue(recalled >= 0.95 * total, "recall@10 " + recalled + "/" + total);
+        assertTrue(sameCluster >= 0.95 * total, "same cluster " + sameCluster + "/" + total);
+
+        List<AvailabilitySimilarity.Group> groups = similarity.partition(clusters);
+        assertPartition(index, roster, groups, clusters);
+        int pure = 0;
+        for (AvailabilitySimilarity.Group group : groups) {
+            int[] counts = new int[clusters];
+            for (int o : group.ordinals) counts[o % clusters]++;
+            int max = 0;
+            for (int c : counts) max = Math.max(max, c);
+            pure += max;
+        }
+        assertTrue(pure >= 0.9 * n, "purity " + pure + "/" + n);
+    }
+
+    @Test
+    void rejectsOversizedRoster() {
+        int n = AvailabilitySimilarity.MAX_PEOPLE + 1;
+        AvailabilityIndex index = AvailabilityIndex.builder(n, 1).build();
+        BitSet roster = new BitSet();
+        roster.set(0, n);
+        assertThrows(IllegalArgumentException.class, () -> new AvailabilitySimilarity(index, roster));
+    }
+
+    private static void assertPartition(AvailabilityIndex index, BitSet roster, List<AvailabilitySimilarity.Group> groups, int k) {
+        int n = roster.cardinality();
+        int capacity = (n + k - 1) / k;
+        assertTrue(groups.size() <= k);
+        BitSet seen = new BitSet();
+        for (AvailabilitySimilarity.Group group : groups) {
+            assertTrue(group.ordinals.length > 0 && group.ordinals.length <= capacity);
+            BitSet shared = null;
+            for (int o : group.ordinals) {
+                assertFalse(seen.get(o), "重复分组：" + o);
+                seen.set(o);
+                BitSet free = freeCells(index, o);
+                if (shared == null) {
+                    shared = free;
+                } else {
+                    shared.and(free);
+                }
+            }
+            assertEquals(shared.cardinality(), group.sharedFree);
+        }
+        assertEquals(roster, seen);
+    }
+
+    private static AvailabilityIndex randomIndex(Random random, int n) {
+        AvailabilityIndex.Builder builder = AvailabilityIndex.builder(n, MAX_WEEK);
+        for (int s = 0; s < n; s++) {
+            int courses = random.nextInt(12);
+            for (int c = 0; c < courses; c++) {
+                int week = 1 + random.nextInt(MAX_WEEK);
+                builder.busy(s, 1 + random.nextInt(7), 1 + random.nextInt(10),
+                        WeekSet.parseRangeString(week + "-" + (week + random.nextInt(8))));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 学生空闲的所有格子 (周次 x 星期 x 节次)
+     */
+    private static BitSet freeCells(AvailabilityIndex index, int ordinal) {
+        BitSet free = new BitSet();
+        int cell = 0;
+        for (int week = 1; week <= index.maxWeek(); week++) {
+            for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++, cell++) {
+                    if (!index.busy(week, day, slot).get(ordinal)) free.set(cell);
+                }
+            }
+        }
+        return free;
+    }
+
+    private static double jaccard(BitSet a, BitSet b) {
+        BitSet or = (BitSet) a.clone();
+        or.or(b);
+        return or.isEmpty() ? 1.0 : (double) sharedFree(a, b) / or.cardinality();
+    }
+
+    private static int sharedFree(BitSet a, BitSet b) {
+        BitSet and = (BitSet) a.clone();
+        and.and(b);
+        return and.cardinality();
+    }
+}
@@ -0,0 +1,116 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file BusyCubeTest
+ * @date 2026/10/19 18:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 与逐周逐人计数的朴素实现对比，包括第 0 周、超过 maxWeek 的周次和超过 63 周时的逐周处理
+ */
+class BusyCubeTest {
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(20261019L);
+        for (int maxWeek : new int[]{1, 20, 52, 62, 63, 64, 80, 128}) {
+            for (int round = 0; round < 5; round++) {
+                int people = random.nextInt(40);
+                WeekSet[][] students = new WeekSet[people][];
+                BusyCube cube = new BusyCube(maxWeek);
+                for (int p = 0; p < people; p++) {
+                    students[p] = randomCells(random, maxWeek);
+                    cube.add(students[p]);
+                }
+                assertMatches(cube, students, maxWeek, "maxWeek " + maxWeek + " round " + round);
+            }
+        }
+    }
+
+    @Test
+    void weeksAboveSixtyThreeAreCounted() {
+        WeekSet[] cells = new WeekSet[BusyCube.CELLS];
+        cells[BusyCube.cellOf(3, 4)] = WeekSet.parseRangeString("62-66,70");
+        BusyCube cube = new BusyCube(66);
+        cube.add(cells);
+        for (int week = 1; week <= 66; week++) {
+            assertEquals(week >= 62 ? 1 : 0, cube.busy(week, 3, 4), "第" + week + "周");
+        }
+        assertEquals(61, cube.allFreeWeeks()[BusyCube.cellOf(3, 4)]);
+        assertEquals(1.0 - 5.0 / 66, cube.freeRatios()[BusyCube.cellOf(3, 4)], 1e-12);
+        // maxWeek 不足 64 时，第 64 周以后全部忽略
+        BusyCube small = new BusyCube(63);
+        small.add(cells);
+        assertEquals(1, small.busy(63, 3, 4));
+        assertEquals(1.0 - 2.0 / 63, small.freeRatios()[BusyCube.cellOf(3, 4)], 1e-12);
+    }
+
+    @Test
+    void maxWeekIsCapped() {
+        assertEquals(WeekSet.MAX_WEEK, new BusyCube(99999999).maxWeek());
+        assertEquals(WeekSet.MAX_WEEK * BusyCube.CELLS, new BusyCube(Integer.MAX_VALUE).counts().length);
+    }
+
+    private static void assertMatches(BusyCube cube, WeekSet[][] students, int maxWeek, String label) {
+        int[] counts = new int[maxWeek * BusyCube.CELLS];
+        int[] totals = new int[BusyCube.CELLS];
+        for (WeekSet[] cells : students) {
+            for (int cell = 0; cell < BusyCube.CELLS; cell++) {
+                if (cells[cell] == null) continue;
+                for (int week = 1; week <= maxWeek; week++) {
+                    if (cells[cell].contains(week)) {
+                        counts[(week - 1) * BusyCube.CELLS + cell]++;
+                        totals[cell]++;
+                    }
+                }
+            }
+        }
+        assertEquals(students.length, cube.people(), label);
+        assertArrayEquals(counts, cube.counts(), label);
+
+        int[] allFree = new int[BusyCube.CELLS];
+        double[] ratios = new double[BusyCube.CELLS];
+        for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+            for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++) {
+                int cell = BusyCube.cellOf(day, slot);
+                for (int week = 1; week <= maxWeek; week++) {
+                    int busy = counts[(week - 1) * BusyCube.CELLS + cell];
+                    assertEquals(busy, cube.busy(week, day, slot), label);
+                    if (busy == 0) allFree[cell]++;
+                }
+                ratios[cell] = students.length == 0 ? 1.0 : 1.0 - (double) totals[cell] / ((long) students.length * maxWeek);
+            }
+        }
+        assertArrayEquals(allFree, cube.allFreeWeeks(), label);
+        assertArrayEquals(ratios, cube.freeRatios(), 1e-12, label);
+    }
+
+    /**
+     * 约一半格子有课，周次取自 0 ~ maxWeek + 10，覆盖超出范围的周次
+     */
+    private static WeekSet[] randomCells(Random random, int maxWeek) {
+        WeekSet[] cells = new WeekSet[BusyCube.CELLS];
+        for (int cell = 0; cell < BusyCube.CELLS; cell++) {
+            if (random.nextBoolean()) continue;
+            WeekSet.Builder builder = new WeekSet.Builder();
+            int parts = 1 + random.nextInt(3);
+            for (int k = 0; k < parts; k++) {
+                int start = random.nextInt(maxWeek + 11);
+                builder.addRange(start, start + random.nextInt(12));
+            }
+            cells[cell] = builder.build();
+        }
+        return cells;
+    }
+}
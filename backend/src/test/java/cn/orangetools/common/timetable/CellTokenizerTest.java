@@ -0,0 +1,129 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file CellTokenizerTest
+ * @date 2026/10/19 10:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 单遍扫描器与原先 split + 正则实现的结果逐字段对比
+ */
+class CellTokenizerTest {
+
+    private static final Pattern LEGACY_LINE2 = Pattern.compile("^(.*?)[【\\[](.*?)[】\\]]$");
+
+    @Test
+    void representativeCells() {
+        String[] cells = {
+                "高等数学\n杜洪霞【2-6,8周】\n明华楼301",
+                "高等数学\n杜洪霞【2-6,8周】\n明华楼301\n………………\n大学英语\n王芳【1-16周】\n外语楼204",
+                "线性代数\n李明[3-5(单),8-10,16-18(双)]\n明德楼101",
+                "体育\n张三\n操场",
+                "体育\n张三",
+                "形势与政策",
+                "  高等数学  \n\n  杜洪霞 【 2-6 周 】 \n\n 明华楼301 \n 备注：多余的行",
+                "高等数学\r\n杜洪霞【2-6周】\r\n明华楼301\r\n",
+                "高等数学\n杜洪霞【2-6周】备注\n明华楼301",
+                "高等数学\n【2-6周】\n明华楼301",
+                "高等数学\n杜洪霞【】\n明华楼301",
+                "高等数学\n杜洪霞【1-4周】【6-8周】\n明华楼301",
+                "高等数学…备注\n杜洪霞【2-6周】\n明华楼301",
+                "……高等数学\n杜洪霞【2-6周】\n明华楼301……\n……\n大学英语\n王芳【1-16周】",
+                "无课",
+                "本时间段空闲",
+                "时间段空闲",
+                "A",
+                " A ",
+                "",
+                "   ",
+                "\n\n",
+        };
+        CellTokenizer.Tokens tokens = new CellTokenizer.Tokens();
+        for (String cell : cells) {
+            assertEquals(legacy(cell), tokenized(cell, tokens), cell);
+        }
+        assertEquals(List.of(), tokenized(null, tokens));
+    }
+
+    @Test
+    void randomCellsMatchLegacyParser() {
+        String[] fragments = {
+                "高等数学", "杜洪霞", "明华楼301", "【", "】", "[", "]", "2-6,8", "周", "(单)",
+                "\n", "\n", "\n", "\r", "\r\n", " ", "\t", "…", "……", "………………", " ", "\u0085", "无", "A",
+        };
+        Random random = new Random(20261019L);
+        // 同一个 Tokens 反复使用，顺便检查上一次的结果不会残留
+        CellTokenizer.Tokens tokens = new CellTokenizer.Tokens();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = random.nextInt(16);
+            for (int p = 0; p < parts; p++) {
+                sb.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String cell = sb.toString();
+            assertEquals(legacy(cell), tokenized(cell, tokens), cell);
+        }
+    }
+
+    /**
+     * 每门课 [课程名, 教师, 周次, 地点]，不存在的字段为 null
+     */
+    private static List<List<String>> tokenized(String content, CellTokenizer.Tokens tokens) {
+        int count = CellTokenizer.tokenize(content, tokens);
+        assertEquals(count, tokens.count());
+        List<List<String>> result = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            result.add(Arrays.asList(tokens.name(content, k), tokens.teacher(content, k),
+                    tokens.weeks(content, k), tokens.location(content, k)));
+        }
+        return result;
+    }
+
+    /**
+     * 原 CourseService.parseDetailsFromCell 的切分逻辑 (只保留切分，不展开周次)
+     */
+    private static List<List<String>> legacy(String content) {
+        List<List<String>> result = new ArrayList<>();
+        if (content == null || content.trim().length() <= 1) return result;
+        if (content.contains("无课") || content.contains("时间段空闲")) return result;
+
+        for (String block : content.split("…{2,}")) {
+            if (block.trim().isEmpty()) continue;
+            List<String> validLines = new ArrayList<>();
+            for (String line : block.trim().split("\n")) {
+                if (line.trim().length() > 0) validLines.add(line.trim());
+            }
+            if (validLines.isEmpty()) continue;
+
+            String teacher = null;
+            String weeks = null;
+            if (validLines.size() > 1) {
+                Matcher m = LEGACY_LINE2.matcher(validLines.get(1));
+                if (m.find()) {
+                    teacher = m.group(1).trim();
+                    weeks = m.group(2).trim();
+                } else {
+                    teacher = validLines.get(1);
+                }
+            }
+            String location = validLines.size() > 2 ? validLines.get(2) : null;
+            result.add(Arrays.asList(validLines.get(0), teacher, weeks, location));
+        }
+        return result;
+    }
+}
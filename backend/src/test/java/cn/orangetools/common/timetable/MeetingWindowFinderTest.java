@@ -0,0 +1,140 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file MeetingWindowFinderTest
+ * @date 2026/10/19 18:30
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 与逐个窗口、逐节求并集的朴素实现对比：窗口、空闲人数、缺席名单以及 topK 截断时的先后顺序都一致
+ */
+class MeetingWindowFinderTest {
+
+    private static final int MAX_WEEK = 16;
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(20261019L);
+        for (int round = 0; round < 200; round++) {
+            // 人少时空闲人数大量相同，topK 截断完全取决于时间先后
+            int n = 1 + random.nextInt(round % 2 == 0 ? 6 : 60);
+            AvailabilityIndex index = randomIndex(random, n);
+            MeetingWindowFinder finder = new MeetingWindowFinder(index);
+
+            BitSet candidates = new BitSet();
+            for (int s = 0; s < n; s++) {
+                if (random.nextInt(4) > 0) candidates.set(s);
+            }
+            int duration = 1 + random.nextInt(11);
+            int weekFrom = 1 + random.nextInt(MAX_WEEK);
+            int weekTo = weekFrom + random.nextInt(MAX_WEEK - weekFrom + 1);
+            List<Integer> days = new ArrayList<>();
+            for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                if (random.nextInt(3) == 0) days.add(day);
+            }
+            int minFree = random.nextInt(candidates.cardinality() + 1);
+            int topK = 1 + random.nextInt(30);
+            boolean recurring = random.nextBoolean();
+
+            List<MeetingWindowFinder.Window> expected = bruteForce(index, candidates, duration, weekFrom, weekTo,
+                    days, minFree, topK, recurring);
+            List<MeetingWindowFinder.Window> actual = finder.find(candidates, duration, weekFrom, weekTo,
+                    days, minFree, topK, recurring);
+            String label = "round " + round;
+            assertEquals(expected.size(), actual.size(), label);
+            for (int i = 0; i < expected.size(); i++) {
+                MeetingWindowFinder.Window e = expected.get(i);
+                MeetingWindowFinder.Window a = actual.get(i);
+                assertEquals(e.week, a.week, label);
+                assertEquals(e.day, a.day, label);
+                assertEquals(e.startSlot, a.startSlot, label);
+                assertEquals(e.endSlot, a.endSlot, label);
+                assertEquals(e.free, a.free, label);
+                assertEquals(e.missing, a.missing, label);
+            }
+        }
+    }
+
+    @Test
+    void tiesKeepTheEarliestWindows() {
+        // 没有人有课：所有窗口空闲人数相同，只保留时间最靠前的几个
+        AvailabilityIndex index = AvailabilityIndex.builder(3, MAX_WEEK).build();
+        BitSet candidates = new BitSet();
+        candidates.set(0, 3);
+        List<MeetingWindowFinder.Window> windows = new MeetingWindowFinder(index)
+                .find(candidates, 9, 2, 3, null, 0, 4, false);
+        assertEquals(4, windows.size());
+        int[][] expected = {{2, 1, 1}, {2, 1, 2}, {2, 2, 1}, {2, 2, 2}};
+        for (int i = 0; i < expected.length; i++) {
+            MeetingWindowFinder.Window w = windows.get(i);
+            assertEquals(expected[i][0], w.week);
+            assertEquals(expected[i][1], w.day);
+            assertEquals(expected[i][2], w.startSlot);
+            assertEquals(3, w.free);
+            assertTrue(w.missing.isEmpty());
+        }
+    }
+
+    /**
+     * 列出所有窗口，逐节 (固定时段模式下还要逐周) 求并集，排序后取前 topK 个
+     */
+    private static List<MeetingWindowFinder.Window> bruteForce(AvailabilityIndex index, BitSet candidates, int duration,
+                                                               int weekFrom, int weekTo, List<Integer> days,
+                                                               int minFree, int topK, boolean recurring) {
+        List<MeetingWindowFinder.Window> all = new ArrayList<>();
+        for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+            if (!days.isEmpty() && !days.contains(day)) continue;
+            for (int week = weekFrom; week <= weekTo; week++) {
+                for (int start = 1; start + duration - 1 <= AvailabilityIndex.SLOTS; start++) {
+                    BitSet missing = new BitSet();
+                    for (int w = recurring ? weekFrom : week; w <= (recurring ? weekTo : week); w++) {
+                        for (int slot = start; slot < start + duration; slot++) {
+                            missing.or(index.busy(w, day, slot));
+                        }
+                    }
+                    missing.and(candidates);
+                    int free = candidates.cardinality() - missing.cardinality();
+                    if (free >= minFree) {
+                        all.add(new MeetingWindowFinder.Window(recurring ? null : week, day, start,
+                                start + duration - 1, free, missing));
+                    }
+                }
+                // 固定时段模式下每个 (星期, 起始节次) 只算一次
+                if (recurring) break;
+            }
+        }
+        all.sort(Comparator.<MeetingWindowFinder.Window>comparingInt(w -> -w.free)
+                .thenComparingInt(w -> w.week == null ? 0 : w.week)
+                .thenComparingInt(w -> w.day)
+                .thenComparingInt(w -> w.startSlot));
+        return all.subList(0, Math.min(topK, all.size()));
+    }
+
+    private static AvailabilityIndex randomIndex(Random random, int n) {
+        AvailabilityIndex.Builder builder = AvailabilityIndex.builder(n, MAX_WEEK);
+        for (int s = 0; s < n; s++) {
+            int courses = random.nextInt(25);
+            for (int c = 0; c < courses; c++) {
+                int week = 1 + random.nextInt(MAX_WEEK);
+                builder.busy(s, 1 + random.nextInt(AvailabilityIndex.DAYS), 1 + random.nextInt(AvailabilityIndex.SLOTS),
+                        WeekSet.parseRangeString(week + "-" + (week + random.nextInt(6))));
+            }
+        }
+        return builder.build();
+    }
+}
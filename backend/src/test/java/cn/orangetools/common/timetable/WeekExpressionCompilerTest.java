@@ -0,0 +1,153 @@
+package cn.orangetools.common.timetable;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WeekExpressionCompilerTest
+ * @date 2026/10/19 11:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class WeekExpressionCompilerTest {
+
+    @Test
+    void representativeExpressions() {
+        WeekExpressionCompiler compiler = new WeekExpressionCompiler();
+        String[] expressions = {
+                "2-6,8周", "1-16周", "3-5(单),8-10,16-18(双)", "1-17（单）周", "2-18（双）",
+                "1，3，5周", " 1 - 4 , 6 ", "50-56周", "60-70", "1-3,63-65,128",
+                "8", "周", "", "abc", "1-", "-3", "5-3", "1-2-3", "1-4,x,6",
+        };
+        for (String expression : expressions) {
+            assertEquals(WeekSet.of(legacyExpand(expression.replaceAll("周", ""))), compiler.compile(expression), expression);
+        }
+        assertSame(WeekSet.EMPTY, compiler.compile(null));
+        assertSame(WeekSet.EMPTY, compiler.compile(""));
+    }
+
+    @Test
+    void randomExpressionsMatchLegacyExpand() {
+        WeekExpressionCompiler compiler = new WeekExpressionCompiler();
+        String[] markers = {"", "", "", "(单)", "(双)", "（单）", "（双）"};
+        String[] commas = {",", ",", "，", " , "};
+        Random random = new Random(20261019L);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 1 + random.nextInt(4);
+            for (int p = 0; p < parts; p++) {
+                if (p > 0) sb.append(commas[random.nextInt(commas.length)]);
+                int start = 1 + random.nextInt(120);
+                if (random.nextBoolean()) {
+                    sb.append(start).append('-').append(start + random.nextInt(20));
+                } else {
+                    sb.append(start);
+                }
+                sb.append(markers[random.nextInt(markers.length)]);
+            }
+            if (random.nextBoolean()) sb.append('周');
+            String expression = sb.toString();
+            assertEquals(WeekSet.of(legacyExpand(expression.replaceAll("周", ""))), compiler.compile(expression), expression);
+        }
+    }
+
+    @Test
+    void rangeStringRoundTrip() {
+        WeekExpressionCompiler compiler = new WeekExpressionCompiler();
+        Random random = new Random(7L);
+        for (int i = 0; i < 2000; i++) {
+            WeekSet.Builder builder = new WeekSet.Builder();
+            int n = 1 + random.nextInt(20);
+            for (int k = 0; k < n; k++) {
+                builder.add(1 + random.nextInt(new int[]{40, 60, 130}[i % 3]));
+            }
+            WeekSet weeks = builder.build();
+            assertEquals(weeks, compiler.compile(weeks.toRangeString()));
+            assertEquals(weeks, compiler.compile(weeks.toRangeString() + "周"));
+        }
+    }
+
+    @Test
+    void hugeRangesAreCapped() {
+        WeekExpressionCompiler compiler = new WeekExpressionCompiler();
+        WeekSet all = WeekSet.parseRangeString("1-" + WeekSet.MAX_WEEK);
+        assertEquals(all, compiler.compile("1-2147483647周"));
+        assertEquals(all, compiler.compile("1-99999999"));
+        assertEquals(WeekSet.of(1, 3, WeekSet.MAX_WEEK - 1),
+                compiler.compile("1-3(单)," + (WeekSet.MAX_WEEK - 1) + "-2147483647(单)"));
+        assertSame(WeekSet.EMPTY, compiler.compile((WeekSet.MAX_WEEK + 1) + "-2147483647周"));
+    }
+
+    @Test
+    void cachesCompiledExpressions() {
+        WeekExpressionCompiler compiler = new WeekExpressionCompiler();
+        WeekSet first = compiler.compile("1-16周");
+        assertSame(first, compiler.compile("1-16周"));
+        compiler.compile("1-8周");
+        CacheStats stats = compiler.stats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1L, stats.getHits());
+        assertEquals(2L, stats.getMisses());
+
+        // 达到容量上限后不再缓存，但结果仍然正确
+        ReflectionTestUtils.setField(compiler, "capacity", 2);
+        assertEquals(WeekSet.parseRangeString("1-4"), compiler.compile("1-4周"));
+        assertEquals(WeekSet.parseRangeString("1-4"), compiler.compile("1-4周"));
+        assertEquals(2, compiler.stats().getSize());
+        assertEquals(4L, compiler.stats().getMisses());
+    }
+
+    /**
+     * 原 CourseService.expandWeeks
+     */
+    private static List<Integer> legacyExpand(String weekStr) {
+        List<Integer> list = new ArrayList<>();
+        if (weekStr == null || weekStr.isEmpty()) return list;
+        for (String part : weekStr.split("[,，]")) {
+            try {
+                part = part.trim();
+                if (part.isEmpty()) continue;
+                boolean isOdd = part.contains("(单)") || part.contains("（单）");
+                boolean isEven = part.contains("(双)") || part.contains("（双）");
+                String cleanPart = part.replaceAll("[\\(（][单双][\\)）]", "").trim();
+                if (cleanPart.contains("-")) {
+                    String[] range = cleanPart.split("-");
+                    if (range.length >= 2) {
+                        int start = Integer.parseInt(range[0].trim());
+                        int end = Integer.parseInt(range[1].trim());
+                        for (int i = start; i <= end; i++) {
+                            if (isOdd) {
+                                if (i % 2 != 0) list.add(i);
+                            } else if (isEven) {
+                                if (i % 2 == 0) list.add(i);
+                            } else {
+                                list.add(i);
+                            }
+                        }
+                    }
+                } else {
+                    int val = Integer.parseInt(cleanPart.trim());
+                    if (isOdd) {
+                        if (val % 2 != 0) list.add(val);
+                    } else if (isEven) {
+                        if (val % 2 == 0) list.add(val);
+                    } else {
+                        list.add(val);
+                    }
+                }
+            } catch (Exception e) {
+                // 与原实现一致：跳过无法解析的片段
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,143 @@
+package cn.orangetools.common.timetable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file WeekSetTest
+ * @date 2026/10/19 10:45
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class WeekSetTest {
+
+    @Test
+    void boundaryWeeks() {
+        WeekSet weeks = WeekSet.of(1, 52, 53, 63, 64, 100);
+        assertEquals(List.of(1, 52, 53, 63, 64, 100), weeks.toList());
+        assertEquals("1,52-53,63-64,100", weeks.toRangeString());
+        assertEquals(6, weeks.size());
+        assertEquals(100, weeks.max());
+        assertTrue(weeks.contains(63));
+        assertTrue(weeks.contains(64));
+        assertFalse(weeks.contains(65));
+        assertFalse(weeks.contains(-1));
+        // 第 64 周及以后不在位图里
+        assertEquals((1L << 1) | (1L << 52) | (1L << 53) | (1L << 63), weeks.mask());
+
+        assertEquals(63, WeekSet.of(63).max());
+        assertEquals(Long.MIN_VALUE, WeekSet.of(63).mask());
+        assertSame(WeekSet.EMPTY, WeekSet.of());
+        assertSame(WeekSet.EMPTY, WeekSet.parseRangeString(""));
+        assertEquals(0, WeekSet.EMPTY.max());
+    }
+
+    @Test
+    void safeMaskStopsAtWeek52() {
+        assertTrue(WeekSet.of(1, 52).isSafeMask());
+        assertFalse(WeekSet.of(53).isSafeMask());
+        assertFalse(WeekSet.of(63).isSafeMask());
+        assertFalse(WeekSet.of(1, 64).isSafeMask());
+        assertTrue(WeekSet.EMPTY.isSafeMask());
+    }
+
+    @Test
+    void randomRoundTrips() {
+        Random random = new Random(20261019L);
+        for (int i = 0; i < 2000; i++) {
+            // 周次上限在 40 / 60 / MAX_WEEK 之间轮换，覆盖纯位图、超过 52、超过 63 三种情况
+            int bound = new int[]{40, 60, WeekSet.MAX_WEEK}[i % 3];
+            TreeSet<Integer> expected = new TreeSet<>();
+            int n = random.nextInt(30);
+            for (int k = 0; k < n; k++) {
+                expected.add(random.nextInt(bound) + 1);
+            }
+            WeekSet weeks = WeekSet.of(expected);
+
+            assertEquals(new ArrayList<>(expected), weeks.toList());
+            assertEquals(expected.size(), weeks.size());
+            assertEquals(expected.isEmpty() ? 0 : expected.last(), weeks.max());
+            assertEquals(weeks, WeekSet.parseRangeString(weeks.toRangeString()));
+            assertEquals(weeks, WeekSet.of(weeks.toList()));
+            assertEquals(weeks.hashCode(), WeekSet.parseRangeString(weeks.toRangeString()).hashCode());
+            assertEquals(weeks, new WeekSet.Builder().addAll(weeks).build());
+            if (weeks.max() < 64) {
+                assertEquals(weeks, WeekSet.ofMask(weeks.mask()));
+            }
+        }
+    }
+
+    @Test
+    void weeksAboveMaxAreIgnored() {
+        int max = WeekSet.MAX_WEEK;
+        assertEquals(List.of(1, max), WeekSet.of(1, max, max + 1, Integer.MAX_VALUE).toList());
+        // 区间先截断再展开，不会溢出成死循环
+        assertEquals(max, new WeekSet.Builder().addRange(1, Integer.MAX_VALUE).build().size());
+        assertEquals(max, WeekSet.parseRangeString("1-99999999").max());
+        assertEquals("1-3," + max, WeekSet.parseRangeString("1-3," + max + "-" + Integer.MAX_VALUE).toRangeString());
+        assertSame(WeekSet.EMPTY, WeekSet.parseRangeString((max + 1) + "-2147483647"));
+    }
+
+    @Test
+    void unionAcrossOverflow() {
+        WeekSet a = WeekSet.parseRangeString("1-4,60-70");
+        WeekSet b = WeekSet.parseRangeString("3-8,66-80,120");
+        WeekSet union = a.union(b);
+        assertEquals("1-8,60-80,120", union.toRangeString());
+        assertEquals(union, b.union(a));
+        // 合并不修改原集合
+        assertEquals("1-4,60-70", a.toRangeString());
+        assertEquals("3-8,66-80,120", b.toRangeString());
+        assertSame(a, a.union(WeekSet.EMPTY));
+        assertSame(b, WeekSet.EMPTY.union(b));
+    }
+
+    @Test
+    void jsonRoundTrips() throws Exception {
+        WeekSetJsonSerializer serializer = new WeekSetJsonSerializer();
+        ObjectMapper mapper = mapper(serializer);
+
+        WeekSet small = WeekSet.parseRangeString("1-16,18,52");
+        JsonNode node = mapper.valueToTree(small);
+        assertTrue(node.isNumber());
+        assertEquals(small.mask(), node.longValue());
+        assertEquals(small, mapper.readValue(mapper.writeValueAsString(small), WeekSet.class));
+
+        // 超过 52 周时 JS Number 无法精确表示，改用区间字符串
+        for (String text : new String[]{"1-16,53", "63", "1,63-64", "1-20,100-128"}) {
+            WeekSet weeks = WeekSet.parseRangeString(text);
+            node = mapper.valueToTree(weeks);
+            assertEquals(text, node.textValue());
+            assertEquals(weeks, mapper.readValue(mapper.writeValueAsString(weeks), WeekSet.class));
+        }
+
+        // 旧版数组格式
+        ReflectionTestUtils.setField(serializer, "legacyWeekList", true);
+        WeekSet big = WeekSet.of(1, 2, 53, 64, 100);
+        assertEquals("[1,2,53,64,100]", mapper.writeValueAsString(big));
+        assertEquals(big, mapper.readValue("[1,2,53,64,100]", WeekSet.class));
+        assertEquals(big, mapper.readValue("[1,2,53,64,100,2147483647]", WeekSet.class));
+    }
+
+    private static ObjectMapper mapper(WeekSetJsonSerializer serializer) {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(WeekSet.class, serializer);
+        module.addDeserializer(WeekSet.class, new WeekSetJsonSerializer.Deserializer());
+        return new ObjectMapper().registerModule(module);
+    }
+}
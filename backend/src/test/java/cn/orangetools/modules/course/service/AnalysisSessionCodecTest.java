@@ -0,0 +1,128 @@
+package cn.orangetools.modules.course.service;
+
+import cn.orangetools.common.timetable.AvailabilityIndex;
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.modules.course.model.CourseDetail;
+import cn.orangetools.modules.course.model.RawCourseItem;
+import cn.orangetools.modules.course.model.StudentInfo;
+import cn.orangetools.modules.course.model.StudentSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisSessionCodecTest
+ * @date 2026/10/19 11:40
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class AnalysisSessionCodecTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        CourseDetail math = new CourseDetail("高等数学", "杜洪霞", "明华楼301", "2-6,8周", WeekSet.parseRangeString("2-6,8"));
+        CourseDetail english = new CourseDetail("大学英语", "王芳", "外语楼204", "1-16周", WeekSet.parseRangeString("1-16"));
+        // 第二行格式不匹配时没有周次
+        CourseDetail pe = new CourseDetail("体育", "张三", "未知地点", null, null);
+        // 超过 52 周和 63 周
+        CourseDetail longTerm = new CourseDetail("毕业设计", "", "实验楼", "50-70周", WeekSet.parseRangeString("50-70"));
+
+        RawCourseItem shared = new RawCourseItem(1, 1, WeekSet.parseRangeString("1-16"), List.of(math, english));
+        RawCourseItem single = new RawCourseItem(3, 5, WeekSet.EMPTY, List.of(pe));
+        RawCourseItem overflow = new RawCourseItem(5, 10, WeekSet.parseRangeString("50-70,100"), List.of(longTerm));
+        RawCourseItem noDetails = new RawCourseItem(7, 2, WeekSet.parseRangeString("2,4"), List.of());
+
+        List<StudentSchedule> data = List.of(
+                new StudentSchedule(new StudentInfo("张三", "2023001", "计算机学院", "软件工程", "2023", "软件2301"),
+                        List.of(shared, single)),
+                new StudentSchedule(new StudentInfo("李四", "", "计算机学院", "软件工程", "2023", ""),
+                        List.of(shared, overflow, noDetails)),
+                // 学号、班级等字段可能为空
+                new StudentSchedule(new StudentInfo("王五", null, null, "数学", null, null), List.of()));
+
+        int[] maxWeek = new int[1];
+        List<StudentSchedule> decoded = AnalysisSessionCodec.decode(AnalysisSessionCodec.encode(data, 100), maxWeek);
+
+        assertEquals(100, maxWeek[0]);
+        assertEquals(data.size(), decoded.size());
+        for (int i = 0; i < data.size(); i++) {
+            assertStudentEquals(data.get(i).getStudent(), decoded.get(i).getStudent());
+            assertEquals(data.get(i).getCourses(), decoded.get(i).getCourses());
+        }
+        // 同一个 RawCourseItem 只编码一次，解码后仍然共享
+        assertSame(decoded.get(0).getCourses().get(0), decoded.get(1).getCourses().get(0));
+    }
+
+    @Test
+    void restoredSessionRebuildsTheSameIndex() throws IOException {
+        Random random = new Random(20261019L);
+        List<StudentSchedule> data = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<RawCourseItem> courses = new ArrayList<>();
+            for (int c = 0; c < 10; c++) {
+                int start = 1 + random.nextInt(60);
+                WeekSet weeks = WeekSet.parseRangeString(start + "-" + (start + random.nextInt(16)));
+                courses.add(new RawCourseItem(1 + random.nextInt(7), 1 + random.nextInt(10), weeks,
+                        List.of(new CourseDetail("课程" + random.nextInt(30), "教师", "地点", null, weeks))));
+            }
+            data.add(new StudentSchedule(new StudentInfo("学生" + i, String.valueOf(i), "学院" + i % 3,
+                    "专业" + i % 7, "202" + i % 4, "班级" + i % 11), courses));
+        }
+        int maxWeek = 80;
+        AnalysisSession original = new AnalysisSession("a", data, maxWeek);
+
+        int[] maxWeekOut = new int[1];
+        AnalysisSession restored = new AnalysisSession("a",
+                AnalysisSessionCodec.decode(AnalysisSessionCodec.encode(data, maxWeek), maxWeekOut), maxWeekOut[0]);
+
+        AvailabilityIndex a = original.getIndex();
+        AvailabilityIndex b = restored.getIndex();
+        assertEquals(a.maxWeek(), b.maxWeek());
+        assertEquals(original.getMaxWeek(), restored.getMaxWeek());
+        for (int week = 1; week <= maxWeek; week++) {
+            for (int day = 1; day <= AvailabilityIndex.DAYS; day++) {
+                for (int slot = 1; slot <= AvailabilityIndex.SLOTS; slot++) {
+                    assertEquals(a.busy(week, day, slot), b.busy(week, day, slot));
+                }
+            }
+        }
+        for (int k = 0; k < 11; k++) {
+            assertEquals(a.select(List.of("学院" + k), null, null), b.select(List.of("学院" + k), null, null));
+            assertEquals(a.select(null, List.of("专业" + k), null), b.select(null, List.of("专业" + k), null));
+            assertEquals(a.select(null, null, List.of("202" + k)), b.select(null, null, List.of("202" + k)));
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersion() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(99);
+        }
+        IOException e = assertThrows(IOException.class, () -> AnalysisSessionCodec.decode(bytes.toByteArray(), new int[1]));
+        assertTrue(e.getMessage().contains("99"));
+    }
+
+    private static void assertStudentEquals(StudentInfo expected, StudentInfo actual) {
+        // StudentInfo.equals 只比较 姓名+专业+年级，这里逐个字段比较
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getCode(), actual.getCode());
+        assertEquals(expected.getCollege(), actual.getCollege());
+        assertEquals(expected.getMajor(), actual.getMajor());
+        assertEquals(expected.getGrade(), actual.getGrade());
+        assertEquals(expected.getClassName(), actual.getClassName());
+    }
+}
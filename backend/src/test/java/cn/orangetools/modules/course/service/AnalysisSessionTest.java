@@ -0,0 +1,82 @@
+package cn.orangetools.modules.course.service;
+
+import cn.orangetools.common.timetable.WeekSet;
+import cn.orangetools.modules.course.model.RawCourseItem;
+import cn.orangetools.modules.course.model.StudentInfo;
+import cn.orangetools.modules.course.model.StudentSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file AnalysisSessionTest
+ * @date 2026/10/19 19:20
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class AnalysisSessionTest {
+
+    @Test
+    void persistSkipsUnchangedSnapshots() {
+        AnalysisSession session = new AnalysisSession("s", List.of(schedule(0)), 20);
+        List<Integer> writes = new ArrayList<>();
+        // 创建时已经写入过
+        session.persist(() -> session.students().size(), writes::add);
+        assertEquals(List.of(), writes);
+
+        session.write(() -> session.upsert(schedule(1)));
+        session.persist(() -> session.students().size(), writes::add);
+        session.persist(() -> session.students().size(), writes::add);
+        assertEquals(List.of(2), writes);
+
+        // 快照为 null (例如超过大小上限) 时不算写出
+        session.write(() -> session.remove(schedule(0).getStudent()));
+        session.<Integer>persist(() -> null, writes::add);
+        session.persist(() -> session.students().size(), writes::add);
+        assertEquals(List.of(2, 1), writes);
+    }
+
+    @Test
+    void concurrentEditsLeaveTheLatestSnapshot() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                AnalysisSession session = new AnalysisSession("s", List.of(), 20);
+                // 模拟 Redis：只保留最后一次 SET 的人数
+                AtomicInteger stored = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    StudentSchedule schedule = schedule(i);
+                    futures.add(executor.submit(() -> {
+                        session.write(() -> session.upsert(schedule));
+                        session.persist(() -> session.students().size(), size -> {
+                            // SET 的网络往返，期间其他线程可以继续修改
+                            LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(200_000));
+                            stored.set(size);
+                        });
+                    }));
+                }
+                for (Future<?> future : futures) future.get();
+                assertEquals(200, stored.get(), "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static StudentSchedule schedule(int i) {
+        StudentInfo student = new StudentInfo("学生" + i, null, "计算机学院", "软件工程", "2023", null);
+        return new StudentSchedule(student, List.of(new RawCourseItem(1, 1, WeekSet.of(1 + i % 16), List.of())));
+    }
+}
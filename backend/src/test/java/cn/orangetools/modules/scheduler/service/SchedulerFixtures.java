@@ -0,0 +1,145 @@
+package cn.orangetools.modules.scheduler.service;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SchedulerFixtures
+ * @date 2026/10/19 16:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 排班测试共用的数据构造方法
+ * <p>
+ * 时段网格为 days 天 x sections 节 (节次从 1 开始)，时段键与 ScheduleRequirement.getKey() 相同。
+ * </p>
+ */
+public final class SchedulerFixtures {
+
+    private SchedulerFixtures() {
+    }
+
+    /**
+     * 随机生成 n 个学生：每个时段以 busyPercent% 的概率忙碌，约 10% 的人与前一个人共用 id
+     * (同一个人上传了两份课表，负载合并计算)
+     */
+    public static List<StudentCandidate> randomStudents(Random random, int n, int days, int sections, int busyPercent) {
+        List<StudentCandidate> students = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            StudentCandidate s = student("S" + (i > 0 && random.nextInt(10) == 0 ? i - 1 : i), "学生" + i);
+            for (int day = 1; day <= days; day++) {
+                for (int section = 1; section <= sections; section++) {
+                    if (random.nextInt(100) < busyPercent) s.getBusySlots().add(day + "_" + section);
+                }
+            }
+            students.add(s);
+        }
+        return students;
+    }
+
+    /**
+     * 随机生成需求：每个时段以 percent% 的概率有需求，人数为 0 ~ maxCount；
+     * 约 5% 的时段再出现一条需求，最后打乱顺序
+     */
+    public static List<ScheduleRequirement> randomRequirements(Random random, int days, int sections, int percent, int maxCount) {
+        List<ScheduleRequirement> requirements = new ArrayList<>();
+        for (int day = 1; day <= days; day++) {
+            for (int section = 1; section <= sections; section++) {
+                if (random.nextInt(100) < percent) requirements.add(requirement(day, section, random.nextInt(maxCount + 1)));
+                if (random.nextInt(20) == 0) requirements.add(requirement(day, section, random.nextInt(maxCount + 1)));
+            }
+        }
+        Collections.shuffle(requirements, random);
+        return requirements;
+    }
+
+    public static StudentCandidate student(String id, String name) {
+        StudentCandidate s = new StudentCandidate();
+        s.setId(id);
+        s.setName(name);
+        s.setBusySlots(new ArrayList<>());
+        return s;
+    }
+
+    public static ScheduleRequirement requirement(int day, int section, int count) {
+        ScheduleRequirement req = new ScheduleRequirement();
+        req.setDay(day);
+        req.setSection(section);
+        req.setCount(count);
+        return req;
+    }
+
+    /**
+     * 同一时段多条需求时以最后一条为准
+     */
+    public static Map<String, Integer> slotNeeds(List<ScheduleRequirement> requirements) {
+        Map<String, Integer> need = new LinkedHashMap<>();
+        for (ScheduleRequirement req : requirements) {
+            need.put(req.getKey(), req.getCount());
+        }
+        return need;
+    }
+
+    /**
+     * 检查排班结果合法 (人数不超过需求、只排有空的人、同一时段不重复、每个 id 不超过上限)，
+     * 返回 [覆盖人次, Σ 负载²]
+     */
+    public static long[] assertFeasible(ScheduleResultDTO result, List<StudentCandidate> students,
+                                        List<ScheduleRequirement> requirements, int maxPerWeek) {
+        Map<String, Integer> need = slotNeeds(requirements);
+        assertEquals(need.keySet(), result.getSolution().keySet());
+        assertEquals(requirements.stream().mapToInt(ScheduleRequirement::getCount).sum(), result.getTotalNeeds());
+        Map<String, Integer> loads = new HashMap<>();
+        long assigned = 0;
+        for (Map.Entry<String, List<StudentCandidate>> e : result.getSolution().entrySet()) {
+            List<StudentCandidate> picked = e.getValue();
+            assertTrue(picked.size() <= need.get(e.getKey()));
+            Set<StudentCandidate> distinct = new HashSet<>();
+            for (StudentCandidate s : picked) {
+                assertTrue(students.contains(s));
+                assertTrue(distinct.add(s), "同一时段重复安排");
+                assertFalse(s.getBusySlots().contains(e.getKey()), "安排了没空的人");
+                loads.merge(s.getId(), 1, Integer::sum);
+                assigned++;
+            }
+        }
+        long sumSq = 0;
+        for (int load : loads.values()) {
+            assertTrue(load <= maxPerWeek);
+            sumSq += (long) load * load;
+        }
+        return new long[]{assigned, sumSq};
+    }
+
+    /**
+     * 与 SchedulingProblem.variance 相同的定义：按 id 统计负载，分母是学生人数
+     */
+    public static double variance(ScheduleResultDTO result, List<StudentCandidate> students) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (StudentCandidate s : students) counts.put(s.getId(), 0);
+        result.getSolution().values().forEach(list -> list.forEach(s -> counts.merge(s.getId(), 1, Integer::sum)));
+        double mean = counts.values().stream().mapToInt(Integer::intValue).sum() / (double) students.size();
+        double sum = 0;
+        for (int c : counts.values()) sum += (c - mean) * (c - mean);
+        return sum / students.size();
+    }
+}
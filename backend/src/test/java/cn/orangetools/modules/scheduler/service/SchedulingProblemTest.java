@@ -0,0 +1,111 @@
+package cn.orangetools.modules.scheduler.service;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomStudents;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.requirement;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.student;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SchedulingProblemTest
+ * @date 2026/10/19 16:35
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+class SchedulingProblemTest {
+
+    @Test
+    void workspaceMatchesListOperations() {
+        Random random = new Random(20261019L);
+        for (int round = 0; round < 50; round++) {
+            List<StudentCandidate> students = randomStudents(random, 1 + random.nextInt(300), 7, 10, 40);
+            List<ScheduleRequirement> requirements = new ArrayList<>();
+            for (int slot = 0; slot < 70; slot++) {
+                requirements.add(requirement(1 + slot / 10, 1 + slot % 10, 1));
+            }
+            int maxPerWeek = 1 + random.nextInt(5);
+            SchedulingProblem problem = SchedulingProblem.compile(students, requirements, maxPerWeek);
+            SchedulingProblem.Workspace workspace = problem.newWorkspace();
+
+            int[] loads = new int[problem.loadCount()];
+            for (int k = 0; k < loads.length; k++) {
+                loads[k] = random.nextInt(maxPerWeek + 2);
+            }
+            // 同一 id 的几条记录共用负载
+            Map<String, Integer> loadById = new HashMap<>();
+            for (int i = 0; i < students.size(); i++) {
+                loadById.put(students.get(i).getId(), loads[problem.loadIndex(i)]);
+            }
+
+            ScheduleRequirement req = requirements.get(random.nextInt(requirements.size()));
+            int slot = problem.slotOf(req.getKey());
+            List<StudentCandidate> expected = students.stream()
+                    .filter(s -> !s.getBusySlots().contains(req.getKey()) && loadById.get(s.getId()) < maxPerWeek)
+                    .collect(Collectors.toList());
+            int available = workspace.collect(slot, loads);
+            assertEquals(expected, problem.candidates(workspace.candidates, available));
+
+            // 稳定排序：负载相同的保持原有顺序
+            workspace.shuffle(available, random);
+            List<StudentCandidate> shuffled = problem.candidates(workspace.candidates, available);
+            workspace.sortByLoad(0, available, loads);
+            List<StudentCandidate> sorted = new ArrayList<>(shuffled);
+            sorted.sort(Comparator.comparingInt(s -> loadById.get(s.getId())));
+            assertEquals(sorted, problem.candidates(workspace.candidates, available));
+
+            // 稳定划分
+            List<StudentCandidate> before = problem.candidates(workspace.candidates, available);
+            int head = workspace.partition(available, s -> s % 3 == 0);
+            List<StudentCandidate> partitioned = new ArrayList<>();
+            before.stream().filter(s -> students.indexOf(s) % 3 == 0).forEach(partitioned::add);
+            assertEquals(partitioned.size(), head);
+            before.stream().filter(s -> students.indexOf(s) % 3 != 0).forEach(partitioned::add);
+            assertEquals(partitioned, problem.candidates(workspace.candidates, available));
+        }
+    }
+
+    @Test
+    void varianceMatchesLegacyDefinition() {
+        // 原实现：按 id 统计负载，分母是学生人数 (不是 id 个数)
+        List<StudentCandidate> students = List.of(student("A", "A"), student("A", "A"), student("B", "B"), student("C", "C"));
+        SchedulingProblem problem = SchedulingProblem.compile(students, List.of(), 3);
+        int[] loads = {3, 1, 0};
+        long sum = 0;
+        long sumSq = 0;
+        for (int load : loads) {
+            sum += load;
+            sumSq += (long) load * load;
+        }
+        double mean = (double) sum / students.size();
+        double expected = 0;
+        for (int load : loads) {
+            expected += (load - mean) * (load - mean);
+        }
+        expected /= students.size();
+        assertEquals(expected, problem.variance(sum, sumSq), 1e-12);
+    }
+
+    @Test
+    void lastRequirementWinsPerSlot() {
+        List<ScheduleRequirement> requirements = List.of(requirement(1, 1, 3), requirement(1, 2, 1), requirement(1, 1, 2));
+        SchedulingProblem problem = SchedulingProblem.compile(List.of(student("A", "A")), requirements, 1);
+        assertEquals(2, problem.slotCount());
+        assertArrayEquals(new int[]{2, 1}, problem.slotNeeds(requirements));
+        assertEquals(List.of("周1-第1节 需求2人，实排0人 (可用人力不足)"),
+                problem.shortageWarnings(requirements, problem.slotNeeds(requirements), new int[]{0, 1}));
+    }
+}
@@ -0,0 +1,117 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomRequirements;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomStudents;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file ConsecutiveStrategyTest
+ * @date 2026/10/19 16:10
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 改用 SchedulingProblem 后，CONSECUTIVE 的结果与原先基于集合的实现逐人一致
+ */
+class ConsecutiveStrategyTest {
+
+    @Test
+    void matchesLegacyImplementation() {
+        for (int seed = 0; seed < 30; seed++) {
+            Random random = new Random(seed);
+            List<StudentCandidate> students = randomStudents(random, 200 + random.nextInt(300), 7, 14, 40);
+            List<ScheduleRequirement> requirements = randomRequirements(random, 7, 14, 80, 7);
+            int maxPerWeek = 1 + random.nextInt(4);
+
+            // 两种实现都会对传入的需求列表排序，各给一份
+            List<ScheduleRequirement> legacyRequirements = new ArrayList<>(requirements);
+            List<ScheduleRequirement> newRequirements = new ArrayList<>(requirements);
+            ScheduleResultDTO expected = legacy(students, legacyRequirements, maxPerWeek);
+            ScheduleResultDTO actual = new ConsecutiveStrategy().execute(students, newRequirements, maxPerWeek);
+
+            assertEquals(names(expected), names(actual), "seed " + seed);
+            assertEquals(expected.getWarnings(), actual.getWarnings(), "seed " + seed);
+            assertEquals(expected.getTotalNeeds(), actual.getTotalNeeds());
+            assertEquals(legacyRequirements, newRequirements);
+        }
+    }
+
+    private static Map<String, List<String>> names(ScheduleResultDTO result) {
+        Map<String, List<String>> names = new HashMap<>();
+        result.getSolution().forEach((slot, list) ->
+                names.put(slot, list.stream().map(StudentCandidate::getName).collect(Collectors.toList())));
+        return names;
+    }
+
+    /**
+     * 原 ConsecutiveStrategy.execute
+     */
+    private static ScheduleResultDTO legacy(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        ScheduleResultDTO result = new ScheduleResultDTO();
+        Map<String, List<StudentCandidate>> solution = new HashMap<>();
+        List<String> warnings = new ArrayList<>();
+        Map<String, Integer> currentLoad = new HashMap<>();
+        for (StudentCandidate s : students) currentLoad.put(s.getId(), 0);
+
+        requirements.sort((a, b) -> {
+            if (!a.getDay().equals(b.getDay())) return a.getDay() - b.getDay();
+            return a.getSection() - b.getSection();
+        });
+
+        int totalNeeds = 0;
+        for (ScheduleRequirement req : requirements) {
+            String slotKey = req.getKey();
+            int needCount = req.getCount();
+            totalNeeds += needCount;
+
+            String prevSlotKey = req.getDay() + "_" + (req.getSection() - 1);
+            List<StudentCandidate> prevWorkers = solution.getOrDefault(prevSlotKey, Collections.emptyList());
+            Set<String> prevWorkerIds = prevWorkers.stream().map(StudentCandidate::getId).collect(Collectors.toSet());
+
+            List<StudentCandidate> available = students.stream()
+                    .filter(s -> !s.getBusySlots().contains(slotKey) && currentLoad.get(s.getId()) < maxPerWeek)
+                    .collect(Collectors.toList());
+            available.sort((s1, s2) -> {
+                boolean s1Consecutive = prevWorkerIds.contains(s1.getId());
+                boolean s2Consecutive = prevWorkerIds.contains(s2.getId());
+                if (s1Consecutive && !s2Consecutive) return -1;
+                if (!s1Consecutive && s2Consecutive) return 1;
+                return currentLoad.get(s1.getId()) - currentLoad.get(s2.getId());
+            });
+
+            List<StudentCandidate> selected = new ArrayList<>();
+            if (available.size() < needCount) {
+                warnings.add("人力不足: " + slotKey);
+                selected.addAll(available);
+            } else {
+                selected.addAll(available.subList(0, needCount));
+            }
+            for (StudentCandidate s : selected) {
+                currentLoad.put(s.getId(), currentLoad.get(s.getId()) + 1);
+            }
+            solution.put(slotKey, selected);
+        }
+
+        result.setSolution(solution);
+        result.setWarnings(warnings);
+        result.setTotalNeeds(totalNeeds);
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomRequirements;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomStudents;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.variance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file GlobalOptimalStrategyTest
+ * @date 2026/10/19 17:05
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 指定种子且没有触发时间上限时，HUNGARIAN 的结果与线程数无关，也与是否剪枝无关
+ */
+class GlobalOptimalStrategyTest {
+
+    @Test
+    void seededResultIsDeterministicWithAndWithoutPruning() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        try {
+            for (long seed : new long[]{1L, 42L, 20261019L}) {
+                Random random = new Random(seed);
+                List<StudentCandidate> students = randomStudents(random, 120, 5, 10, 50);
+                List<ScheduleRequirement> requirements = randomRequirements(random, 5, 10, 40, 12);
+                ScheduleOptions options = new ScheduleOptions();
+                options.setSeed(seed);
+                options.setTimeBudgetMs(30000L);
+
+                ScheduleResultDTO expected = strategy(null, true).execute(students, requirements, 2, options);
+                Map<String, List<String>> signature = signature(expected);
+                assertEquals(variance(expected, students), expected.getBestScore(), 1e-9);
+
+                // 重复执行、多线程、关闭剪枝，结果都完全相同
+                for (ThreadPoolExecutor e : new ThreadPoolExecutor[]{null, executor}) {
+                    for (boolean prune : new boolean[]{true, false}) {
+                        ScheduleResultDTO actual = strategy(e, prune).execute(students, requirements, 2, options);
+                        String label = "seed " + seed + (e == null ? " 单线程" : " 4 线程") + (prune ? " 剪枝" : " 不剪枝");
+                        assertEquals(signature, signature(actual), label);
+                        assertEquals(expected.getBestScore(), actual.getBestScore(), label);
+                        assertEquals(expected.getWarnings(), actual.getWarnings(), label);
+                        assertEquals(expected.getIterations(), actual.getIterations(), label);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static GlobalOptimalStrategy strategy(ThreadPoolExecutor executor, boolean prune) {
+        GlobalOptimalStrategy strategy = new GlobalOptimalStrategy();
+        ReflectionTestUtils.setField(strategy, "searchExecutor", executor);
+        ReflectionTestUtils.setField(strategy, "prune", prune);
+        return strategy;
+    }
+
+    private static Map<String, List<String>> signature(ScheduleResultDTO result) {
+        Map<String, List<String>> signature = new TreeMap<>();
+        result.getSolution().forEach((slot, list) ->
+                signature.put(slot, list.stream().map(StudentCandidate::getName).collect(Collectors.toList())));
+        return signature;
+    }
+}
@@ -0,0 +1,118 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.assertFeasible;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomRequirements;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomStudents;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.requirement;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.slotNeeds;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.student;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file MinCostFlowStrategyTest
+ * @date 2026/10/19 15:30
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 小规模随机实例上与穷举对比：覆盖人次相同，且 Σ 负载² (即方差) 相同
+ */
+class MinCostFlowStrategyTest {
+
+    @Test
+    void matchesBruteForceOnSmallInstances() {
+        for (int seed = 0; seed < 300; seed++) {
+            Random random = new Random(seed);
+            // 穷举的规模随人数指数增长，这里最多 5 人、4 个时段
+            List<StudentCandidate> students = randomStudents(random, 1 + random.nextInt(5), 2, 2, 40);
+            List<ScheduleRequirement> requirements = randomRequirements(random, 2, 2, 75, 3);
+            int maxPerWeek = 1 + random.nextInt(3);
+
+            ScheduleResultDTO result = new MinCostFlowStrategy().execute(students, requirements, maxPerWeek);
+            long[] expected = bruteForce(students, requirements, maxPerWeek);
+            long[] actual = assertFeasible(result, students, requirements, maxPerWeek);
+            assertEquals(expected[0], actual[0], "seed " + seed + " 覆盖人次");
+            assertEquals(expected[1], actual[1], "seed " + seed + " 负载平方和");
+        }
+    }
+
+    @Test
+    void sameIdCountsAsOnePerson() {
+        // 同一个人上传了两份课表：两条记录共用 id，负载合并计算
+        List<StudentCandidate> students = List.of(
+                student("S1", "张三"), student("S1", "张三(副本)"), student("S2", "李四"));
+        List<ScheduleRequirement> requirements = List.of(requirement(1, 1, 1), requirement(1, 2, 1), requirement(1, 3, 1));
+        ScheduleResultDTO result = new MinCostFlowStrategy().execute(students, requirements, 2);
+        long[] actual = assertFeasible(result, students, requirements, 2);
+        assertEquals(3L, actual[0]);
+        // 负载 2 + 1
+        assertEquals(5L, actual[1]);
+        assertTrue(result.getWarnings().isEmpty());
+    }
+
+    /**
+     * 穷举每个时段选哪些人：先比覆盖人次 (越多越好)，再比 Σ 负载² (越小越好)
+     */
+    private static long[] bruteForce(List<StudentCandidate> students, List<ScheduleRequirement> requirements, int maxPerWeek) {
+        Map<String, Integer> need = slotNeeds(requirements);
+        List<String> slots = new ArrayList<>(need.keySet());
+        Map<String, Integer> ids = new HashMap<>();
+        int[] idOf = new int[students.size()];
+        for (int i = 0; i < students.size(); i++) {
+            idOf[i] = ids.computeIfAbsent(students.get(i).getId(), k -> ids.size());
+        }
+        long[] best = {-1, Long.MAX_VALUE};
+        search(0, slots, need, students, idOf, new int[ids.size()], maxPerWeek, best);
+        return best;
+    }
+
+    private static void search(int depth, List<String> slots, Map<String, Integer> need, List<StudentCandidate> students,
+                               int[] idOf, int[] loads, int maxPerWeek, long[] best) {
+        if (depth == slots.size()) {
+            long assigned = 0;
+            long sumSq = 0;
+            for (int load : loads) {
+                assigned += load;
+                sumSq += (long) load * load;
+            }
+            if (assigned > best[0] || (assigned == best[0] && sumSq < best[1])) {
+                best[0] = assigned;
+                best[1] = sumSq;
+            }
+            return;
+        }
+        String slot = slots.get(depth);
+        int n = students.size();
+        for (int mask = 0; mask < 1 << n; mask++) {
+            if (Integer.bitCount(mask) > need.get(slot)) continue;
+            boolean ok = true;
+            for (int i = 0; i < n; i++) {
+                if ((mask >> i & 1) == 0) continue;
+                if (students.get(i).getBusySlots().contains(slot)) ok = false;
+                loads[idOf[i]]++;
+            }
+            for (int load : loads) {
+                if (load > maxPerWeek) ok = false;
+            }
+            if (ok) search(depth + 1, slots, need, students, idOf, loads, maxPerWeek, best);
+            for (int i = 0; i < n; i++) {
+                if ((mask >> i & 1) != 0) loads[idOf[i]]--;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cn.orangetools.modules.scheduler.service.impl;
+
+import cn.orangetools.modules.scheduler.dto.ScheduleOptions;
+import cn.orangetools.modules.scheduler.dto.ScheduleRequirement;
+import cn.orangetools.modules.scheduler.dto.ScheduleResultDTO;
+import cn.orangetools.modules.scheduler.dto.StudentCandidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.assertFeasible;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomRequirements;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.randomStudents;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.requirement;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.slotNeeds;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.student;
+import static cn.orangetools.modules.scheduler.service.SchedulerFixtures.variance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author YuHeng
+ * @project backend
+ * @file SimulatedAnnealingStrategyTest
+ * @date 2026/10/19 16:50
+ * @github https://github.com/FangSuYu/OrangeTools.git
+ * @license GPL-3.0 License
+ */
+
+/**
+ * 检查退火结果合法、bestScore 与按方案重新计算的方差一致 (增量维护的 sumSq/能量以及延迟保存的最优状态都没有算错)，
+ * 并且小规模实例上的覆盖人次不低于 MIN_COST_FLOW 给出的最优值
+ */
+class SimulatedAnnealingStrategyTest {
+
+    @Test
+    void reachesMinCostFlowCoverageOnSmallInstances() {
+        for (int seed = 0; seed < 60; seed++) {
+            Random random = new Random(seed);
+            List<StudentCandidate> students = randomStudents(random, 1 + random.nextInt(8), 2, 3, 40);
+            List<ScheduleRequirement> requirements = randomRequirements(random, 2, 3, 75, 4);
+            int maxPerWeek = 1 + random.nextInt(3);
+
+            long[] optimum = assertFeasible(new MinCostFlowStrategy().execute(students, requirements, maxPerWeek),
+                    students, requirements, maxPerWeek);
+            ScheduleResultDTO result = annealing().execute(students, requirements, maxPerWeek, options(seed, 50));
+            long[] actual = assertFeasible(result, students, requirements, maxPerWeek);
+            String label = "seed " + seed;
+            assertEquals(optimum[0], actual[0], label + " 覆盖人次");
+            // 覆盖人次相同时，Σ 负载² 不可能低于最优值
+            assertTrue(actual[1] >= optimum[1], label);
+            assertEquals(variance(result, students), result.getBestScore(), 1e-9, label);
+            assertShortageWarnings(result, requirements, label);
+        }
+    }
+
+    @Test
+    void keepsBookkeepingConsistentOnLargerInstances() {
+        for (long seed : new long[]{1L, 42L, 20261019L}) {
+            Random random = new Random(seed);
+            List<StudentCandidate> students = randomStudents(random, 150, 7, 10, 50);
+            List<ScheduleRequirement> requirements = randomRequirements(random, 7, 10, 60, 10);
+            int maxPerWeek = 1 + random.nextInt(4);
+
+            ScheduleResultDTO result = annealing().execute(students, requirements, maxPerWeek, options(seed, 200));
+            assertFeasible(result, students, requirements, maxPerWeek);
+            String label = "seed " + seed;
+            assertEquals(variance(result, students), result.getBestScore(), 1e-9, label);
+            assertShortageWarnings(result, requirements, label);
+            assertTrue(result.getIterations() > 0, label);
+            assertTrue(result.getAcceptanceRate() >= 0 && result.getAcceptanceRate() <= 1, label);
+        }
+    }
+
+    @Test
+    void reportsTheBestStateWhenStoppedWhileHot() {
+        // 时间上限极短时温度还很高，结束时的状态通常已经离开最优状态，返回的必须是之前保存的最优方案
+        for (long seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            List<StudentCandidate> students = randomStudents(random, 80, 7, 10, 50);
+            List<ScheduleRequirement> requirements = randomRequirements(random, 7, 10, 60, 6);
+            int maxPerWeek = 2 + random.nextInt(3);
+
+            ScheduleResultDTO result = annealing().execute(students, requirements, maxPerWeek, options(seed, 1));
+            assertFeasible(result, students, requirements, maxPerWeek);
+            assertEquals(variance(result, students), result.getBestScore(), 1e-9, "seed " + seed);
+            assertShortageWarnings(result, requirements, "seed " + seed);
+        }
+    }
+
+    @Test
+    void duplicateIdsNeverExceedTheCap() {
+        // 两条记录共用 id：初始贪心会在同一时段把两条都筛出来，必须逐个复查上限
+        List<StudentCandidate> students = List.of(
+                student("S1", "张三"), student("S1", "张三(副本)"), student("S2", "李四"));
+        List<ScheduleRequirement> requirements = List.of(requirement(1, 1, 2), requirement(1, 2, 2));
+        for (long seed = 0; seed < 20; seed++) {
+            ScheduleResultDTO result = annealing().execute(students, requirements, 1, options(seed, 20));
+            long[] actual = assertFeasible(result, students, requirements, 1);
+            assertEquals(2L, actual[0]);
+            assertEquals(variance(result, students), result.getBestScore(), 1e-9);
+        }
+    }
+
+    /**
+     * 每个时段的实排人数不足需求时才有一条提示
+     */
+    private static void assertShortageWarnings(ScheduleResultDTO result, List<ScheduleRequirement> requirements, String label) {
+        long shortages = 0;
+        for (Map.Entry<String, Integer> e : slotNeeds(requirements).entrySet()) {
+            if (result.getSolution().get(e.getKey()).size() < e.getValue()) shortages++;
+        }
+        assertEquals(shortages, result.getWarnings().size(), label);
+    }
+
+    private static SimulatedAnnealingStrategy annealing() {
+        return new SimulatedAnnealingStrategy();
+    }
+
+    private static ScheduleOptions options(long seed, long budgetMs) {
+        ScheduleOptions options = new ScheduleOptions();
+        options.setSeed(seed);
+        options.setTimeBudgetMs(budgetMs);
+        return options;
+    }
+}
@@ -1,17 +1,329 @@
 import request from '@/utils/request'
+import { useUserStore } from '@/stores/modules/user'
+import { ElMessage } from 'element-plus'
+import { decodeCbor } from '@/utils/cbor'
+import { expandCompactResult } from '@/utils/compact'
+
+const COMPACT_JSON = 'application/vnd.orangetools.compact+json'
+const CBOR = 'application/cbor'
 
 /**
  * 上传课表文件进行分析
+ * 默认请求紧凑格式 (字典编码，体积约为普通 JSON 的 1/20)，拿到后还原成普通格式，页面无需区分
  * @param {FormData} data - 包含 'files' 的 FormData 对象
+ * @param {'compact'|'cbor'|'json'} format - 传输格式，cbor 为紧凑格式的二进制编码
  */
-export function analyzeCourse(data) {
-  return request({
+export async function analyzeCourse(data, format = 'compact') {
+  if (format === 'cbor') {
+    const buffer = await request({
+      url: '/api/tools/course/analyze',
+      method: 'post',
+      data,
+      responseType: 'arraybuffer',
+      headers: {
+        'Content-Type': 'multipart/form-data',
+        Accept: CBOR + ', application/json'
+      }
+    })
+    const res = decodeCbor(buffer)
+    if (res.code !== 200) {
+      ElMessage.error(res.msg || '系统未知错误')
+      throw new Error(res.msg || 'Error')
+    }
+    return expandCompactResult(res.data)
+  }
+  const result = await request({
     url: '/api/tools/course/analyze',
     method: 'post',
     data,
     // 上传文件必须设置 headers，虽然 Axios 甚至会自动识别，但显式写出来更保险
+    headers: {
+      'Content-Type': 'multipart/form-data',
+      Accept: format === 'compact' ? COMPACT_JSON + ', application/json' : 'application/json'
+    }
+  })
+  return expandCompactResult(result)
+}
+
+/**
+ * 精简模式分析课表：不返回课程详情，每个学生只有 busyMasks (cells 与 busyWeeks 一一对应，cell = (星期-1)*10 + (节次-1))
+ * 打开格子详情时再用 getCourseCellDetail / getStudentCourses 按需查询
+ * @param {FormData} data - 包含 'files' 的 FormData 对象
+ */
+export function analyzeCourseLite(data) {
+  return request({
+    url: '/api/tools/course/analyze',
+    method: 'post',
+    data,
+    params: { lite: true },
+    headers: {
+      'Content-Type': 'multipart/form-data'
+    }
+  })
+}
+
+/**
+ * 流式分析课表 (NDJSON)，每解析完一个学生就回调一次，不必等全部文件解析完
+ * axios 在浏览器中无法逐行读取响应，这里直接使用 fetch
+ * @param {FormData} data - 包含 'files' 的 FormData 对象
+ * @param {(student: object) => void} onStudent - 每个学生的回调 (同一学生可能回调多次，需按学生合并)
+ * @returns {Promise<object>} 汇总信息 (maxWeek、allColleges、allMajors、allGrades 等)
+ */
+export async function analyzeCourseStream(data, onStudent) {
+  const userStore = useUserStore()
+  const headers = {}
+  if (userStore.token) {
+    headers['Authorization'] = 'Bearer ' + userStore.token
+  }
+  const response = await fetch(import.meta.env.VITE_API_BASE_URL + '/api/tools/course/analyze/stream', {
+    method: 'post',
+    body: data,
+    headers
+  })
+  if (!response.ok) {
+    throw new Error('分析失败 (' + response.status + ')')
+  }
+
+  const reader = response.body.getReader()
+  const decoder = new TextDecoder()
+  let buffer = ''
+  let summary = null
+  const handleLine = (line) => {
+    if (!line.trim()) return
+    const msg = JSON.parse(line)
+    if (msg.type === 'student') onStudent(msg.data)
+    else if (msg.type === 'summary') summary = msg.data
+    else if (msg.type === 'error') throw new Error(msg.data)
+  }
+  for (;;) {
+    const { done, value } = await reader.read()
+    if (done) break
+    buffer += decoder.decode(value, { stream: true })
+    let idx
+    while ((idx = buffer.indexOf('\n')) >= 0) {
+      handleLine(buffer.slice(0, idx))
+      buffer = buffer.slice(idx + 1)
+    }
+  }
+  handleLine(buffer)
+  return summary
+}
+
+/**
+ * 获取某一周的空闲/忙碌热力图 (服务端基于分析会话计算)
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { week, college, major, grade }
+ */
+export function getCourseHeatmap(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/heatmap`,
+    method: 'get',
+    params
+  })
+}
+
+/**
+ * 获取全学期热力图 (所有周的忙碌人数)，切换周次时直接读取，无需再请求
+ * 第 week 周星期 day 第 slot 节的忙碌人数为 busy[((week - 1) * 7 + (day - 1)) * 10 + (slot - 1)]
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { college, major, grade, groupBy } (groupBy 可选 college / major / grade)
+ */
+export function getCourseHeatmapCube(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/heatmap-cube`,
+    method: 'get',
+    params
+  })
+}
+
+/**
+ * 查询指定周、星期、节次全部空闲的学生
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { week, day, slots: [3, 4], colleges: [], majors: [], grades: [] }
+ */
+export function getFreeStudents(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/free-students`,
+    method: 'get',
+    params,
+    // 数组按 slots=3&slots=4 的形式传递，与后端 List 参数对应
+    paramsSerializer: { indexes: null }
+  })
+}
+
+/**
+ * 搜索连续空闲时段 (按空闲人数排序，附缺席名单)
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { duration, weekFrom, weekTo, days: [], minRatio, topK, recurring, colleges: [], majors: [], grades: [] }
+ */
+export function findMeetingWindows(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/meeting-windows`,
+    method: 'get',
+    params,
+    paramsSerializer: { indexes: null }
+  })
+}
+
+/**
+ * 获取分析会话的汇总信息 (人数、最大周次、筛选项)，页面刷新后用于恢复
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ */
+export function getCourseSession(sessionId) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}`,
+    method: 'get'
+  })
+}
+
+/**
+ * 获取单个格子的详情 (空闲名单 + 忙碌学生正在上的课)
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { week, day, slot, college, major, grade }
+ */
+export function getCourseCellDetail(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/cell`,
+    method: 'get',
+    params
+  })
+}
+
+/**
+ * 查询某个学生某一格的课程详情
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { name, major, grade, day, slot, week } (week 可选)
+ */
+export function getStudentCourses(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/students/courses`,
+    method: 'get',
+    params
+  })
+}
+
+/**
+ * 与某个学生空闲时间最相似的学生
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { name, major, grade, k, colleges: [], majors: [], grades: [] }
+ */
+export function getCompatibleStudents(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/compatible-students`,
+    method: 'get',
+    params,
+    paramsSerializer: { indexes: null }
+  })
+}
+
+/**
+ * 按空闲时间把学生分成 k 组，组内共同空闲时间尽量多
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} params - { k, colleges: [], majors: [], grades: [] }
+ */
+export function getStudentGroups(sessionId, params) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/groups`,
+    method: 'get',
+    params,
+    paramsSerializer: { indexes: null }
+  })
+}
+
+/**
+ * 向分析会话增加或替换学生课表 (同一学生已存在时整体替换)
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {FormData} data - 包含 'files' 的 FormData 对象
+ */
+export function upsertCourseWorkbooks(sessionId, data) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/workbooks`,
+    method: 'post',
+    data,
+    headers: {
+      'Content-Type': 'multipart/form-data'
+    }
+  })
+}
+
+/**
+ * 从分析会话中移除一名学生 (按 姓名+专业+年级 识别)
+ * @param {string} sessionId - analyzeCourse 返回的 sessionId
+ * @param {object} student - { name, major, grade }
+ */
+export function removeCourseStudent(sessionId, student) {
+  return request({
+    url: `/api/tools/course/sessions/${sessionId}/students`,
+    method: 'delete',
+    params: { name: student.name, major: student.major, grade: student.grade }
+  })
+}
+
+/**
+ * 提交异步分析任务，立即返回任务状态 (jobId、status、parsedFiles、totalFiles 等)
+ * @param {FormData} data - 包含 'files' 的 FormData 对象
+ */
+export function submitCourseJob(data) {
+  return request({
+    url: '/api/tools/course/jobs',
+    method: 'post',
+    data,
     headers: {
       'Content-Type': 'multipart/form-data'
     }
   })
 }
+
+/**
+ * 查询异步分析任务状态
+ * @param {string} jobId - submitCourseJob 返回的 jobId
+ */
+export function getCourseJob(jobId) {
+  return request({
+    url: `/api/tools/course/jobs/${jobId}`,
+    method: 'get'
+  })
+}
+
+/**
+ * 订阅异步分析任务进度 (SSE)，任务结束后自动关闭连接
+ * @param {string} jobId - submitCourseJob 返回的 jobId
+ * @param {(status: object) => void} onProgress - 进度回调
+ * @param {(status: object) => void} onDone - 结束回调 (status 为 SUCCESS / FAILED / CANCELLED)
+ * @returns {EventSource} 可调用 close() 提前停止订阅
+ */
+export function watchCourseJob(jobId, onProgress, onDone) {
+  const source = new EventSource(import.meta.env.VITE_API_BASE_URL + `/api/tools/course/jobs/${jobId}/events`)
+  source.addEventListener('progress', (e) => onProgress(JSON.parse(e.data)))
+  source.addEventListener('done', (e) => {
+    source.close()
+    onDone(JSON.parse(e.data))
+  })
+  return source
+}
+
+/**
+ * 取消异步分析任务
+ * @param {string} jobId - submitCourseJob 返回的 jobId
+ */
+export function cancelCourseJob(jobId) {
+  return request({
+    url: `/api/tools/course/jobs/${jobId}`,
+    method: 'delete'
+  })
+}
+
+/**
+ * 获取异步分析任务结果 (与 analyzeCourse 的返回相同)
+ * @param {string} jobId - submitCourseJob 返回的 jobId
+ */
+export async function getCourseJobResult(jobId) {
+  const result = await request({
+    url: `/api/tools/course/jobs/${jobId}/result`,
+    method: 'get',
+    headers: {
+      Accept: COMPACT_JSON + ', application/json'
+    }
+  })
+  return expandCompactResult(result)
+}
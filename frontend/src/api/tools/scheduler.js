@@ -15,6 +15,22 @@ export function uploadAndParse(data) {
   })
 }
 
+/**
+ * 批量上传并解析课表 (容错模式)
+ * 单个文件失败不会中断整个批次，返回 { students, errors, totalFiles }
+ * @param {FormData} data - 包含文件的 FormData 对象
+ */
+export function uploadAndParseBatch(data) {
+  return request({
+    url: '/api/tools/scheduler/parse-batch',
+    method: 'post',
+    data,
+    headers: {
+      'Content-Type': 'multipart/form-data'
+    }
+  })
+}
+
 // 智能排班计算接口
 export function autoSchedule(data) {
   return request({
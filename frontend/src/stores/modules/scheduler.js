@@ -1,7 +1,8 @@
 import { defineStore } from 'pinia'
 import { ref } from 'vue'
-import { uploadAndParse as uploadAndParseApi } from '@/api/tools/scheduler'
+import { uploadAndParseBatch as uploadAndParseApi } from '@/api/tools/scheduler'
 import { ElMessage } from 'element-plus'
+import { hasWeek } from '@/utils/weeks'
 
 export const useSchedulerStore = defineStore(
   'scheduler',
@@ -27,9 +28,17 @@ export const useSchedulerStore = defineStore(
       try {
         const res = await uploadAndParseApi(formData)
 
+        // 部分文件解析失败时，提示失败的文件名，成功的数据照常导入
+        if (res?.errors && res.errors.length > 0) {
+          const names = res.errors.map((e) => e.fileName).join('、')
+          ElMessage.warning(`有 ${res.errors.length} 个文件解析失败：${names}`)
+        }
+
         let dataList = []
         if (Array.isArray(res)) {
           dataList = res
+        } else if (res?.students && Array.isArray(res.students)) {
+          dataList = res.students
         } else if (res?.data && Array.isArray(res.data)) {
           dataList = res.data
         } else if (res?.data?.data && Array.isArray(res.data.data)) {
@@ -69,7 +78,7 @@ export const useSchedulerStore = defineStore(
 
       // 2. 遍历所有课程，只要有一门课在当前周忙碌，就是冲突
       for (const course of courses) {
-        if (course.busyWeeks && course.busyWeeks.map(w => Number(w)).includes(tWeek)) {
+        if (hasWeek(course.busyWeeks, tWeek)) {
           return { conflict: true, reason: course.courseName || '有课' }
         }
       }
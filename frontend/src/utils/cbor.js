@@ -0,0 +1,125 @@
+/**
+ * 最小化的 CBOR 解码器 (RFC 8949)
+ * 只覆盖后端 Jackson 会输出的类型：整数、字符串、字节串、数组、对象、浮点数、true/false/null，
+ * 支持定长和不定长两种编码。64 位整数转为 Number (周次位图不超过 2^53，不会丢精度)。
+ */
+
+const textDecoder = new TextDecoder()
+
+/**
+ * 解码 CBOR 数据
+ * @param {ArrayBuffer} buffer - 响应体
+ * @returns {*} 解码后的 JS 对象
+ */
+export function decodeCbor(buffer) {
+  const view = new DataView(buffer)
+  const bytes = new Uint8Array(buffer)
+  let offset = 0
+
+  const readLength = (info) => {
+    if (info < 24) return info
+    if (info === 24) return view.getUint8(offset++)
+    if (info === 25) { const v = view.getUint16(offset); offset += 2; return v }
+    if (info === 26) { const v = view.getUint32(offset); offset += 4; return v }
+    if (info === 27) {
+      const v = view.getUint32(offset) * 2 ** 32 + view.getUint32(offset + 4)
+      offset += 8
+      return v
+    }
+    if (info === 31) return -1
+    throw new Error('CBOR 格式错误')
+  }
+
+  const readHalf = () => {
+    const h = view.getUint16(offset)
+    offset += 2
+    const exp = (h >> 10) & 0x1f
+    const frac = h & 0x3ff
+    const sign = h & 0x8000 ? -1 : 1
+    if (exp === 0) return sign * 2 ** -14 * (frac / 1024)
+    if (exp === 31) return frac ? NaN : sign * Infinity
+    return sign * 2 ** (exp - 15) * (1 + frac / 1024)
+  }
+
+  const isBreak = () => {
+    if (bytes[offset] === 0xff) {
+      offset++
+      return true
+    }
+    return false
+  }
+
+  // 不定长的字节串/字符串由多个定长片段拼接
+  const readChunks = (length) => {
+    if (length >= 0) {
+      const chunk = bytes.subarray(offset, offset + length)
+      offset += length
+      return [chunk]
+    }
+    const chunks = []
+    while (!isBreak()) {
+      const info = bytes[offset++] & 0x1f
+      chunks.push(...readChunks(readLength(info)))
+    }
+    return chunks
+  }
+
+  const concat = (chunks) => {
+    if (chunks.length === 1) return chunks[0]
+    const out = new Uint8Array(chunks.reduce((n, c) => n + c.length, 0))
+    let pos = 0
+    chunks.forEach((c) => { out.set(c, pos); pos += c.length })
+    return out
+  }
+
+  const readItem = () => {
+    const initial = bytes[offset++]
+    const major = initial >> 5
+    const info = initial & 0x1f
+    switch (major) {
+      case 0:
+        return readLength(info)
+      case 1:
+        return -1 - readLength(info)
+      case 2:
+        return concat(readChunks(readLength(info)))
+      case 3:
+        return textDecoder.decode(concat(readChunks(readLength(info))))
+      case 4: {
+        const length = readLength(info)
+        const arr = []
+        if (length >= 0) {
+          for (let i = 0; i < length; i++) arr.push(readItem())
+        } else {
+          while (!isBreak()) arr.push(readItem())
+        }
+        return arr
+      }
+      case 5: {
+        const length = readLength(info)
+        const obj = {}
+        if (length >= 0) {
+          for (let i = 0; i < length; i++) { const key = readItem(); obj[key] = readItem() }
+        } else {
+          while (!isBreak()) { const key = readItem(); obj[key] = readItem() }
+        }
+        return obj
+      }
+      case 6:
+        // 标签 (如大整数、日期)，忽略标签直接返回内容
+        readLength(info)
+        return readItem()
+      default: {
+        if (info === 20) return false
+        if (info === 21) return true
+        if (info === 22 || info === 23) return null
+        if (info === 25) return readHalf()
+        if (info === 26) { const v = view.getFloat32(offset); offset += 4; return v }
+        if (info === 27) { const v = view.getFloat64(offset); offset += 8; return v }
+        throw new Error('CBOR 格式错误')
+      }
+    }
+  }
+
+  return readItem()
+}
@@ -0,0 +1,58 @@
+/**
+ * 课表分析结果紧凑格式 (compact-v1) 的还原
+ * 后端把所有字符串放进 strings 字典，学生、课程格子、课程详情按列存储并引用下标 (-1 表示 null)。
+ * 这里还原成与普通格式相同的 AnalysisResult 结构，页面代码无需区分。
+ * 相同的课程格子还原后仍是同一个对象，内存占用与后端一致。
+ */
+
+/**
+ * 是否为紧凑格式
+ * @param {object} result - 后端返回的 data
+ */
+export function isCompactResult(result) {
+  return !!result && typeof result.format === 'string' && result.format.startsWith('compact-')
+}
+
+/**
+ * 紧凑格式还原为普通格式，非紧凑格式原样返回
+ * @param {object} result - CompactAnalysisResult
+ * @returns {object} AnalysisResult
+ */
+export function expandCompactResult(result) {
+  if (!isCompactResult(result)) return result
+  if (result.format !== 'compact-v1') {
+    throw new Error('不支持的数据格式：' + result.format)
+  }
+  const { strings, students, items, details, format, ...summary } = result
+  const str = (id) => (id < 0 ? null : strings[id])
+
+  const detailObjects = details.name.map((name, i) => ({
+    name: str(name),
+    teacher: str(details.teacher[i]),
+    location: str(details.location[i]),
+    rawWeekStr: str(details.rawWeekStr[i]),
+    weeks: details.weeks[i]
+  }))
+
+  const itemObjects = items.cell.map((cell, i) => ({
+    day: Math.floor(cell / 10) + 1,
+    slot: (cell % 10) + 1,
+    busyWeeks: items.busyWeeks[i],
+    courseDetails: items.details[i].map((d) => detailObjects[d])
+  }))
+
+  const data = students.name.map((name, i) => ({
+    student: {
+      name: str(name),
+      // 旧版本后端没有 code 列
+      code: students.code ? str(students.code[i]) : '',
+      college: str(students.college[i]),
+      major: str(students.major[i]),
+      grade: str(students.grade[i]),
+      className: str(students.className[i])
+    },
+    courses: students.courses[i].map((c) => itemObjects[c])
+  }))
+
+  return { ...summary, data }
+}
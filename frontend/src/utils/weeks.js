@@ -0,0 +1,41 @@
+/**
+ * 周次集合工具
+ * 后端默认把周次序列化为位图数字 (第 w 位为 1 表示第 w 周有课)，
+ * 超过 52 周时为区间字符串 "1-16,18"，开启兼容开关时为旧版数组 [1, 2, 3]。
+ * 这里统一兼容三种格式 (本地持久化的旧数据也是数组)。
+ */
+
+const rangeCache = new Map()
+
+const parseRanges = (text) => {
+  let weeks = rangeCache.get(text)
+  if (weeks) return weeks
+  weeks = new Set()
+  text.split(',').forEach((part) => {
+    const [start, end] = part.split('-').map(Number)
+    for (let w = start; w <= (end || start); w++) weeks.add(w)
+  })
+  rangeCache.set(text, weeks)
+  return weeks
+}
+
+/**
+ * 判断周次集合中是否包含指定周
+ * @param {Number|String|Array} weeks - 周次集合
+ * @param {Number} week - 目标周
+ */
+export function hasWeek(weeks, week) {
+  if (weeks === null || weeks === undefined) return false
+  const w = Number(week)
+  if (typeof weeks === 'number') {
+    // JS 位运算只有 32 位，这里用除法取位，支持到第 52 周
+    return Math.floor(weeks / 2 ** w) % 2 === 1
+  }
+  if (typeof weeks === 'string') {
+    return parseRanges(weeks).has(w)
+  }
+  if (Array.isArray(weeks)) {
+    return weeks.some((item) => Number(item) === w)
+  }
+  return false
+}